@@ -0,0 +1,93 @@
+package com.contractmonitor.contractmonitor.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    /**
+     * Bounded pool for AI enrichment. When the queue is full, work is rejected and the
+     * changes simply stay PENDING until the next sweep picks them up.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor aiEnrichmentExecutor(
+            @Value("${ai.enrichment.workers:2}") int workers,
+            @Value("${ai.enrichment.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ai-enrichment-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Runs streamed analyses so the request thread is released while events are sent
+     */
+    @Bean
+    public ThreadPoolTaskExecutor analysisStreamExecutor(
+            @Value("${analysis.stream.workers:4}") int workers,
+            @Value("${analysis.stream.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("analysis-stream-");
+        return executor;
+    }
+
+    /**
+     * Runs queued analysis jobs. AnalysisJobWorker claims no more jobs than this pool has idle
+     * threads; the small queue only covers a thread that has finished but not yet returned to the pool.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor analysisJobExecutor(@Value("${analysis.jobs.workers:4}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(workers);
+        executor.setThreadNamePrefix("analysis-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Sends job progress events (AnalysisJobEvents) so a slow client never blocks the scheduler
+     * thread that polls for them; a full queue only delays events to the next poll
+     */
+    @Bean
+    public ThreadPoolTaskExecutor analysisEventsExecutor(
+            @Value("${analysis.jobs.events-workers:2}") int workers,
+            @Value("${analysis.jobs.events-queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("analysis-events-");
+        return executor;
+    }
+
+    /**
+     * Writes streamed exports (and any other asynchronous MVC response, see WebAsyncConfig).
+     * Each export holds a database connection until it finishes, so the pool stays small.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor exportExecutor(
+            @Value("${export.workers:2}") int workers,
+            @Value("${export.queue-capacity:10}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("export-");
+        return executor;
+    }
+}
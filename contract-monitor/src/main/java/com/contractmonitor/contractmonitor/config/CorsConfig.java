@@ -24,6 +24,9 @@ public class CorsConfig {
         // Allow all headers
         config.setAllowedHeaders(Arrays.asList("*"));
         
+        // Let the dashboard read the cursor of the next page
+        config.setExposedHeaders(Arrays.asList("X-Next-Cursor"));
+        
         // Allow credentials
         config.setAllowCredentials(true);
         
@@ -0,0 +1,34 @@
+package com.contractmonitor.contractmonitor.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Asynchronous MVC responses (StreamingResponseBody exports) run on the bounded export pool
+ * instead of a thread per request, with a timeout long enough for a full export.
+ * SSE endpoints are unaffected: their emitters carry their own timeouts.
+ */
+@Configuration
+public class WebAsyncConfig implements WebMvcConfigurer {
+
+    private final ThreadPoolTaskExecutor exportExecutor;
+    private final Duration exportTimeout;
+
+    public WebAsyncConfig(@Qualifier("exportExecutor") ThreadPoolTaskExecutor exportExecutor,
+                          @Value("${export.timeout:30m}") Duration exportTimeout) {
+        this.exportExecutor = exportExecutor;
+        this.exportTimeout = exportTimeout;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(exportExecutor);
+        configurer.setDefaultTimeout(exportTimeout.toMillis());
+    }
+}
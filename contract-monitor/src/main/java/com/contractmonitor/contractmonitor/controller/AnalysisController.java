@@ -1,16 +1,30 @@
 package com.contractmonitor.contractmonitor.controller;
 
+import com.contractmonitor.contractmonitor.entity.AnalysisJob;
 import com.contractmonitor.contractmonitor.entity.AnalysisReport;
+import com.contractmonitor.contractmonitor.service.AiCallScheduler;
+import com.contractmonitor.contractmonitor.service.AnalysisCoordinator;
+import com.contractmonitor.contractmonitor.service.AnalysisJobService;
 import com.contractmonitor.contractmonitor.service.AnalysisService;
+import com.contractmonitor.contractmonitor.service.AnalysisStreamService;
+import com.contractmonitor.contractmonitor.service.CandidateCheckService;
 import com.contractmonitor.contractmonitor.service.OpenApiClient;
+import com.contractmonitor.contractmonitor.util.PageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 @RestController
 @RequestMapping("/api/analysis")
@@ -19,7 +33,14 @@ import java.util.Map;
 public class AnalysisController {
     
     private final AnalysisService analysisService;
+    private final AnalysisCoordinator analysisCoordinator;
     private final OpenApiClient openApiClient;
+    private final CandidateCheckService candidateCheckService;
+    private final AnalysisStreamService analysisStreamService;
+    private final AnalysisJobService analysisJobService;
+    
+    @Value("${analysis.stream.timeout:5m}")
+    private Duration streamTimeout;
     
     /**
      * Trigger analysis for a specific service
@@ -40,7 +61,8 @@ public class AnalysisController {
             }
             
             // Perform analysis
-            AnalysisReport report = analysisService.analyzeService(serviceName);
+            // Joins an analysis of this service that is already running, if any
+            AnalysisReport report = analysisCoordinator.analyzeService(serviceName);
             
             return ResponseEntity.ok(Map.of(
                     "message", "Analysis completed successfully",
@@ -57,6 +79,90 @@ public class AnalysisController {
         }
     }
     
+    /**
+     * Queue an analysis and return immediately with its job; follow it at the status URL
+     * or subscribe to its events
+     * POST /api/analysis/{serviceName}/async
+     */
+    @PostMapping("/{serviceName}/async")
+    public ResponseEntity<?> analyzeServiceAsync(@PathVariable String serviceName) {
+        log.info("Received request to queue analysis of: {}", serviceName);
+        
+        // No availability probe here: it would block the request on the service. An offline
+        // service fails the job's fetch, which the job's status and events report.
+        AnalysisJob job = analysisJobService.enqueue(serviceName, AiCallScheduler.Priority.INTERACTIVE);
+        String statusUrl = "/api/analysis/jobs/" + job.getId();
+        
+        return ResponseEntity.accepted()
+                .location(URI.create(statusUrl))
+                .body(Map.of(
+                        "message", "Analysis queued",
+                        "jobId", job.getId(),
+                        "status", job.getStatus(),
+                        "statusUrl", statusUrl,
+                        "eventsUrl", statusUrl + "/events"
+                ));
+    }
+    
+    /**
+     * Trigger analysis and stream its progress as Server-Sent Events: detected breaking
+     * changes first, then AI text for each new change as the model produces it
+     * POST /api/analysis/{serviceName}/stream
+     */
+    @PostMapping(value = "/{serviceName}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamAnalysis(@PathVariable String serviceName) {
+        log.info("Received request to stream analysis of: {}", serviceName);
+        
+        if (!openApiClient.isServiceAvailable(serviceName)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of(
+                            "error", "Service not available",
+                            "message", serviceName + " is currently offline or unreachable"
+                    ));
+        }
+        
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        try {
+            analysisStreamService.start(serviceName, emitter);
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of(
+                            "error", "Too many streamed analyses",
+                            "message", "Try again shortly or use POST /api/analysis/" + serviceName
+                    ));
+        }
+        return ResponseEntity.ok(emitter);
+    }
+    
+    /**
+     * Check a candidate spec against the baseline without storing anything (for CI)
+     * POST /api/analysis/{serviceName}/check
+     * Body: the candidate OpenAPI spec as JSON
+     */
+    @PostMapping(value = "/{serviceName}/check", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> checkCandidateSpec(
+            @PathVariable String serviceName,
+            @RequestBody String candidateSpec) {
+        
+        try {
+            return ResponseEntity.ok(candidateCheckService.check(serviceName, candidateSpec));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of(
+                            "error", "No baseline found",
+                            "message", e.getMessage()
+                    ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of(
+                            "error", "Invalid candidate spec",
+                            "message", e.getMessage()
+                    ));
+        }
+    }
+    
     /**
      * Analyze all services
      * POST /api/analysis/all
@@ -80,7 +186,8 @@ public class AnalysisController {
                     continue;
                 }
                 
-                AnalysisReport report = analysisService.analyzeService(service);
+                // Bulk sweep: its AI enrichment yields to single-service analyses
+                AnalysisReport report = analysisCoordinator.analyzeService(service, AiCallScheduler.Priority.BACKGROUND);
                 results.put(service, Map.of(
                         "status", "success",
                         "breakingChanges", report.getBreakingChangesCount()
@@ -125,13 +232,16 @@ public class AnalysisController {
     }
     
     /**
-     * Get analysis history for a service
-     * GET /api/analysis/{serviceName}/history
+     * Get analysis history for a service, newest first, a page at a time; the next page's
+     * cursor is returned in the X-Next-Cursor header
+     * GET /api/analysis/{serviceName}/history?limit=50&cursor=...
      */
     @GetMapping("/{serviceName}/history")
-    public ResponseEntity<List<AnalysisReport>> getReportHistory(@PathVariable String serviceName) {
-        List<AnalysisReport> history = analysisService.getReportHistory(serviceName);
-        return ResponseEntity.ok(history);
+    public ResponseEntity<List<AnalysisReport>> getReportHistory(
+            @PathVariable String serviceName,
+            @RequestParam(required = false) PageCursor cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return Pages.ok(analysisService.getReportHistory(serviceName, cursor, limit));
     }
     
     /**
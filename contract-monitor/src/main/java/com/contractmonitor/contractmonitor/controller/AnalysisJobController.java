@@ -0,0 +1,142 @@
+package com.contractmonitor.contractmonitor.controller;
+
+import com.contractmonitor.contractmonitor.entity.AnalysisJob;
+import com.contractmonitor.contractmonitor.service.AiCallScheduler;
+import com.contractmonitor.contractmonitor.service.AnalysisJobEvents;
+import com.contractmonitor.contractmonitor.service.AnalysisJobService;
+import com.contractmonitor.contractmonitor.service.AnalysisService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/analysis/jobs")
+@RequiredArgsConstructor
+@Slf4j
+public class AnalysisJobController {
+    
+    private final AnalysisJobService analysisJobService;
+    private final AnalysisJobEvents analysisJobEvents;
+    private final AnalysisService analysisService;
+    
+    @Value("${analysis.stream.timeout:5m}")
+    private Duration streamTimeout;
+    
+    /**
+     * Queue an analysis to be run by the worker pool
+     * POST /api/analysis/jobs
+     * Body: {"serviceName": "...", "priority": "INTERACTIVE|BACKGROUND"} (priority optional)
+     */
+    @PostMapping
+    public ResponseEntity<?> enqueue(@RequestBody Map<String, String> request) {
+        String serviceName = request.get("serviceName");
+        if (serviceName == null || serviceName.isBlank()) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of(
+                            "error", "Invalid job",
+                            "message", "serviceName is required"
+                    ));
+        }
+        
+        AiCallScheduler.Priority priority;
+        try {
+            priority = AiCallScheduler.Priority.valueOf(request.getOrDefault("priority", "BACKGROUND"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of(
+                            "error", "Invalid job",
+                            "message", "priority must be INTERACTIVE or BACKGROUND"
+                    ));
+        }
+        
+        return ResponseEntity.status(HttpStatus.CREATED).body(analysisJobService.enqueue(serviceName, priority));
+    }
+    
+    /**
+     * Status of a queued analysis: its phase while running, the report once it has succeeded,
+     * the last error if it is retrying or dead
+     * GET /api/analysis/jobs/{id}
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getJob(@PathVariable Long id) {
+        Optional<AnalysisJob> job = analysisJobService.getJob(id);
+        if (job.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of(
+                            "error", "Job not found",
+                            "message", "No analysis job with ID " + id
+                    ));
+        }
+        
+        Map<String, Object> body = new HashMap<>();
+        body.put("job", job.get());
+        body.put("report", analysisService.getReport(job.get().getReportId()));
+        return ResponseEntity.ok(body);
+    }
+    
+    /**
+     * Stream a queued analysis's progress as Server-Sent Events until it finishes
+     * GET /api/analysis/jobs/{id}/events
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamJob(@PathVariable Long id) {
+        if (analysisJobService.getJob(id).isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of(
+                            "error", "Job not found",
+                            "message", "No analysis job with ID " + id
+                    ));
+        }
+        
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        analysisJobEvents.subscribe(id, emitter);
+        return ResponseEntity.ok(emitter);
+    }
+    
+    /**
+     * List jobs in a status, newest first; DEAD lists the dead-letter queue
+     * GET /api/analysis/jobs?status=DEAD&limit=50
+     */
+    @GetMapping
+    public ResponseEntity<List<AnalysisJob>> getJobs(
+            @RequestParam(defaultValue = "DEAD") AnalysisJob.Status status,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(analysisJobService.getJobsByStatus(status, Math.min(Math.max(limit, 1), 500)));
+    }
+    
+    /**
+     * Put a dead-lettered job back on the queue
+     * POST /api/analysis/jobs/{id}/retry
+     */
+    @PostMapping("/{id}/retry")
+    public ResponseEntity<?> retryDeadJob(@PathVariable Long id) {
+        if (!analysisJobService.retryDead(id)) {
+            Optional<AnalysisJob> job = analysisJobService.getJob(id);
+            if (job.isPresent() && job.get().getStatus() == AnalysisJob.Status.DEAD) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of(
+                                "error", "Already queued",
+                                "message", "Another analysis job for " + job.get().getServiceName() + " is already queued"
+                        ));
+            }
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of(
+                            "error", "No dead job found",
+                            "message", "No dead-lettered analysis job with ID " + id
+                    ));
+        }
+        return ResponseEntity.ok(analysisJobService.getJob(id).orElseThrow());
+    }
+}
@@ -2,6 +2,7 @@ package com.contractmonitor.contractmonitor.controller;
 
 import com.contractmonitor.contractmonitor.entity.ApiSpec;
 import com.contractmonitor.contractmonitor.service.ApiSpecService;
+import com.contractmonitor.contractmonitor.util.PageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -42,14 +43,17 @@ public class ApiSpecController {
     }
     
     /**
-     * Get spec history for a service
-     * GET /api/specs/{serviceName}/history
+     * Get spec history for a service, newest first, a page at a time; the next page's
+     * cursor is returned in the X-Next-Cursor header
+     * GET /api/specs/{serviceName}/history?limit=50&cursor=...
      */
     @GetMapping("/{serviceName}/history")
-    public ResponseEntity<List<ApiSpec>> getSpecHistory(@PathVariable String serviceName) {
+    public ResponseEntity<List<ApiSpec>> getSpecHistory(
+            @PathVariable String serviceName,
+            @RequestParam(required = false) PageCursor cursor,
+            @RequestParam(defaultValue = "50") int limit) {
         log.info("Fetching spec history for: {}", serviceName);
-        List<ApiSpec> history = apiSpecService.getSpecHistory(serviceName);
-        return ResponseEntity.ok(history);
+        return Pages.ok(apiSpecService.getSpecHistory(serviceName, cursor, limit));
     }
     
     /**
@@ -1,15 +1,19 @@
 package com.contractmonitor.contractmonitor.controller;
 
+import com.contractmonitor.contractmonitor.dto.BreakingChangeSummary;
 import com.contractmonitor.contractmonitor.entity.BreakingChange;
 import com.contractmonitor.contractmonitor.service.BreakingChangeService;
+import com.contractmonitor.contractmonitor.util.PageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/breaking-changes")
@@ -20,27 +24,51 @@ public class BreakingChangeController {
     private final BreakingChangeService breakingChangeService;
     
     /**
-     * Get all breaking changes for a service
-     * GET /api/breaking-changes/{serviceName}
+     * Get breaking changes for a service, newest first, a page at a time; the next page's
+     * cursor is returned in the X-Next-Cursor header
+     * GET /api/breaking-changes/{serviceName}?limit=50&cursor=...
      */
     @GetMapping("/{serviceName}")
-    public ResponseEntity<List<BreakingChange>> getBreakingChanges(@PathVariable String serviceName) {
+    public ResponseEntity<List<BreakingChangeSummary>> getBreakingChanges(
+            @PathVariable String serviceName,
+            @RequestParam(required = false) PageCursor cursor,
+            @RequestParam(defaultValue = "50") int limit) {
         log.info("Fetching breaking changes for: {}", serviceName);
-        List<BreakingChange> changes = breakingChangeService.getByServiceName(serviceName);
-        return ResponseEntity.ok(changes);
+        return Pages.ok(breakingChangeService.getByServiceName(serviceName, cursor, limit));
     }
     
     /**
-     * Get breaking changes by type for a service
-     * GET /api/breaking-changes/{serviceName}/type/{changeType}
+     * Get breaking changes by type for a service (paginated)
+     * GET /api/breaking-changes/{serviceName}/type/{changeType}?limit=50&cursor=...
      */
     @GetMapping("/{serviceName}/type/{changeType}")
-        public ResponseEntity<List<BreakingChange>> getBreakingChangesByType(
+        public ResponseEntity<List<BreakingChangeSummary>> getBreakingChangesByType(
         @PathVariable String serviceName,
-        @PathVariable BreakingChange.ChangeType changeType) {
+        @PathVariable BreakingChange.ChangeType changeType,
+        @RequestParam(required = false) PageCursor cursor,
+        @RequestParam(defaultValue = "50") int limit) {
         log.info("Fetching {} changes for: {}", changeType, serviceName);
-        List<BreakingChange> changes = breakingChangeService.getBreakingChangesByType(serviceName, changeType);
-        return ResponseEntity.ok(changes);
+        return Pages.ok(breakingChangeService.getBreakingChangesByType(serviceName, changeType, cursor, limit));
+    }
+    
+    /**
+     * Get one breaking change in full, including the AI text and resolution notes
+     * that list endpoints leave out
+     * GET /api/breaking-changes/{id}/details
+     */
+    @GetMapping("/{id}/details")
+    public ResponseEntity<?> getDetails(@PathVariable Long id) {
+        Optional<BreakingChange> change = breakingChangeService.getById(id);
+        
+        if (change.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of(
+                            "error", "Breaking change not found",
+                            "message", "No breaking change with ID " + id
+                    ));
+        }
+        
+        return ResponseEntity.ok(change.get());
     }
     
     /**
@@ -58,14 +86,15 @@ public class BreakingChangeController {
     }
     
     /**
-     * Get all breaking changes across all services
-     * GET /api/breaking-changes
+     * Get breaking changes across all services (paginated)
+     * GET /api/breaking-changes?limit=50&cursor=...
      */
     @GetMapping
-    public ResponseEntity<List<BreakingChange>> getAllBreakingChanges() {
+    public ResponseEntity<List<BreakingChangeSummary>> getAllBreakingChanges(
+            @RequestParam(required = false) PageCursor cursor,
+            @RequestParam(defaultValue = "50") int limit) {
         log.info("Fetching all breaking changes");
-        List<BreakingChange> changes = breakingChangeService.getAllBreakingChanges();
-        return ResponseEntity.ok(changes);
+        return Pages.ok(breakingChangeService.getAllBreakingChanges(cursor, limit));
     }
     
     /**
@@ -85,16 +114,16 @@ public class BreakingChangeController {
     }
     
     /**
-     * Get recent breaking changes (last N)
+     * Get recent breaking changes (last N); pass the X-Next-Cursor header back as cursor for the N before
      * GET /api/breaking-changes/{serviceName}/recent?limit=5
      */
     @GetMapping("/{serviceName}/recent")
-    public ResponseEntity<List<BreakingChange>> getRecentBreakingChanges(
+    public ResponseEntity<List<BreakingChangeSummary>> getRecentBreakingChanges(
             @PathVariable String serviceName,
+            @RequestParam(required = false) PageCursor cursor,
             @RequestParam(defaultValue = "10") int limit) {
         log.info("Fetching last {} breaking changes for: {}", limit, serviceName);
-        List<BreakingChange> changes = breakingChangeService.getRecentChanges(serviceName, limit);
-        return ResponseEntity.ok(changes);
+        return Pages.ok(breakingChangeService.getRecentChanges(serviceName, cursor, limit));
     }
     
     /**
@@ -108,27 +137,30 @@ public class BreakingChangeController {
     }
 
     /**
-     * Get breaking changes by status
-     * GET /api/breaking-changes/{serviceName}/status/{status}
+     * Get breaking changes by status (paginated)
+     * GET /api/breaking-changes/{serviceName}/status/{status}?limit=50&cursor=...
      */
     @GetMapping("/{serviceName}/status/{status}")
-    public ResponseEntity<List<BreakingChange>> getByStatus(
+    public ResponseEntity<List<BreakingChangeSummary>> getByStatus(
             @PathVariable String serviceName,
-            @PathVariable BreakingChange.Status status) {
+            @PathVariable BreakingChange.Status status,
+            @RequestParam(required = false) PageCursor cursor,
+            @RequestParam(defaultValue = "50") int limit) {
         log.info("Fetching {} breaking changes for: {}", status, serviceName);
-        List<BreakingChange> changes = breakingChangeService.getByServiceNameAndStatus(serviceName, status);
-        return ResponseEntity.ok(changes);
+        return Pages.ok(breakingChangeService.getByServiceNameAndStatus(serviceName, status, cursor, limit));
     }
     
     /**
-     * Get active breaking changes
-     * GET /api/breaking-changes/{serviceName}/active
+     * Get active breaking changes (paginated)
+     * GET /api/breaking-changes/{serviceName}/active?limit=50&cursor=...
      */
     @GetMapping("/{serviceName}/active")
-    public ResponseEntity<List<BreakingChange>> getActiveChanges(@PathVariable String serviceName) {
+    public ResponseEntity<List<BreakingChangeSummary>> getActiveChanges(
+            @PathVariable String serviceName,
+            @RequestParam(required = false) PageCursor cursor,
+            @RequestParam(defaultValue = "50") int limit) {
         log.info("Fetching active breaking changes for: {}", serviceName);
-        List<BreakingChange> changes = breakingChangeService.getActiveChanges(serviceName);
-        return ResponseEntity.ok(changes);
+        return Pages.ok(breakingChangeService.getActiveChanges(serviceName, cursor, limit));
     }
     
     /**
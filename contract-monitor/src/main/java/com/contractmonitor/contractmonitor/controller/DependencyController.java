@@ -0,0 +1,98 @@
+package com.contractmonitor.contractmonitor.controller;
+
+import com.contractmonitor.contractmonitor.entity.ServiceDependency;
+import com.contractmonitor.contractmonitor.service.DependencyService;
+import com.contractmonitor.contractmonitor.service.ImpactedService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/api/dependencies")
+@RequiredArgsConstructor
+@Slf4j
+public class DependencyController {
+    
+    private final DependencyService dependencyService;
+    
+    /**
+     * Get all declared dependencies
+     * GET /api/dependencies
+     */
+    @GetMapping
+    public ResponseEntity<List<ServiceDependency>> getAllDependencies() {
+        return ResponseEntity.ok(dependencyService.getAll());
+    }
+    
+    /**
+     * Get the dependencies a service declares on others
+     * GET /api/dependencies/{consumerService}
+     */
+    @GetMapping("/{consumerService}")
+    public ResponseEntity<List<ServiceDependency>> getDependencies(@PathVariable String consumerService) {
+        return ResponseEntity.ok(dependencyService.getByConsumer(consumerService));
+    }
+    
+    /**
+     * Declare a dependency
+     * POST /api/dependencies
+     * Body: {"consumerService": "...", "providerService": "...", "path": "...", "schemaName": "..."}
+     */
+    @PostMapping
+    public ResponseEntity<?> declareDependency(@RequestBody ServiceDependency dependency) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(dependencyService.declare(dependency));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of(
+                            "error", "Invalid dependency",
+                            "message", e.getMessage()
+                    ));
+        }
+    }
+    
+    /**
+     * Remove a declared dependency
+     * DELETE /api/dependencies/{id}
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> removeDependency(@PathVariable Long id) {
+        try {
+            dependencyService.remove(id);
+            return ResponseEntity.ok(Map.of("message", "Dependency removed", "id", id));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of(
+                            "error", "Dependency not found",
+                            "message", e.getMessage()
+                    ));
+        }
+    }
+    
+    /**
+     * Services affected by a breaking change, from the consumer index
+     * GET /api/dependencies/impact/{breakingChangeId}
+     */
+    @GetMapping("/impact/{breakingChangeId}")
+    public ResponseEntity<?> getImpact(@PathVariable Long breakingChangeId) {
+        try {
+            List<ImpactedService> impacted = dependencyService.getImpact(breakingChangeId);
+            return ResponseEntity.ok(Map.of(
+                    "breakingChangeId", breakingChangeId,
+                    "impactedServices", impacted
+            ));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of(
+                            "error", "Breaking change not found",
+                            "message", e.getMessage()
+                    ));
+        }
+    }
+}
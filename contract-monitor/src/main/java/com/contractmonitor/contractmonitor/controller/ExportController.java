@@ -0,0 +1,98 @@
+package com.contractmonitor.contractmonitor.controller;
+
+import com.contractmonitor.contractmonitor.service.ExportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bulk exports as newline-delimited JSON, streamed from the database as they are written.
+ * Use these instead of walking the paginated list endpoints to copy everything out.
+ */
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+@Slf4j
+public class ExportController {
+    
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    
+    private final ExportService exportService;
+    
+    /**
+     * Export breaking changes, optionally of one service, optionally gzip-compressed
+     * GET /api/export/breaking-changes?serviceName=user-service&gzip=true
+     */
+    @GetMapping("/breaking-changes")
+    public ResponseEntity<StreamingResponseBody> exportBreakingChanges(
+            @RequestParam(required = false) String serviceName,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        log.info("Exporting breaking changes{}", serviceName != null ? " for " + serviceName : "");
+        return export("breaking-changes", gzip, out -> exportService.exportBreakingChanges(serviceName, out));
+    }
+    
+    /**
+     * Export analysis reports, optionally of one service, optionally gzip-compressed
+     * GET /api/export/reports?serviceName=user-service&gzip=true
+     */
+    @GetMapping("/reports")
+    public ResponseEntity<StreamingResponseBody> exportReports(
+            @RequestParam(required = false) String serviceName,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        log.info("Exporting analysis reports{}", serviceName != null ? " for " + serviceName : "");
+        return export("analysis-reports", gzip, out -> exportService.exportReports(serviceName, out));
+    }
+    
+    /**
+     * All export threads are busy and the queue is full
+     */
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<?> exportsBusy(TaskRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of(
+                        "error", "Too many exports running",
+                        "message", "Try again shortly"
+                ));
+    }
+    
+    @FunctionalInterface
+    private interface Export {
+        long writeTo(OutputStream out) throws IOException;
+    }
+    
+    private ResponseEntity<StreamingResponseBody> export(String name, boolean gzip, Export export) {
+        StreamingResponseBody body = out -> {
+            if (!gzip) {
+                export.writeTo(out);
+                return;
+            }
+            // Closing frees the deflater's native memory even if the export fails;
+            // the response stream itself is left for the container to close
+            try (GZIPOutputStream compressed = new GZIPOutputStream(StreamUtils.nonClosing(out), GZIP_BUFFER_SIZE)) {
+                export.writeTo(compressed);
+                compressed.finish();
+            }
+        };
+        
+        String fileName = name + (gzip ? ".ndjson.gz" : ".ndjson");
+        return ResponseEntity.ok()
+                .contentType(gzip ? GZIP : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+}
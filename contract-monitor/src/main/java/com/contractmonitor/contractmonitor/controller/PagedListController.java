@@ -0,0 +1,105 @@
+package com.contractmonitor.contractmonitor.controller;
+
+import com.contractmonitor.contractmonitor.dto.BreakingChangeSummary;
+import com.contractmonitor.contractmonitor.dto.CursorPage;
+import com.contractmonitor.contractmonitor.entity.AnalysisReport;
+import com.contractmonitor.contractmonitor.entity.ApiSpec;
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import com.contractmonitor.contractmonitor.service.AnalysisService;
+import com.contractmonitor.contractmonitor.service.ApiSpecService;
+import com.contractmonitor.contractmonitor.service.BreakingChangeService;
+import com.contractmonitor.contractmonitor.util.PageCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * The paginated lists again, answered with a {items, nextCursor} envelope instead of a bare
+ * array and an X-Next-Cursor header. The /api paths keep their array bodies for existing clients.
+ */
+@RestController
+@RequestMapping("/api/v2")
+@RequiredArgsConstructor
+public class PagedListController {
+    
+    private final BreakingChangeService breakingChangeService;
+    private final ApiSpecService apiSpecService;
+    private final AnalysisService analysisService;
+    
+    /**
+     * GET /api/v2/breaking-changes?limit=50&cursor=...
+     */
+    @GetMapping("/breaking-changes")
+    public CursorPage<BreakingChangeSummary> getAllBreakingChanges(
+            @RequestParam(required = false) PageCursor cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return CursorPage.of(breakingChangeService.getAllBreakingChanges(cursor, limit));
+    }
+    
+    /**
+     * GET /api/v2/breaking-changes/{serviceName}?limit=50&cursor=...
+     */
+    @GetMapping("/breaking-changes/{serviceName}")
+    public CursorPage<BreakingChangeSummary> getBreakingChanges(
+            @PathVariable String serviceName,
+            @RequestParam(required = false) PageCursor cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return CursorPage.of(breakingChangeService.getByServiceName(serviceName, cursor, limit));
+    }
+    
+    /**
+     * GET /api/v2/breaking-changes/{serviceName}/type/{changeType}?limit=50&cursor=...
+     */
+    @GetMapping("/breaking-changes/{serviceName}/type/{changeType}")
+    public CursorPage<BreakingChangeSummary> getBreakingChangesByType(
+            @PathVariable String serviceName,
+            @PathVariable BreakingChange.ChangeType changeType,
+            @RequestParam(required = false) PageCursor cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return CursorPage.of(breakingChangeService.getBreakingChangesByType(serviceName, changeType, cursor, limit));
+    }
+    
+    /**
+     * GET /api/v2/breaking-changes/{serviceName}/status/{status}?limit=50&cursor=...
+     */
+    @GetMapping("/breaking-changes/{serviceName}/status/{status}")
+    public CursorPage<BreakingChangeSummary> getByStatus(
+            @PathVariable String serviceName,
+            @PathVariable BreakingChange.Status status,
+            @RequestParam(required = false) PageCursor cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return CursorPage.of(breakingChangeService.getByServiceNameAndStatus(serviceName, status, cursor, limit));
+    }
+    
+    /**
+     * GET /api/v2/breaking-changes/{serviceName}/active?limit=50&cursor=...
+     */
+    @GetMapping("/breaking-changes/{serviceName}/active")
+    public CursorPage<BreakingChangeSummary> getActiveChanges(
+            @PathVariable String serviceName,
+            @RequestParam(required = false) PageCursor cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return CursorPage.of(breakingChangeService.getActiveChanges(serviceName, cursor, limit));
+    }
+    
+    /**
+     * GET /api/v2/specs/{serviceName}/history?limit=50&cursor=...
+     */
+    @GetMapping("/specs/{serviceName}/history")
+    public CursorPage<ApiSpec> getSpecHistory(
+            @PathVariable String serviceName,
+            @RequestParam(required = false) PageCursor cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return CursorPage.of(apiSpecService.getSpecHistory(serviceName, cursor, limit));
+    }
+    
+    /**
+     * GET /api/v2/analysis/{serviceName}/history?limit=50&cursor=...
+     */
+    @GetMapping("/analysis/{serviceName}/history")
+    public CursorPage<AnalysisReport> getReportHistory(
+            @PathVariable String serviceName,
+            @RequestParam(required = false) PageCursor cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return CursorPage.of(analysisService.getReportHistory(serviceName, cursor, limit));
+    }
+}
@@ -0,0 +1,28 @@
+package com.contractmonitor.contractmonitor.controller;
+
+import com.contractmonitor.contractmonitor.util.KeysetPage;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Response shape of paginated list endpoints: the page's items as the body, as before,
+ * and the cursor of the next page in a header (absent on the last page).
+ * The body alone is truncated to the page size; PagedListController serves the same
+ * lists with the cursor in the body.
+ */
+final class Pages {
+    
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    
+    private Pages() {
+    }
+    
+    static <T> ResponseEntity<List<T>> ok(KeysetPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor().toString());
+        }
+        return response.body(page.items());
+    }
+}
@@ -0,0 +1,38 @@
+package com.contractmonitor.contractmonitor.dto;
+
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+
+import java.time.LocalDateTime;
+
+/**
+ * List view of a breaking change: everything except the AI text and resolution notes, which
+ * can run to several KB each and are never read from the database for lists. The flags say
+ * whether they exist; GET /api/breaking-changes/{id}/details returns them.
+ *
+ * Field names match BreakingChange, so clients read list rows and full changes the same way.
+ */
+public record BreakingChangeSummary(
+        Long id,
+        String serviceName,
+        BreakingChange.ChangeType changeType,
+        String path,
+        String description,
+        String oldVersion,
+        String newVersion,
+        LocalDateTime detectedAt,
+        LocalDateTime lastSeen,
+        BreakingChange.Status status,
+        LocalDateTime resolvedAt,
+        String resolvedBy,
+        BreakingChange.EnrichmentStatus enrichmentStatus,
+        boolean hasInsights,
+        boolean hasResolutionNotes) {
+    
+    // JPQL select clause for queries returning summaries; the TEXT columns are only null-checked
+    public static final String SELECT = "SELECT new com.contractmonitor.contractmonitor.dto.BreakingChangeSummary("
+            + "b.id, b.serviceName, b.changeType, b.path, b.description, b.oldVersion, b.newVersion, "
+            + "b.detectedAt, b.lastSeen, b.status, b.resolvedAt, b.resolvedBy, b.enrichmentStatus, "
+            + "CASE WHEN b.aiSuggestion IS NOT NULL OR b.predictedImpact IS NOT NULL "
+            + "OR b.plainEnglishExplanation IS NOT NULL THEN true ELSE false END, "
+            + "CASE WHEN b.resolutionNotes IS NOT NULL THEN true ELSE false END) ";
+}
@@ -0,0 +1,18 @@
+package com.contractmonitor.contractmonitor.dto;
+
+import com.contractmonitor.contractmonitor.util.KeysetPage;
+
+import java.util.List;
+
+/**
+ * Body of the /api/v2 list endpoints: one page of items and the token of the next page,
+ * so clients that never read response headers still see that the list goes on.
+ * nextCursor is null on the last page; pass it back as ?cursor= otherwise.
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+    
+    public static <T> CursorPage<T> of(KeysetPage<T> page) {
+        return new CursorPage<>(page.items(),
+                page.nextCursor() != null ? page.nextCursor().toString() : null);
+    }
+}
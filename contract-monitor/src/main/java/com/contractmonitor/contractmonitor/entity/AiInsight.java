@@ -0,0 +1,50 @@
+package com.contractmonitor.contractmonitor.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "ai_insights",
+       indexes = {
+           // Retention and template-version pruning in AiInsightCache.prune
+           @Index(name = "idx_ai_insights_created", columnList = "created_at"),
+           @Index(name = "idx_ai_insights_kind_version", columnList = "kind, template_version")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AiInsight {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // SHA-256 of insight kind, prompt template version and prompt inputs
+    @Column(name = "cache_key", nullable = false, unique = true, length = 64)
+    private String cacheKey;
+    
+    @Column(nullable = false, length = 50)
+    private String kind;
+    
+    @Column(name = "template_version", nullable = false, length = 50)
+    private String templateVersion;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String content;
+    
+    // Approximate prompt + completion tokens the original call cost
+    @Column(name = "estimated_tokens", nullable = false)
+    private Integer estimatedTokens;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
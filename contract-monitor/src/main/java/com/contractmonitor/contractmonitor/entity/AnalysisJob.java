@@ -0,0 +1,91 @@
+package com.contractmonitor.contractmonitor.entity;
+
+import com.contractmonitor.contractmonitor.service.AiCallScheduler;
+import com.contractmonitor.contractmonitor.service.AnalysisPhase;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A queued analysis of one service. Workers claim rows with FOR UPDATE SKIP LOCKED and hold
+ * them until locked_until; a RUNNING row past that time belongs to a dead worker and is claimed again.
+ */
+@Entity
+@Table(name = "analysis_jobs", indexes = {
+        @Index(name = "idx_analysis_jobs_claim", columnList = "status, available_at"),
+        @Index(name = "idx_analysis_jobs_service", columnList = "service_name, status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalysisJob {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "service_name", nullable = false)
+    private String serviceName;
+    
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Status status;
+    
+    @Enumerated(EnumType.STRING)
+    private AnalysisPhase phase; // Phase of the current attempt while RUNNING
+    
+    @Column(name = "ai_priority", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private AiCallScheduler.Priority aiPriority;
+    
+    @Column(nullable = false)
+    private Integer attempts;
+    
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+    
+    @Column(name = "locked_by")
+    private String lockedBy;
+    
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+    
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+    
+    @Column(name = "report_id")
+    private Long reportId;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+    
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (availableAt == null) {
+            availableAt = createdAt;
+        }
+        if (status == null) {
+            status = Status.QUEUED;
+        }
+        if (attempts == null) {
+            attempts = 0;
+        }
+    }
+    
+    public enum Status {
+        QUEUED,          // Waiting for a worker (new, or retrying after available_at)
+        RUNNING,         // Claimed by the worker in locked_by
+        SUCCEEDED,       // Analysis saved report_id
+        DEAD             // Failed max-attempts times; kept for inspection and manual retry
+    }
+}
@@ -0,0 +1,33 @@
+package com.contractmonitor.contractmonitor.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marks a service as being analyzed by one replica. A row whose expires_at has passed
+ * belongs to a replica that died mid-analysis and may be taken over.
+ */
+@Entity
+@Table(name = "analysis_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalysisLease {
+    
+    @Id
+    @Column(name = "service_name")
+    private String serviceName;
+    
+    @Column(nullable = false)
+    private String owner;
+    
+    @Column(name = "acquired_at", nullable = false)
+    private LocalDateTime acquiredAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -8,7 +8,8 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "analysis_reports")
+@Table(name = "analysis_reports",
+       indexes = @Index(name = "idx_analysis_reports_service_analyzed", columnList = "service_name, analyzed_at, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -33,8 +34,19 @@ public class AnalysisReport {
     @Column(name = "analyzed_at", nullable = false)
     private LocalDateTime analyzedAt;
     
+    @Enumerated(EnumType.STRING)
+    private Status status; // Null on reports saved before statuses were recorded (all complete)
+    
     @PrePersist
     protected void onCreate() {
         analyzedAt = LocalDateTime.now();
+        if (status == null) {
+            status = Status.COMPLETED;
+        }
+    }
+    
+    public enum Status {
+        COMPLETED,       // Every phase finished
+        TIMED_OUT        // The run hit its deadline; counts cover only what was found before that
     }
 }
\ No newline at end of file
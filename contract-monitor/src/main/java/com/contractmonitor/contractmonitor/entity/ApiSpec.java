@@ -1,5 +1,6 @@
 package com.contractmonitor.contractmonitor.entity;
 
+import com.contractmonitor.contractmonitor.util.HashUtils;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -8,7 +9,8 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "api_specs")
+@Table(name = "api_specs",
+       indexes = @Index(name = "idx_api_specs_service_fetched", columnList = "service_name, fetched_at, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -27,6 +29,9 @@ public class ApiSpec {
     @Column(nullable = false, columnDefinition = "TEXT")
     private String specContent; // JSON of OpenAPI spec
     
+    @Column(name = "content_hash", length = 64)
+    private String contentHash; // SHA-256 of specContent
+    
     @Column(name = "fetched_at", nullable = false)
     private LocalDateTime fetchedAt;
     
@@ -43,6 +48,9 @@ public class ApiSpec {
     @PrePersist
     protected void onCreate() {
         fetchedAt = LocalDateTime.now();
+        if (contentHash == null && specContent != null) {
+            contentHash = HashUtils.sha256(specContent);
+        }
         if (isBaseline == null) {
             isBaseline = false;
         }
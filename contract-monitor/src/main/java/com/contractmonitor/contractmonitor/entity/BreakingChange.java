@@ -1,5 +1,6 @@
 package com.contractmonitor.contractmonitor.entity;
 
+import com.contractmonitor.contractmonitor.util.HashUtils;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -8,7 +9,21 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "breaking_changes")
+@Table(name = "breaking_changes",
+       // Target of the upsert in BreakingChangeRepository.upsertSeen
+       uniqueConstraints = @UniqueConstraint(name = "uk_breaking_changes_fingerprint", columnNames = "fingerprint"),
+       indexes = {
+           @Index(name = "idx_breaking_changes_enrichment_status", columnList = "enrichment_status"),
+           @Index(name = "idx_breaking_changes_service_type", columnList = "service_name, change_type"),
+           // Keyset pagination of the list endpoints, newest first
+           @Index(name = "idx_breaking_changes_detected", columnList = "detected_at, id"),
+           @Index(name = "idx_breaking_changes_service_detected", columnList = "service_name, detected_at, id"),
+           @Index(name = "idx_breaking_changes_service_type_detected",
+                  columnList = "service_name, change_type, detected_at, id"),
+           @Index(name = "idx_breaking_changes_status_detected", columnList = "status, detected_at, id"),
+           @Index(name = "idx_breaking_changes_service_status_detected",
+                  columnList = "service_name, status, detected_at, id")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -40,6 +55,13 @@ public class BreakingChange {
     @Column(name = "detected_at", nullable = false)
     private LocalDateTime detectedAt;
     
+    // Identity of the change across repeated analyses (service, type, location, detail)
+    @Column(name = "fingerprint", length = 64)
+    private String fingerprint;
+    
+    @Column(name = "last_seen")
+    private LocalDateTime lastSeen;
+    
     // AI-generated fields
     @Column(columnDefinition = "TEXT")
     private String aiSuggestion;
@@ -50,6 +72,17 @@ public class BreakingChange {
     @Column(columnDefinition = "TEXT")
     private String plainEnglishExplanation;
     
+    // AI enrichment runs asynchronously; PENDING rows are the durable work queue
+    @Column(name = "enrichment_status", length = 20)
+    @Enumerated(EnumType.STRING)
+    private EnrichmentStatus enrichmentStatus;
+    
+    @Column(name = "enrichment_attempts")
+    private Integer enrichmentAttempts = 0;
+    
+    @Column(name = "enrichment_updated_at")
+    private LocalDateTime enrichmentUpdatedAt;
+    
     // NEW: Status management fields
     @Column(name = "status", length = 20, nullable = false)
     @Enumerated(EnumType.STRING)
@@ -73,6 +106,13 @@ public class BreakingChange {
         SCHEMA_REMOVED
     }
     
+    public enum EnrichmentStatus {
+        PENDING,         // Waiting for an enrichment worker
+        IN_PROGRESS,     // Claimed by a worker
+        COMPLETED,       // AI fields filled in
+        FAILED           // Gave up after max attempts
+    }
+    
     // NEW: Status enum
     public enum Status {
         ACTIVE,          // Newly detected, needs attention
@@ -81,11 +121,30 @@ public class BreakingChange {
         IGNORED          // Intentional change, not a bug
     }
     
+    /**
+     * Stable fingerprint of this change, independent of spec versions and detection time
+     */
+    public String computeFingerprint() {
+        return HashUtils.sha256(serviceName + "|" + changeType + "|" + path + "|" + description);
+    }
+    
     @PrePersist
     protected void onCreate() {
         detectedAt = LocalDateTime.now();
+        if (lastSeen == null) {
+            lastSeen = detectedAt;
+        }
+        if (fingerprint == null) {
+            fingerprint = computeFingerprint();
+        }
         if (status == null) {
             status = Status.ACTIVE;
         }
+        if (enrichmentStatus == null) {
+            enrichmentStatus = EnrichmentStatus.PENDING;
+        }
+        if (enrichmentAttempts == null) {
+            enrichmentAttempts = 0;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.contractmonitor.contractmonitor.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Number of breaking changes of one type recorded for a service. Maintained alongside the
+ * breaking_changes rows so statistics never have to scan that table.
+ */
+@Entity
+@Table(name = "breaking_change_counts")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BreakingChangeCount {
+    
+    @EmbeddedId
+    private Key key;
+    
+    @Column(name = "change_count", nullable = false)
+    private Long changeCount;
+    
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        
+        @Column(name = "service_name", nullable = false)
+        private String serviceName;
+        
+        @Column(name = "change_type", nullable = false)
+        @Enumerated(EnumType.STRING)
+        private BreakingChange.ChangeType changeType;
+    }
+}
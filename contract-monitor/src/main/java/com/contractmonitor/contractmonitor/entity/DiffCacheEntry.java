@@ -0,0 +1,44 @@
+package com.contractmonitor.contractmonitor.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "diff_cache",
+       uniqueConstraints = @UniqueConstraint(name = "uk_diff_cache_pair_engine",
+                                             columnNames = {"old_hash", "new_hash", "engine_version"}),
+       indexes = @Index(name = "idx_diff_cache_created", columnList = "created_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiffCacheEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "old_hash", nullable = false, length = 64)
+    private String oldHash;
+    
+    @Column(name = "new_hash", nullable = false, length = 64)
+    private String newHash;
+    
+    // SpecDiffEngine.VERSION that produced the entry; rows written before versioning read as 0
+    @Column(name = "engine_version", nullable = false, columnDefinition = "integer not null default 0")
+    private int engineVersion;
+    
+    @Column(name = "changes_json", nullable = false, columnDefinition = "TEXT")
+    private String changesJson; // Version-independent change set
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,30 @@
+package com.contractmonitor.contractmonitor.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A running contract-monitor replica. Each replica renews its row on a heartbeat; rows that
+ * stop being renewed belong to replicas that are gone and drop out of shard assignment.
+ */
+@Entity
+@Table(name = "monitor_nodes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonitorNode {
+    
+    @Id
+    @Column(name = "node_id")
+    private String nodeId;
+    
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+    
+    @Column(name = "last_heartbeat", nullable = false)
+    private LocalDateTime lastHeartbeat;
+}
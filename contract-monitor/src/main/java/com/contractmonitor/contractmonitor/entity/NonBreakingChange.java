@@ -0,0 +1,78 @@
+package com.contractmonitor.contractmonitor.entity;
+
+import com.contractmonitor.contractmonitor.util.HashUtils;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "non_breaking_changes",
+       // Target of the upsert in NonBreakingChangeRepository.upsertSeen
+       uniqueConstraints = @UniqueConstraint(name = "uk_non_breaking_changes_fingerprint", columnNames = "fingerprint"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NonBreakingChange {
+    
+    // Additions are the bulk of change volume; upsertSeen draws ids from this sequence for a whole run at once
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    private Long id;
+    
+    @Column(nullable = false)
+    private String serviceName;
+    
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private ChangeType changeType;
+    
+    @Column(nullable = false, length = 500)
+    private String path;
+    
+    @Column(columnDefinition = "TEXT")
+    private String description;
+    
+    @Column(nullable = false)
+    private String oldVersion;
+    
+    @Column(nullable = false)
+    private String newVersion;
+    
+    @Column(name = "detected_at", nullable = false)
+    private LocalDateTime detectedAt;
+    
+    // Identity of the addition across repeated analyses (service, type, location, detail)
+    @Column(name = "fingerprint", length = 64)
+    private String fingerprint;
+    
+    @Column(name = "last_seen")
+    private LocalDateTime lastSeen;
+    
+    public enum ChangeType {
+        ENDPOINT_ADDED,
+        METHOD_ADDED,
+        FIELD_ADDED,     // Optional fields only; new required fields are not backward compatible
+        SCHEMA_ADDED
+    }
+    
+    /**
+     * Stable fingerprint of this addition, independent of spec versions and detection time
+     */
+    public String computeFingerprint() {
+        return HashUtils.sha256(serviceName + "|" + changeType + "|" + path + "|" + description);
+    }
+    
+    @PrePersist
+    protected void onCreate() {
+        detectedAt = LocalDateTime.now();
+        if (lastSeen == null) {
+            lastSeen = detectedAt;
+        }
+        if (fingerprint == null) {
+            fingerprint = computeFingerprint();
+        }
+    }
+}
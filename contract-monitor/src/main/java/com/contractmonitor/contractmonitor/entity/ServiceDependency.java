@@ -0,0 +1,47 @@
+package com.contractmonitor.contractmonitor.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A declared call from one service to another. With neither path nor schema set,
+ * the consumer depends on the provider as a whole.
+ */
+@Entity
+@Table(name = "service_dependencies", indexes = {
+        @Index(name = "idx_service_dependencies_provider", columnList = "provider_service")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ServiceDependency {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "consumer_service", nullable = false)
+    private String consumerService;
+    
+    @Column(name = "provider_service", nullable = false)
+    private String providerService;
+    
+    // Endpoint path as written in the provider's spec, e.g. /users/{id}
+    @Column(length = 500)
+    private String path;
+    
+    @Column(name = "schema_name")
+    private String schemaName;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,42 @@
+package com.contractmonitor.contractmonitor.repository;
+
+import com.contractmonitor.contractmonitor.entity.AiInsight;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface AiInsightRepository extends JpaRepository<AiInsight, Long> {
+    
+    Optional<AiInsight> findByCacheKey(String cacheKey);
+    
+    // AI callers run outside any transaction, so each insert commits on its own and no transaction is
+    // held across LLM calls. Inside a caller's transaction it joins it; not REQUIRES_NEW, which would
+    // take a second pooled connection while the caller's is held
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO ai_insights (cache_key, kind, template_version, content, estimated_tokens, created_at) "
+                 + "VALUES (:cacheKey, :kind, :templateVersion, :content, :estimatedTokens, now()) "
+                 + "ON CONFLICT (cache_key) DO NOTHING", nativeQuery = true)
+    void insertIfAbsent(@Param("cacheKey") String cacheKey,
+                        @Param("kind") String kind,
+                        @Param("templateVersion") String templateVersion,
+                        @Param("content") String content,
+                        @Param("estimatedTokens") int estimatedTokens);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AiInsight i WHERE i.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AiInsight i WHERE i.kind = :kind AND i.templateVersion <> :templateVersion")
+    int deleteOtherVersions(@Param("kind") String kind, @Param("templateVersion") String templateVersion);
+}
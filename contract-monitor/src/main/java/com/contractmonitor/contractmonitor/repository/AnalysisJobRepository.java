@@ -0,0 +1,131 @@
+package com.contractmonitor.contractmonitor.repository;
+
+import com.contractmonitor.contractmonitor.entity.AnalysisJob;
+import com.contractmonitor.contractmonitor.service.AnalysisPhase;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AnalysisJobRepository extends JpaRepository<AnalysisJob, Long> {
+    
+    // The statements that put a job back on the queue leave it alone while another job for the
+    // service is queued, which keeps them clear of uk_analysis_jobs_queued_service
+    String NO_QUEUED_SIBLING = "AND NOT EXISTS (SELECT q.id FROM AnalysisJob q "
+                             + "WHERE q.serviceName = j.serviceName AND q.status = 'QUEUED')";
+    
+    boolean existsByServiceNameAndStatus(String serviceName, AnalysisJob.Status status);
+    
+    List<AnalysisJob> findByStatusOrderByCreatedAtDesc(AnalysisJob.Status status, Pageable pageable);
+    
+    /**
+     * Row touched by enqueue; inserted is false when a queued job for the service already existed
+     */
+    interface QueuedJob {
+        Long getId();
+        
+        boolean isInserted();
+    }
+    
+    // One statement against the partial unique index uk_analysis_jobs_queued_service (schema.sql), so
+    // concurrent callers share one queued job. An interactive request upgrades the job's priority and
+    // lets a retry that is backing off run now; a background request never downgrades it.
+    @Transactional
+    @Query(value = "INSERT INTO analysis_jobs (service_name, status, ai_priority, attempts, available_at, created_at) "
+                 + "VALUES (:serviceName, 'QUEUED', :aiPriority, 0, :now, :now) "
+                 + "ON CONFLICT (service_name) WHERE status = 'QUEUED' DO UPDATE SET "
+                 + "ai_priority = CASE WHEN EXCLUDED.ai_priority = 'INTERACTIVE' THEN 'INTERACTIVE' "
+                 + "ELSE analysis_jobs.ai_priority END, "
+                 + "available_at = CASE WHEN EXCLUDED.ai_priority = 'INTERACTIVE' "
+                 + "THEN LEAST(analysis_jobs.available_at, EXCLUDED.available_at) ELSE analysis_jobs.available_at END "
+                 + "RETURNING id, (xmax = 0) AS inserted", nativeQuery = true)
+    QueuedJob enqueue(@Param("serviceName") String serviceName,
+                      @Param("aiPriority") String aiPriority,
+                      @Param("now") LocalDateTime now);
+    
+    // Rows other workers hold are skipped rather than waited on; must run inside the claiming transaction
+    @Query(value = "SELECT id FROM analysis_jobs "
+                 + "WHERE (status = 'QUEUED' AND available_at <= :now) "
+                 + "OR (status = 'RUNNING' AND locked_until < :now) "
+                 + "ORDER BY available_at, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockClaimable(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    @Modifying
+    @Query("UPDATE AnalysisJob j SET j.status = 'RUNNING', j.lockedBy = :owner, j.lockedUntil = :lockedUntil, "
+         + "j.attempts = j.attempts + 1, j.startedAt = :now, j.phase = null WHERE j.id IN :ids")
+    int markClaimed(@Param("ids") Collection<Long> ids,
+                    @Param("owner") String owner,
+                    @Param("now") LocalDateTime now,
+                    @Param("lockedUntil") LocalDateTime lockedUntil);
+    
+    // Heartbeat: keeps this worker's running jobs from being reclaimed
+    @Transactional
+    @Modifying
+    @Query("UPDATE AnalysisJob j SET j.lockedUntil = :lockedUntil "
+         + "WHERE j.status = 'RUNNING' AND j.lockedBy = :owner AND j.id IN :ids")
+    int extendLocks(@Param("ids") Collection<Long> ids,
+                    @Param("owner") String owner,
+                    @Param("lockedUntil") LocalDateTime lockedUntil);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE AnalysisJob j SET j.phase = :phase "
+         + "WHERE j.id = :id AND j.status = 'RUNNING' AND j.lockedBy = :owner")
+    int updatePhase(@Param("id") Long id,
+                    @Param("owner") String owner,
+                    @Param("phase") AnalysisPhase phase);
+    
+    // The owner checks below make a late update from a worker whose lock expired a no-op
+    @Transactional
+    @Modifying
+    @Query("UPDATE AnalysisJob j SET j.status = 'SUCCEEDED', j.reportId = :reportId, j.finishedAt = :now, "
+         + "j.lockedBy = null, j.lockedUntil = null, j.lastError = null "
+         + "WHERE j.id = :id AND j.status = 'RUNNING' AND j.lockedBy = :owner")
+    int markSucceeded(@Param("id") Long id,
+                      @Param("owner") String owner,
+                      @Param("reportId") Long reportId,
+                      @Param("now") LocalDateTime now);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE AnalysisJob j SET j.status = 'QUEUED', j.availableAt = :availableAt, j.lastError = :error, "
+         + "j.lockedBy = null, j.lockedUntil = null "
+         + "WHERE j.id = :id AND j.status = 'RUNNING' AND j.lockedBy = :owner " + NO_QUEUED_SIBLING)
+    int markForRetry(@Param("id") Long id,
+                     @Param("owner") String owner,
+                     @Param("availableAt") LocalDateTime availableAt,
+                     @Param("error") String error);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE AnalysisJob j SET j.status = 'DEAD', j.finishedAt = :now, j.lastError = :error, "
+         + "j.lockedBy = null, j.lockedUntil = null "
+         + "WHERE j.id = :id AND j.status = 'RUNNING' AND j.lockedBy = :owner")
+    int markDead(@Param("id") Long id,
+                 @Param("owner") String owner,
+                 @Param("now") LocalDateTime now,
+                 @Param("error") String error);
+    
+    // Hands a claimed job back untouched (e.g. the pool is shutting down)
+    @Transactional
+    @Modifying
+    @Query("UPDATE AnalysisJob j SET j.status = 'QUEUED', j.attempts = j.attempts - 1, "
+         + "j.lockedBy = null, j.lockedUntil = null "
+         + "WHERE j.id = :id AND j.status = 'RUNNING' AND j.lockedBy = :owner " + NO_QUEUED_SIBLING)
+    int release(@Param("id") Long id, @Param("owner") String owner);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE AnalysisJob j SET j.status = 'QUEUED', j.attempts = 0, j.availableAt = :now, "
+         + "j.finishedAt = null WHERE j.id = :id AND j.status = 'DEAD' " + NO_QUEUED_SIBLING)
+    int requeueDead(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+}
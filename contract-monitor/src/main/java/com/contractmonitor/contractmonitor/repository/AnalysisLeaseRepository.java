@@ -0,0 +1,33 @@
+package com.contractmonitor.contractmonitor.repository;
+
+import com.contractmonitor.contractmonitor.entity.AnalysisLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface AnalysisLeaseRepository extends JpaRepository<AnalysisLease, String> {
+    
+    // Returns 1 if the lease was free or expired and now belongs to owner
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO analysis_leases (service_name, owner, acquired_at, expires_at) "
+                 + "VALUES (:serviceName, :owner, :now, :expiresAt) "
+                 + "ON CONFLICT (service_name) DO UPDATE SET owner = EXCLUDED.owner, "
+                 + "acquired_at = EXCLUDED.acquired_at, expires_at = EXCLUDED.expires_at "
+                 + "WHERE analysis_leases.expires_at < :now", nativeQuery = true)
+    int tryAcquire(@Param("serviceName") String serviceName,
+                   @Param("owner") String owner,
+                   @Param("now") LocalDateTime now,
+                   @Param("expiresAt") LocalDateTime expiresAt);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AnalysisLease l WHERE l.serviceName = :serviceName AND l.owner = :owner")
+    int release(@Param("serviceName") String serviceName, @Param("owner") String owner);
+}
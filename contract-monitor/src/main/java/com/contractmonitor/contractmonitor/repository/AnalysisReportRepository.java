@@ -1,11 +1,19 @@
 package com.contractmonitor.contractmonitor.repository;
 
 import com.contractmonitor.contractmonitor.entity.AnalysisReport;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AnalysisReportRepository extends JpaRepository<AnalysisReport, Long> {
@@ -16,5 +24,32 @@ public interface AnalysisReportRepository extends JpaRepository<AnalysisReport,
     
     Optional<AnalysisReport> findTopByServiceNameOrderByAnalyzedAtDesc(String serviceName);
     
+    Optional<AnalysisReport> findTopByServiceNameAndAnalyzedAtGreaterThanEqualOrderByAnalyzedAtDesc(
+            String serviceName, LocalDateTime analyzedAt);
+    
     List<AnalysisReport> findAllByOrderByAnalyzedAtDesc();
+    
+    // Export cursors (see BreakingChangeRepository.streamAll)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = BreakingChangeRepository.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r FROM AnalysisReport r ORDER BY r.id")
+    Stream<AnalysisReport> streamAll();
+    
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = BreakingChangeRepository.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r FROM AnalysisReport r WHERE r.serviceName = :serviceName ORDER BY r.analyzedAt, r.id")
+    Stream<AnalysisReport> streamByServiceName(@Param("serviceName") String serviceName);
+    
+    // Keyset page of a service's history, newest first (see BreakingChangeRepository.findPage)
+    @Query("SELECT r FROM AnalysisReport r WHERE r.serviceName = :serviceName "
+         + "AND r.analyzedAt <= :analyzedAt AND (r.analyzedAt < :analyzedAt OR r.id < :id) "
+         + "ORDER BY r.analyzedAt DESC, r.id DESC")
+    List<AnalysisReport> findHistoryPage(@Param("serviceName") String serviceName,
+                                         @Param("analyzedAt") LocalDateTime analyzedAt,
+                                         @Param("id") Long id,
+                                         Pageable pageable);
 }
\ No newline at end of file
@@ -1,12 +1,14 @@
 package com.contractmonitor.contractmonitor.repository;
 
 import com.contractmonitor.contractmonitor.entity.ApiSpec;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,11 +21,28 @@ public interface ApiSpecRepository extends JpaRepository<ApiSpec, Long> {
     
     Optional<ApiSpec> findByServiceNameAndVersion(String serviceName, String version);
     
-    Optional<ApiSpec> findTopByServiceNameOrderByFetchedAtDesc(String serviceName);
+    Optional<ApiSpec> findTopByServiceNameOrderByFetchedAtDescIdDesc(String serviceName);
+    
+    Optional<ApiSpec> findTopByServiceNameAndIdNotOrderByFetchedAtDescIdDesc(String serviceName, Long id);
+    
+    // Keyset page of a service's history, newest first (see BreakingChangeRepository.findPage)
+    @Query("SELECT a FROM ApiSpec a WHERE a.serviceName = :serviceName "
+           + "AND a.fetchedAt <= :fetchedAt AND (a.fetchedAt < :fetchedAt OR a.id < :id) "
+           + "ORDER BY a.fetchedAt DESC, a.id DESC")
+    List<ApiSpec> findHistoryPage(@Param("serviceName") String serviceName,
+                                  @Param("fetchedAt") LocalDateTime fetchedAt,
+                                  @Param("id") Long id,
+                                  Pageable pageable);
     
     @Query("SELECT DISTINCT a.serviceName FROM ApiSpec a")
     List<String> findDistinctServiceNames();
     
+    // Exactly one row per service even when two specs share the latest fetchedAt; as in the
+    // single-service lookups above, the higher id wins the tie
+    @Query(value = "SELECT DISTINCT ON (service_name) * FROM api_specs "
+                 + "ORDER BY service_name, fetched_at DESC, id DESC", nativeQuery = true)
+    List<ApiSpec> findLatestPerService();
+    
     // NEW: Baseline management queries
     Optional<ApiSpec> findByServiceNameAndIsBaselineTrue(String serviceName);
     
@@ -0,0 +1,48 @@
+package com.contractmonitor.contractmonitor.repository;
+
+import com.contractmonitor.contractmonitor.entity.BreakingChangeCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BreakingChangeCountRepository extends JpaRepository<BreakingChangeCount, BreakingChangeCount.Key> {
+    
+    List<BreakingChangeCount> findByKeyServiceName(String serviceName);
+    
+    // Called in the transaction that inserts the changes, so counts commit or roll back with them
+    @Modifying
+    @Query(value = "INSERT INTO breaking_change_counts (service_name, change_type, change_count) "
+                 + "VALUES (:serviceName, :changeType, :delta) "
+                 + "ON CONFLICT (service_name, change_type) "
+                 + "DO UPDATE SET change_count = breaking_change_counts.change_count + EXCLUDED.change_count",
+           nativeQuery = true)
+    void increment(@Param("serviceName") String serviceName,
+                   @Param("changeType") String changeType,
+                   @Param("delta") long delta);
+    
+    @Modifying
+    @Query("DELETE FROM BreakingChangeCount c WHERE c.key.serviceName = :serviceName")
+    int deleteByServiceName(@Param("serviceName") String serviceName);
+    
+    // Writers block on this lock before touching their counters, so a rebuild under it
+    // counts every committed change exactly once
+    @Modifying
+    @Query(value = "LOCK TABLE breaking_change_counts IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+    
+    @Modifying
+    @Query(value = "DELETE FROM breaking_change_counts", nativeQuery = true)
+    int deleteAllCounts();
+    
+    // Served by idx_breaking_changes_service_type without reading the TEXT columns
+    @Modifying
+    @Query(value = "INSERT INTO breaking_change_counts (service_name, change_type, change_count) "
+                 + "SELECT service_name, change_type, COUNT(*) FROM breaking_changes "
+                 + "GROUP BY service_name, change_type", nativeQuery = true)
+    int insertFromBreakingChanges();
+}
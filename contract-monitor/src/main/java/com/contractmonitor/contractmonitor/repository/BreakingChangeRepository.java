@@ -1,25 +1,69 @@
 package com.contractmonitor.contractmonitor.repository;
 
+import com.contractmonitor.contractmonitor.dto.BreakingChangeSummary;
 import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface BreakingChangeRepository extends JpaRepository<BreakingChange, Long> {
     
+    String EXPORT_FETCH_SIZE = "500";
+    
     List<BreakingChange> findByServiceName(String serviceName);
     
     List<BreakingChange> findByServiceNameOrderByDetectedAtDesc(String serviceName);
     
-    List<BreakingChange> findByChangeType(BreakingChange.ChangeType changeType);
-    
     List<BreakingChange> findByServiceNameAndChangeType(String serviceName, BreakingChange.ChangeType changeType);
     
     Long countByServiceName(String serviceName);
     
+    /**
+     * Row touched by upsertSeen; inserted is false when the fingerprint already existed
+     */
+    interface UpsertedChange {
+        Long getId();
+        
+        boolean isInserted();
+    }
+    
+    // One statement per fingerprint, so concurrent runs reporting the same change serialize on the
+    // unique index instead of both inserting. A RESOLVED change that reappears has regressed and is
+    // re-activated; ACKNOWLEDGED and IGNORED keep their status. xmax = 0 only for a freshly inserted row.
+    @Transactional
+    @Query(value = "INSERT INTO breaking_changes (service_name, change_type, path, description, old_version, "
+                 + "new_version, detected_at, fingerprint, last_seen, status, enrichment_status, enrichment_attempts) "
+                 + "VALUES (:serviceName, :changeType, :path, :description, :oldVersion, :newVersion, :now, "
+                 + ":fingerprint, :now, 'ACTIVE', 'PENDING', 0) "
+                 + "ON CONFLICT (fingerprint) DO UPDATE SET last_seen = EXCLUDED.last_seen, "
+                 + "new_version = EXCLUDED.new_version, "
+                 + "status = CASE WHEN breaking_changes.status = 'RESOLVED' THEN 'ACTIVE' ELSE breaking_changes.status END, "
+                 + "resolved_at = CASE WHEN breaking_changes.status = 'RESOLVED' THEN NULL ELSE breaking_changes.resolved_at END, "
+                 + "resolved_by = CASE WHEN breaking_changes.status = 'RESOLVED' THEN NULL ELSE breaking_changes.resolved_by END "
+                 + "RETURNING id, (xmax = 0) AS inserted", nativeQuery = true)
+    UpsertedChange upsertSeen(@Param("serviceName") String serviceName,
+                              @Param("changeType") String changeType,
+                              @Param("path") String path,
+                              @Param("description") String description,
+                              @Param("oldVersion") String oldVersion,
+                              @Param("newVersion") String newVersion,
+                              @Param("fingerprint") String fingerprint,
+                              @Param("now") LocalDateTime now);
+    
+    List<BreakingChange> findByServiceNameAndLastSeenGreaterThanEqual(String serviceName, LocalDateTime lastSeen);
+    
     // NEW: Status-based queries
     List<BreakingChange> findByStatus(BreakingChange.Status status);
     
@@ -31,4 +75,81 @@ public interface BreakingChangeRepository extends JpaRepository<BreakingChange,
     
     @Query("SELECT COUNT(b) FROM BreakingChange b WHERE b.status = 'ACTIVE'")
     Long countActiveBreakingChanges();
+    
+    // Keyset pages of summaries, newest first: rows strictly after the (detectedAt, id) cursor. The
+    // redundant detectedAt <= bound lets the index scan start at the cursor instead of the newest row.
+    @Query(BreakingChangeSummary.SELECT + "FROM BreakingChange b WHERE b.detectedAt <= :detectedAt "
+         + "AND (b.detectedAt < :detectedAt OR b.id < :id) "
+         + "ORDER BY b.detectedAt DESC, b.id DESC")
+    List<BreakingChangeSummary> findPage(@Param("detectedAt") LocalDateTime detectedAt,
+                                         @Param("id") Long id,
+                                         Pageable pageable);
+    
+    @Query(BreakingChangeSummary.SELECT + "FROM BreakingChange b WHERE b.serviceName = :serviceName "
+         + "AND b.detectedAt <= :detectedAt AND (b.detectedAt < :detectedAt OR b.id < :id) "
+         + "ORDER BY b.detectedAt DESC, b.id DESC")
+    List<BreakingChangeSummary> findPageByServiceName(@Param("serviceName") String serviceName,
+                                                      @Param("detectedAt") LocalDateTime detectedAt,
+                                                      @Param("id") Long id,
+                                                      Pageable pageable);
+    
+    @Query(BreakingChangeSummary.SELECT + "FROM BreakingChange b "
+         + "WHERE b.serviceName = :serviceName AND b.changeType = :changeType "
+         + "AND b.detectedAt <= :detectedAt AND (b.detectedAt < :detectedAt OR b.id < :id) "
+         + "ORDER BY b.detectedAt DESC, b.id DESC")
+    List<BreakingChangeSummary> findPageByServiceNameAndChangeType(@Param("serviceName") String serviceName,
+                                                                   @Param("changeType") BreakingChange.ChangeType changeType,
+                                                                   @Param("detectedAt") LocalDateTime detectedAt,
+                                                                   @Param("id") Long id,
+                                                                   Pageable pageable);
+    
+    @Query(BreakingChangeSummary.SELECT + "FROM BreakingChange b WHERE b.status = :status "
+         + "AND b.detectedAt <= :detectedAt AND (b.detectedAt < :detectedAt OR b.id < :id) "
+         + "ORDER BY b.detectedAt DESC, b.id DESC")
+    List<BreakingChangeSummary> findPageByStatus(@Param("status") BreakingChange.Status status,
+                                                 @Param("detectedAt") LocalDateTime detectedAt,
+                                                 @Param("id") Long id,
+                                                 Pageable pageable);
+    
+    @Query(BreakingChangeSummary.SELECT + "FROM BreakingChange b "
+         + "WHERE b.serviceName = :serviceName AND b.status = :status "
+         + "AND b.detectedAt <= :detectedAt AND (b.detectedAt < :detectedAt OR b.id < :id) "
+         + "ORDER BY b.detectedAt DESC, b.id DESC")
+    List<BreakingChangeSummary> findPageByServiceNameAndStatus(@Param("serviceName") String serviceName,
+                                                               @Param("status") BreakingChange.Status status,
+                                                               @Param("detectedAt") LocalDateTime detectedAt,
+                                                               @Param("id") Long id,
+                                                               Pageable pageable);
+    
+    // Export cursors: read-only rows fetched EXPORT_FETCH_SIZE at a time. Must be consumed
+    // inside a transaction (the driver only streams with auto-commit off) and closed.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM BreakingChange b ORDER BY b.id")
+    Stream<BreakingChange> streamAll();
+    
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM BreakingChange b WHERE b.serviceName = :serviceName ORDER BY b.detectedAt, b.id")
+    Stream<BreakingChange> streamByServiceName(@Param("serviceName") String serviceName);
+    
+    // AI enrichment queue
+    @Query("SELECT b.id FROM BreakingChange b WHERE b.enrichmentStatus = 'PENDING' "
+         + "OR (b.enrichmentStatus = 'IN_PROGRESS' AND b.enrichmentUpdatedAt < :staleBefore) "
+         + "ORDER BY b.detectedAt")
+    List<Long> findEnrichmentBacklog(@Param("staleBefore") LocalDateTime staleBefore, Pageable pageable);
+    
+    // Atomically claims a change for one worker; returns 0 if another worker got it first
+    @Transactional
+    @Modifying
+    @Query("UPDATE BreakingChange b SET b.enrichmentStatus = 'IN_PROGRESS', b.enrichmentUpdatedAt = :now "
+         + "WHERE b.id = :id AND (b.enrichmentStatus = 'PENDING' "
+         + "OR (b.enrichmentStatus = 'IN_PROGRESS' AND b.enrichmentUpdatedAt < :staleBefore))")
+    int claimForEnrichment(@Param("id") Long id,
+                           @Param("now") LocalDateTime now,
+                           @Param("staleBefore") LocalDateTime staleBefore);
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.contractmonitor.contractmonitor.repository;
+
+import com.contractmonitor.contractmonitor.entity.DiffCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface DiffCacheRepository extends JpaRepository<DiffCacheEntry, Long> {
+    
+    Optional<DiffCacheEntry> findByOldHashAndNewHashAndEngineVersion(String oldHash, String newHash,
+                                                                      int engineVersion);
+    
+    // Concurrent analyses may race to store the same pair; the first insert wins.
+    // No conflict target, so the pre-versioning (old_hash, new_hash) constraint is covered too
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO diff_cache (old_hash, new_hash, engine_version, changes_json, created_at) "
+                 + "VALUES (:oldHash, :newHash, :engineVersion, :changesJson, now()) "
+                 + "ON CONFLICT DO NOTHING", nativeQuery = true)
+    void insertIfAbsent(@Param("oldHash") String oldHash,
+                        @Param("newHash") String newHash,
+                        @Param("engineVersion") int engineVersion,
+                        @Param("changesJson") String changesJson);
+    
+    // Entries from another engine version can never be hit again
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM DiffCacheEntry e WHERE e.engineVersion <> :engineVersion OR e.createdAt < :cutoff")
+    int deleteStale(@Param("engineVersion") int engineVersion, @Param("cutoff") LocalDateTime cutoff);
+}
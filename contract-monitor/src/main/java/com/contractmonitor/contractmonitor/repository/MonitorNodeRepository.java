@@ -0,0 +1,39 @@
+package com.contractmonitor.contractmonitor.repository;
+
+import com.contractmonitor.contractmonitor.entity.MonitorNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface MonitorNodeRepository extends JpaRepository<MonitorNode, String> {
+    
+    // Timestamps come from the database clock so replicas with skewed clocks agree on who is alive
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO monitor_nodes (node_id, started_at, last_heartbeat) "
+                 + "VALUES (:nodeId, LOCALTIMESTAMP, LOCALTIMESTAMP) "
+                 + "ON CONFLICT (node_id) DO UPDATE SET last_heartbeat = EXCLUDED.last_heartbeat", nativeQuery = true)
+    void heartbeat(@Param("nodeId") String nodeId);
+    
+    @Query(value = "SELECT node_id FROM monitor_nodes "
+                 + "WHERE last_heartbeat >= LOCALTIMESTAMP - make_interval(secs => :ttlSeconds) "
+                 + "ORDER BY node_id", nativeQuery = true)
+    List<String> findLiveNodeIds(@Param("ttlSeconds") long ttlSeconds);
+    
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM monitor_nodes "
+                 + "WHERE last_heartbeat < LOCALTIMESTAMP - make_interval(secs => :olderThanSeconds)", nativeQuery = true)
+    int deleteStale(@Param("olderThanSeconds") long olderThanSeconds);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM MonitorNode n WHERE n.nodeId = :nodeId")
+    int leave(@Param("nodeId") String nodeId);
+}
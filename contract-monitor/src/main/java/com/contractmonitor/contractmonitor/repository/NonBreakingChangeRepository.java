@@ -0,0 +1,44 @@
+package com.contractmonitor.contractmonitor.repository;
+
+import com.contractmonitor.contractmonitor.entity.NonBreakingChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NonBreakingChangeRepository extends JpaRepository<NonBreakingChange, Long> {
+    
+    List<NonBreakingChange> findByServiceNameOrderByDetectedAtDesc(String serviceName);
+    
+    Long countByServiceName(String serviceName);
+    
+    // All additions of a run in one statement, one array element per addition. Additions recorded
+    // by earlier runs only get last_seen and new_version bumped, so repeated polls of an unchanged
+    // diff add no rows. Fingerprints must be distinct: ON CONFLICT cannot touch a row twice.
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO non_breaking_changes (id, service_name, change_type, path, description, "
+                 + "old_version, new_version, detected_at, fingerprint, last_seen) "
+                 + "SELECT nextval('non_breaking_changes_seq'), a.service_name, a.change_type, a.path, a.description, "
+                 + "a.old_version, a.new_version, :now, a.fingerprint, :now "
+                 + "FROM unnest(CAST(:serviceNames AS text[]), CAST(:changeTypes AS text[]), CAST(:paths AS text[]), "
+                 + "CAST(:descriptions AS text[]), CAST(:oldVersions AS text[]), CAST(:newVersions AS text[]), "
+                 + "CAST(:fingerprints AS text[])) "
+                 + "AS a(service_name, change_type, path, description, old_version, new_version, fingerprint) "
+                 + "ON CONFLICT (fingerprint) DO UPDATE SET last_seen = EXCLUDED.last_seen, "
+                 + "new_version = EXCLUDED.new_version", nativeQuery = true)
+    int upsertSeen(@Param("serviceNames") String[] serviceNames,
+                   @Param("changeTypes") String[] changeTypes,
+                   @Param("paths") String[] paths,
+                   @Param("descriptions") String[] descriptions,
+                   @Param("oldVersions") String[] oldVersions,
+                   @Param("newVersions") String[] newVersions,
+                   @Param("fingerprints") String[] fingerprints,
+                   @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,15 @@
+package com.contractmonitor.contractmonitor.repository;
+
+import com.contractmonitor.contractmonitor.entity.ServiceDependency;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ServiceDependencyRepository extends JpaRepository<ServiceDependency, Long> {
+    
+    List<ServiceDependency> findByConsumerService(String consumerService);
+    
+    List<ServiceDependency> findByProviderService(String providerService);
+}
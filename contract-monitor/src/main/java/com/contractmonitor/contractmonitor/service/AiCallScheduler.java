@@ -0,0 +1,316 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.util.Deadline;
+import com.contractmonitor.contractmonitor.util.DeadlineExceededException;
+import com.contractmonitor.contractmonitor.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Single gate for all LLM calls.
+ *
+ * Calls wait in a priority queue (interactive before background, then FIFO) and are released
+ * only when both the requests-per-minute and tokens-per-minute buckets have room. A call still
+ * waiting for capacity goes back in the queue when a higher-priority call arrives, so a large
+ * background prompt never holds up interactive ones. Calls that the provider throttles anyway
+ * (HTTP 429), or that fail transiently, are re-queued with exponential backoff instead of failing,
+ * so callers block a little longer rather than getting an error. This is the only retry layer:
+ * the Spring AI client's own retry is switched off with spring.ai.retry.max-attempts=1.
+ * A {@link PartialResponseException} is never retried, since its output already reached the caller.
+ *
+ * A caller with a {@link Deadline} waits at most until it passes; its call is then dropped
+ * from the queue, or interrupted if already running.
+ */
+@Service
+@Slf4j
+public class AiCallScheduler {
+    
+    public enum Priority {
+        INTERACTIVE,    // A user is waiting on this analysis
+        BACKGROUND      // Sweeps, bulk analyses, retries of stale work
+    }
+    
+    private static final Pattern AI_EXCEPTION_STATUS = Pattern.compile("(\\d{3}) - ");
+    
+    private static final ThreadLocal<Priority> CURRENT_PRIORITY = ThreadLocal.withInitial(() -> Priority.INTERACTIVE);
+    
+    private final TokenBucket requestBucket;
+    private final TokenBucket tokenBucket;
+    private final int maxRetries;
+    private final Duration initialBackoff;
+    private final Semaphore inFlight;
+    private final PriorityBlockingQueue<ScheduledCall<?>> queue = new PriorityBlockingQueue<>(64,
+            Comparator.<ScheduledCall<?>, Priority>comparing(ScheduledCall::priority)
+                    .thenComparingLong(ScheduledCall::sequence));
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ExecutorService callExecutor;
+    private final ScheduledExecutorService retryExecutor = Executors.newSingleThreadScheduledExecutor(
+            runnable -> daemon(runnable, "ai-call-retry"));
+    private final Thread dispatcher;
+    private final Counter throttled;
+    private final Counter transientFailures;
+    private volatile boolean running = true;
+    
+    public AiCallScheduler(@Value("${ai.rate-limit.requests-per-minute:500}") long requestsPerMinute,
+                           @Value("${ai.rate-limit.tokens-per-minute:200000}") long tokensPerMinute,
+                           @Value("${ai.scheduler.max-concurrent:4}") int maxConcurrent,
+                           @Value("${ai.scheduler.max-retries:6}") int maxRetries,
+                           @Value("${ai.scheduler.initial-backoff:2s}") Duration initialBackoff,
+                           MeterRegistry meterRegistry) {
+        this.requestBucket = new TokenBucket(requestsPerMinute);
+        this.tokenBucket = new TokenBucket(tokensPerMinute);
+        this.maxRetries = maxRetries;
+        this.initialBackoff = initialBackoff;
+        this.inFlight = new Semaphore(maxConcurrent);
+        this.callExecutor = Executors.newFixedThreadPool(maxConcurrent, runnable -> daemon(runnable, "ai-call-" + threadCount.incrementAndGet()));
+        this.throttled = Counter.builder("ai.scheduler.throttled")
+                .description("LLM calls re-queued after a rate-limit response")
+                .register(meterRegistry);
+        this.transientFailures = Counter.builder("ai.scheduler.transient.failures")
+                .description("LLM calls re-queued after a server or connection error")
+                .register(meterRegistry);
+        Gauge.builder("ai.scheduler.queue.size", queue, PriorityBlockingQueue::size)
+                .description("LLM calls waiting for rate-limit capacity")
+                .register(meterRegistry);
+        
+        this.dispatcher = daemon(this::dispatch, "ai-call-dispatcher");
+        this.dispatcher.start();
+    }
+    
+    /**
+     * Run an action with the given priority applied to every AI call it makes on this thread
+     */
+    public static void runWithPriority(Priority priority, Runnable action) {
+        Priority previous = CURRENT_PRIORITY.get();
+        CURRENT_PRIORITY.set(priority);
+        try {
+            action.run();
+        } finally {
+            CURRENT_PRIORITY.set(previous);
+        }
+    }
+    
+    /**
+     * Queue an LLM call at the current thread's priority and wait for its result
+     */
+    public <T> T execute(int estimatedTokens, Supplier<T> call) {
+        ScheduledCall<T> scheduled = new ScheduledCall<>(CURRENT_PRIORITY.get(), sequence.incrementAndGet(),
+                estimatedTokens, call, new CompletableFuture<>(), new AtomicReference<>());
+        queue.add(scheduled);
+        if (scheduled.priority() == Priority.INTERACTIVE) {
+            // The dispatcher may be parked waiting for capacity on behalf of a background call
+            LockSupport.unpark(dispatcher);
+        }
+        
+        Deadline deadline = Deadline.current();
+        try {
+            if (!deadline.isBounded()) {
+                return scheduled.result().join();
+            }
+            return scheduled.result().get(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            abandon(scheduled);
+            throw new DeadlineExceededException("AI call", e);
+        } catch (InterruptedException e) {
+            abandon(scheduled);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for AI call", e);
+        } catch (CompletionException | ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+    
+    /**
+     * Drop a call nobody is waiting for: a queued call is never started, a running one is
+     * interrupted so its thread and rate-limit slot free up
+     */
+    private void abandon(ScheduledCall<?> scheduled) {
+        scheduled.result().cancel(false);
+        queue.remove(scheduled);
+        Thread runner = scheduled.runner().getAndSet(null);
+        if (runner != null) {
+            runner.interrupt();
+        }
+    }
+    
+    private record ScheduledCall<T>(Priority priority, long sequence, int estimatedTokens,
+                                    Supplier<T> call, CompletableFuture<T> result,
+                                    AtomicReference<Thread> runner, int attempt) {
+        
+        ScheduledCall(Priority priority, long sequence, int estimatedTokens,
+                      Supplier<T> call, CompletableFuture<T> result, AtomicReference<Thread> runner) {
+            this(priority, sequence, estimatedTokens, call, result, runner, 0);
+        }
+        
+        ScheduledCall<T> nextAttempt() {
+            return new ScheduledCall<>(priority, sequence, estimatedTokens, call, result, runner, attempt + 1);
+        }
+    }
+    
+    /**
+     * Release queued calls in priority order as rate-limit capacity becomes available
+     */
+    private void dispatch() {
+        while (running) {
+            try {
+                ScheduledCall<?> next = queue.take();
+                if (next.result().isDone()) {
+                    // Abandoned while queued or waiting for a retry
+                    continue;
+                }
+                if (!awaitCapacity(next)) {
+                    // Overtaken while waiting; its sequence keeps its place among equals
+                    queue.add(next);
+                    continue;
+                }
+                inFlight.acquire();
+                callExecutor.execute(() -> run(next));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Wait until the call fits both buckets and take its capacity; false, with nothing taken,
+     * if a higher-priority call is queued meanwhile
+     */
+    private boolean awaitCapacity(ScheduledCall<?> next) throws InterruptedException {
+        while (true) {
+            long wait = Math.max(requestBucket.nanosUntilAvailable(1),
+                                 tokenBucket.nanosUntilAvailable(next.estimatedTokens()));
+            if (wait == 0 && requestBucket.tryAcquire(1) && tokenBucket.tryAcquire(next.estimatedTokens())) {
+                return true;
+            }
+            ScheduledCall<?> head = queue.peek();
+            if (head != null && head.priority().compareTo(next.priority()) < 0) {
+                return false;
+            }
+            LockSupport.parkNanos(Math.max(wait, 1_000_000));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+    
+    private <T> void run(ScheduledCall<T> scheduled) {
+        scheduled.runner().set(Thread.currentThread());
+        try {
+            if (!scheduled.result().isDone()) {
+                scheduled.result().complete(scheduled.call().get());
+            }
+        } catch (Exception e) {
+            boolean throttledCall = isThrottled(e);
+            boolean retryable = !(e instanceof PartialResponseException) && (throttledCall || isTransient(e));
+            if (retryable && scheduled.attempt() < maxRetries) {
+                long backoffMs = initialBackoff.toMillis() << scheduled.attempt();
+                (throttledCall ? throttled : transientFailures).increment();
+                log.warn("AI call {}, retrying in {} ms (attempt {} of {})",
+                        throttledCall ? "throttled by provider" : "failed (" + e.getMessage() + ")",
+                        backoffMs, scheduled.attempt() + 1, maxRetries);
+                retryExecutor.schedule(() -> queue.add(scheduled.nextAttempt()), backoffMs, TimeUnit.MILLISECONDS);
+            } else {
+                scheduled.result().completeExceptionally(e);
+            }
+        } finally {
+            if (scheduled.runner().getAndSet(null) == null) {
+                // The caller gave up and interrupted this call; don't leak the flag into the next task
+                Thread.interrupted();
+            }
+            inFlight.release();
+        }
+    }
+    
+    /**
+     * A provider rate-limit response (HTTP 429) anywhere in the cause chain
+     */
+    static boolean isThrottled(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (statusOf(t) == 429) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * A server error or lost connection: worth retrying, unlike other client errors
+     */
+    static boolean isTransient(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof TransientAiException || t instanceof ResourceAccessException || statusOf(t) >= 500) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * HTTP status carried by an exception, or -1. Spring AI's response error handler only keeps the
+     * status as the leading "<code> - " of its message, so that prefix is read for its exceptions.
+     */
+    private static int statusOf(Throwable t) {
+        if (t instanceof RestClientResponseException e) {
+            return e.getStatusCode().value();
+        }
+        if (t instanceof WebClientResponseException e) {
+            return e.getStatusCode().value();
+        }
+        if (t instanceof NonTransientAiException || t instanceof TransientAiException) {
+            Matcher status = AI_EXCEPTION_STATUS.matcher(String.valueOf(t.getMessage()));
+            if (status.lookingAt()) {
+                return Integer.parseInt(status.group(1));
+            }
+        }
+        return -1;
+    }
+    
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        dispatcher.interrupt();
+        retryExecutor.shutdownNow();
+        callExecutor.shutdown();
+    }
+}
@@ -0,0 +1,163 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import com.contractmonitor.contractmonitor.repository.BreakingChangeRepository;
+import com.contractmonitor.contractmonitor.util.Deadline;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills in AI fields for breaking changes outside the analysis transaction.
+ *
+ * Breaking changes are saved with enrichment status PENDING, which makes the table itself the
+ * durable queue. New changes are handed to the bounded pool as soon as the analysis commits;
+ * a periodic sweep picks up anything left behind (pool full, restart, crashed worker).
+ * Each change is claimed with a conditional update, so replicas never enrich the same row twice.
+ */
+@Service
+@Slf4j
+public class AiEnrichmentWorker {
+    
+    private final BreakingChangeRepository breakingChangeRepository;
+    private final BreakingChangeService breakingChangeService;
+    private final InsightProvider insightProvider;
+    private final ThreadPoolTaskExecutor executor;
+    
+    @Value("${ai.enrichment.max-attempts:3}")
+    private int maxAttempts;
+    
+    @Value("${ai.enrichment.claim-timeout:10m}")
+    private Duration claimTimeout;
+    
+    @Value("${ai.enrichment.sweep-size:100}")
+    private int sweepSize;
+    
+    @Value("${ai.enrichment.task-size:20}")
+    private int taskSize;
+    
+    public AiEnrichmentWorker(BreakingChangeRepository breakingChangeRepository,
+                              BreakingChangeService breakingChangeService,
+                              InsightProvider insightProvider,
+                              @Qualifier("aiEnrichmentExecutor") ThreadPoolTaskExecutor executor) {
+        this.breakingChangeRepository = breakingChangeRepository;
+        this.breakingChangeService = breakingChangeService;
+        this.insightProvider = insightProvider;
+        this.executor = executor;
+    }
+    
+    /**
+     * Start enriching changes from an analysis once its transaction has committed
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onEnrichmentRequested(EnrichmentRequestedEvent event) {
+        submit(event.changeIds(), event.priority());
+    }
+    
+    /**
+     * Pick up pending changes and claims abandoned by crashed or restarted workers
+     */
+    @Scheduled(fixedDelayString = "${ai.enrichment.sweep-interval-ms:30000}")
+    public void sweep() {
+        List<Long> backlog = breakingChangeRepository.findEnrichmentBacklog(
+                staleBefore(), PageRequest.of(0, sweepSize));
+        if (backlog.isEmpty()) {
+            return;
+        }
+        
+        log.info("Enrichment sweep found {} pending breaking changes", backlog.size());
+        for (int from = 0; from < backlog.size(); from += taskSize) {
+            submit(backlog.subList(from, Math.min(from + taskSize, backlog.size())), AiCallScheduler.Priority.BACKGROUND);
+        }
+    }
+    
+    private void submit(List<Long> changeIds, AiCallScheduler.Priority priority) {
+        List<Long> ids = List.copyOf(changeIds);
+        try {
+            // Calls still waiting when the claim expires are dropped; the sweep will hand the changes out again
+            executor.execute(() -> AiCallScheduler.runWithPriority(priority,
+                    () -> Deadline.runWith(Deadline.after(claimTimeout), () -> process(ids))));
+        } catch (TaskRejectedException e) {
+            log.warn("Enrichment queue full, {} changes left for the next sweep", ids.size());
+        }
+    }
+    
+    /**
+     * Claim, enrich and store a group of changes; groups share batched prompts
+     */
+    void process(List<Long> changeIds) {
+        List<Long> claimed = claim(changeIds);
+        if (claimed.isEmpty()) {
+            return;
+        }
+        
+        List<Long> pending = new ArrayList<>(claimed);
+        try {
+            List<BreakingChange> changes = breakingChangeRepository.findAllById(claimed);
+            
+            log.info("Enriching {} breaking changes", changes.size());
+            List<AiInsights> insights = insightProvider.enrichAll(changes);
+            
+            for (int i = 0; i < changes.size(); i++) {
+                complete(changes.get(i).getId(), insights.get(i));
+                pending.remove(changes.get(i).getId());
+            }
+        } catch (Exception e) {
+            log.error("Enrichment of {} changes failed: {}", claimed.size(), e.getMessage(), e);
+            failAll(pending, e);
+        }
+    }
+    
+    /**
+     * Count a failed attempt for each change still claimed, so one that always fails reaches
+     * maxAttempts instead of being re-claimed by every sweep
+     */
+    private void failAll(List<Long> changeIds, Exception cause) {
+        AiInsights failed = AiInsights.unavailable(cause.getMessage());
+        for (Long id : changeIds) {
+            try {
+                complete(id, failed);
+            } catch (Exception e) {
+                // The claim expires after the claim timeout, so the sweep will retry this one
+                log.error("Could not record failed enrichment of change {}: {}", id, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Claim changes for enrichment by this caller; returns the ids that were actually claimed
+     */
+    public List<Long> claim(List<Long> changeIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> claimed = new ArrayList<>();
+        for (Long id : changeIds) {
+            if (breakingChangeRepository.claimForEnrichment(id, now, staleBefore()) == 1) {
+                claimed.add(id);
+            }
+        }
+        return claimed;
+    }
+    
+    /**
+     * Store the outcome for a claimed change, applying the retry limit to failures
+     */
+    public void complete(Long changeId, AiInsights insights) {
+        breakingChangeService.completeEnrichment(changeId, insights, maxAttempts);
+    }
+    
+    private LocalDateTime staleBefore() {
+        return LocalDateTime.now().minus(claimTimeout);
+    }
+}
@@ -0,0 +1,193 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.AiInsight;
+import com.contractmonitor.contractmonitor.repository.AiInsightRepository;
+import com.contractmonitor.contractmonitor.util.HashUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier cache for AI insights: a bounded in-memory LRU in front of the ai_insights table.
+ *
+ * Keys are a SHA-256 of the insight kind, the prompt template version and the prompt inputs,
+ * so editing a template (and bumping its version) naturally invalidates old answers.
+ * Rows under a template version no longer in use, or older than the retention, are pruned
+ * on startup and daily.
+ * Metrics: ai.insight.cache.requests{kind,result}, ai.insight.cache.tokens.saved,
+ * ai.insight.cache.hit.ratio.
+ */
+@Service
+@Slf4j
+public class AiInsightCache {
+    
+    // Rough heuristic for English prompts; good enough for savings metrics
+    private static final int CHARS_PER_TOKEN = 4;
+    
+    private final AiInsightRepository aiInsightRepository;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AiInsight> memory;
+    private final Counter tokensSaved;
+    private final Duration retention;
+    
+    // Template version each kind is currently prompted with, as registered by the insight providers
+    private final Map<String, String> currentVersions = new ConcurrentHashMap<>();
+    
+    public AiInsightCache(AiInsightRepository aiInsightRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${ai.cache.memory-size:1000}") int memorySize,
+                          @Value("${ai.cache.retention:90d}") Duration retention) {
+        this.aiInsightRepository = aiInsightRepository;
+        this.meterRegistry = meterRegistry;
+        this.retention = retention;
+        this.memory = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, AiInsight> eldest) {
+                return size() > memorySize;
+            }
+        });
+        this.tokensSaved = Counter.builder("ai.insight.cache.tokens.saved")
+                .description("Estimated LLM tokens avoided by cache hits")
+                .register(meterRegistry);
+        Gauge.builder("ai.insight.cache.hit.ratio", this, AiInsightCache::hitRatio)
+                .description("Share of insight lookups served from cache")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Return the cached insight for these prompt inputs, or compute and store it.
+     * Failures from the supplier propagate and are never cached.
+     */
+    public String getOrCompute(String kind, String templateVersion, String promptTemplate,
+                               Map<String, Object> inputs, Supplier<String> compute) {
+        Optional<String> cached = lookup(kind, templateVersion, inputs);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        
+        String content = compute.get();
+        store(kind, templateVersion, inputs, content, estimateTokens(promptTemplate, inputs, content));
+        return content;
+    }
+    
+    /**
+     * Look up a cached insight, counting the request as a hit or a miss
+     */
+    public Optional<String> lookup(String kind, String templateVersion, Map<String, Object> inputs) {
+        String cacheKey = cacheKey(kind, templateVersion, inputs);
+        
+        AiInsight cached = memory.get(cacheKey);
+        if (cached != null) {
+            recordHit(kind, "memory", cached);
+            return Optional.of(cached.getContent());
+        }
+        
+        cached = aiInsightRepository.findByCacheKey(cacheKey).orElse(null);
+        if (cached != null) {
+            memory.put(cacheKey, cached);
+            recordHit(kind, "database", cached);
+            return Optional.of(cached.getContent());
+        }
+        
+        meterRegistry.counter("ai.insight.cache.requests", "kind", kind, "result", "miss").increment();
+        return Optional.empty();
+    }
+    
+    /**
+     * Store an insight produced outside getOrCompute, e.g. one entry of a batched response
+     */
+    public void store(String kind, String templateVersion, Map<String, Object> inputs,
+                      String content, int estimatedTokens) {
+        String cacheKey = cacheKey(kind, templateVersion, inputs);
+        
+        AiInsight insight = new AiInsight();
+        insight.setCacheKey(cacheKey);
+        insight.setKind(kind);
+        insight.setTemplateVersion(templateVersion);
+        insight.setContent(content);
+        insight.setEstimatedTokens(estimatedTokens);
+        
+        aiInsightRepository.insertIfAbsent(cacheKey, kind, templateVersion, content, estimatedTokens);
+        memory.put(cacheKey, insight);
+    }
+    
+    /**
+     * Declare the current template version of each kind; cached answers to any other version
+     * of these kinds can never be hit again and are pruned
+     */
+    public void useTemplateVersions(Map<String, String> versionsByKind) {
+        currentVersions.putAll(versionsByKind);
+    }
+    
+    /**
+     * Drop answers to superseded template versions and answers past the retention
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${ai.cache.prune-interval-ms:86400000}",
+               initialDelayString = "${ai.cache.prune-interval-ms:86400000}")
+    public void prune() {
+        try {
+            int deleted = aiInsightRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+            for (Map.Entry<String, String> current : currentVersions.entrySet()) {
+                deleted += aiInsightRepository.deleteOtherVersions(current.getKey(), current.getValue());
+            }
+            if (deleted > 0) {
+                log.info("Pruned {} AI insight cache entries", deleted);
+            }
+        } catch (Exception e) {
+            log.error("Could not prune AI insight cache: {}", e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Approximate token count of a rendered prompt plus its completion
+     */
+    public static int estimateTokens(String promptTemplate, Map<String, Object> inputs, String content) {
+        int chars = promptTemplate.length() + (content == null ? 0 : content.length());
+        for (Object value : inputs.values()) {
+            chars += String.valueOf(value).length();
+        }
+        return chars / CHARS_PER_TOKEN;
+    }
+    
+    private void recordHit(String kind, String tier, AiInsight insight) {
+        log.debug("AI insight cache hit ({}) for {}", tier, kind);
+        meterRegistry.counter("ai.insight.cache.requests", "kind", kind, "result", "hit_" + tier).increment();
+        tokensSaved.increment(insight.getEstimatedTokens());
+    }
+    
+    private double hitRatio() {
+        double hits = 0;
+        double total = 0;
+        for (Counter counter : meterRegistry.find("ai.insight.cache.requests").counters()) {
+            total += counter.count();
+            if (!"miss".equals(counter.getId().getTag("result"))) {
+                hits += counter.count();
+            }
+        }
+        return total == 0 ? 0 : hits / total;
+    }
+    
+    private static String cacheKey(String kind, String templateVersion, Map<String, Object> inputs) {
+        StringBuilder key = new StringBuilder(kind).append('|').append(templateVersion);
+        // Sorted so the key does not depend on map iteration order
+        new TreeMap<>(inputs).forEach((name, value) -> key.append('|').append(name).append('=').append(value));
+        return HashUtils.sha256(key.toString());
+    }
+}
@@ -0,0 +1,30 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+
+/**
+ * The three AI-generated texts for one breaking change
+ */
+public record AiInsights(String suggestion, String impact, String explanation, boolean failed) {
+    
+    public AiInsights(String suggestion, String impact, String explanation) {
+        this(suggestion, impact, explanation, false);
+    }
+    
+    /**
+     * Placeholder texts recorded when insights could not be generated
+     */
+    public static AiInsights unavailable(String reason) {
+        String text = "AI analysis unavailable: " + reason;
+        return new AiInsights(text, text, text, true);
+    }
+    
+    /**
+     * Copy the texts onto a breaking change
+     */
+    public void applyTo(BreakingChange change) {
+        change.setAiSuggestion(suggestion);
+        change.setPredictedImpact(impact);
+        change.setPlainEnglishExplanation(explanation);
+    }
+}
@@ -1,55 +1,470 @@
 package com.contractmonitor.contractmonitor.service;
 
 import com.contractmonitor.contractmonitor.entity.BreakingChange;
-import com.contractmonitor.contractmonitor.entity.ApiSpec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
-public class AiService {
+public class AiService implements InsightProvider {
+
+    // Bump a template's version whenever its text changes so cached answers are not reused
+    private static final String SUGGESTION_TEMPLATE_VERSION = "suggestion-v1";
+    private static final String IMPACT_TEMPLATE_VERSION = "impact-v3";
+    private static final String EXPLANATION_TEMPLATE_VERSION = "explanation-v1";
+    private static final String COMBINED_TEMPLATE_VERSION = "combined-v3";
+
+    private static final String SUGGESTION_PROMPT = """
+            A breaking change was detected in a microservices API:
+            
+            Change Type: {changeType}
+            Location: {path}
+            Description: {description}
+            Old Version: {oldVersion}
+            New Version: {newVersion}
+            
+            As an expert software architect, suggest a backward-compatible alternative approach.
+            Provide specific, actionable steps that allow gradual migration without breaking existing clients.
+            Format your response as a numbered list with clear implementation steps.
+            """;
+
+    private static final String IMPACT_PROMPT = """
+            A breaking change occurred in the {serviceName} microservice:
+            
+            Change Type: {changeType}
+            Location: {path}
+            Description: {description}
+            
+            Services that may depend on the changed element (from the dependency graph and stored specs):
+            {consumers}
+            
+            Based on these services, common microservice communication patterns and the nature of this change:
+            1. Predict which services are most likely to be affected
+            2. Assign a confidence score (0-100%) for each potentially affected service
+            3. Explain why each service might be impacted
+            
+            Format your response as:
+            Service Name | Confidence | Reason
+            """;
+
+    private static final String EXPLANATION_PROMPT = """
+            Translate this technical API breaking change into plain English that a non-technical 
+            product manager or stakeholder can understand:
+            
+            Change Type: {changeType}
+            Location: {path}
+            Technical Description: {description}
+            Old Version: {oldVersion}
+            New Version: {newVersion}
+            
+            Provide:
+            1. A simple one-sentence summary (no jargon)
+            2. What this means for users/clients of the API
+            3. The business impact
+            
+            Keep it concise and avoid technical terminology.
+            """;
+
+    private static final String COMBINED_PROMPT = """
+            A breaking change occurred in the {serviceName} microservice:
+            
+            Change Type: {changeType}
+            Location: {path}
+            Description: {description}
+            Old Version: {oldVersion}
+            New Version: {newVersion}
+            
+            Services that may depend on the changed element (from the dependency graph and stored specs):
+            {consumers}
+            
+            Respond with a single JSON object and nothing else, using exactly these string fields:
+            "suggestion": as an expert software architect, a backward-compatible alternative approach
+                as a numbered list of specific, actionable steps that allow gradual migration
+                without breaking existing clients.
+            "impact": the services most likely to be affected, starting from the listed services,
+                one per line formatted as Service Name | Confidence (0-100%) | Reason
+            "explanation": for a non-technical product manager, a one-sentence summary without jargon,
+                what this means for users/clients of the API, and the business impact.
+            """;
+
+    private static final String BATCH_PROMPT = """
+            Breaking changes were detected in microservice APIs.
+            Each change lists the services that may depend on it, from the dependency graph and stored specs.
+            
+            Changes:
+            {changes}
+            
+            For every change above, write these string fields:
+            "suggestion": as an expert software architect, a backward-compatible alternative approach
+                as a numbered list of specific, actionable steps that allow gradual migration
+                without breaking existing clients.
+            "impact": the services most likely to be affected, starting from the listed services,
+                one per line formatted as Service Name | Confidence (0-100%) | Reason
+            "explanation": for a non-technical product manager, a one-sentence summary without jargon,
+                what this means for users/clients of the API, and the business impact.
+            
+            Respond with a single JSON array and nothing else. It must contain one object per change,
+            each with an integer "index" field matching the change number plus the three fields above.
+            """;
 
     private final ChatClient.Builder chatClientBuilder;
+    private final AiInsightCache insightCache;
+    private final AiCallScheduler aiCallScheduler;
+    private final ConsumerIndex consumerIndex;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${ai.enrichment.mode:combined}")
+    private String enrichmentMode;
+
+    @Value("${ai.impact.context-size:5}")
+    private int impactContextSize;
+
+    @Value("${ai.batch.token-budget:8000}")
+    private int batchTokenBudget;
+
+    @Value("${ai.batch.output-tokens-per-change:700}")
+    private int outputTokensPerChange;
+
+    /**
+     * Tell the cache which template versions are current, so answers to older ones are pruned
+     */
+    @PostConstruct
+    void registerTemplateVersions() {
+        insightCache.useTemplateVersions(Map.of(
+                "suggestion", SUGGESTION_TEMPLATE_VERSION,
+                "impact", IMPACT_TEMPLATE_VERSION,
+                "explanation", EXPLANATION_TEMPLATE_VERSION,
+                "combined", COMBINED_TEMPLATE_VERSION));
+    }
+
+    /**
+     * Generate suggestion, impact and explanation for a breaking change.
+     * In combined mode (default) this is one structured LLM call; if the response cannot be
+     * parsed it falls back to the three per-field calls.
+     */
+    @Override
+    public AiInsights enrich(BreakingChange change) {
+        if (isCombinedMode()) {
+            Optional<String> cached = insightCache.lookup("combined", COMBINED_TEMPLATE_VERSION,
+                    impactCacheInputs(change));
+            if (cached.isPresent()) {
+                return withGraphImpact(change, parseInsights(cached.get()));
+            }
+        }
+        return withGraphImpact(change, enrichUncached(change));
+    }
+
+    /**
+     * Enrich a set of changes, packing uncached ones into batched prompts sized against
+     * ai.batch.token-budget. Results are returned in input order; a change whose insights
+     * could not be generated gets {@link AiInsights#unavailable(String)} text instead.
+     */
+    @Override
+    public List<AiInsights> enrichAll(List<BreakingChange> changes) {
+        AiInsights[] results = new AiInsights[changes.size()];
+
+        if (!isCombinedMode() || batchTokenBudget <= 0) {
+            for (int i = 0; i < changes.size(); i++) {
+                results[i] = enrichOrUnavailable(changes.get(i));
+            }
+            return List.of(results);
+        }
+
+        // Cache hits never take part in a batch
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < changes.size(); i++) {
+            Optional<String> cached = insightCache.lookup("combined", COMBINED_TEMPLATE_VERSION,
+                    impactCacheInputs(changes.get(i)));
+            if (cached.isPresent()) {
+                results[i] = parseInsights(cached.get());
+            } else {
+                pending.add(i);
+            }
+        }
+
+        for (List<Integer> batch : packBatches(pending, changes)) {
+            if (batch.size() == 1) {
+                int index = batch.get(0);
+                results[index] = enrichUncachedOrUnavailable(changes.get(index));
+                continue;
+            }
+
+            Map<Integer, AiInsights> parsed;
+            try {
+                parsed = callBatch(batch, changes);
+            } catch (InsightParseException e) {
+                log.warn("Batched AI response unusable, enriching {} changes individually: {}",
+                        batch.size(), e.getMessage());
+                parsed = Map.of();
+            } catch (Exception e) {
+                log.error("Batched AI call for {} changes failed: {}", batch.size(), e.getMessage());
+                batch.forEach(index -> results[index] = AiInsights.unavailable(e.getMessage()));
+                continue;
+            }
+
+            for (int position = 0; position < batch.size(); position++) {
+                int index = batch.get(position);
+                AiInsights insights = parsed.get(position + 1);
+                results[index] = insights != null
+                        ? insights
+                        : enrichUncachedOrUnavailable(changes.get(index));
+            }
+        }
+
+        for (int i = 0; i < changes.size(); i++) {
+            results[i] = withGraphImpact(changes.get(i), results[i]);
+        }
+        return List.of(results);
+    }
+
+    private boolean isCombinedMode() {
+        return "combined".equalsIgnoreCase(enrichmentMode);
+    }
+
+    /**
+     * Where the dependency graph knows the service's consumers, its impact replaces the model's
+     * guess, as {@link #predictImpact} does for per-field calls. Cached responses keep the model's
+     * text, so the graph is applied on every read.
+     */
+    private AiInsights withGraphImpact(BreakingChange change, AiInsights insights) {
+        if (insights.failed()) {
+            return insights;
+        }
+        return consumerIndex.describeImpact(change)
+                .map(impact -> new AiInsights(insights.suggestion(), impact, insights.explanation()))
+                .orElse(insights);
+    }
+
+    private AiInsights enrichOrUnavailable(BreakingChange change) {
+        try {
+            return enrich(change);
+        } catch (Exception e) {
+            log.error("Failed to generate AI insights for change: {}. Error: {}",
+                    change.getDescription(), e.getMessage());
+            return AiInsights.unavailable(e.getMessage());
+        }
+    }
+
+    private AiInsights enrichUncachedOrUnavailable(BreakingChange change) {
+        try {
+            return enrichUncached(change);
+        } catch (Exception e) {
+            log.error("Failed to generate AI insights for change: {}. Error: {}",
+                    change.getDescription(), e.getMessage());
+            return AiInsights.unavailable(e.getMessage());
+        }
+    }
+
+    /**
+     * Enrich without consulting the combined cache (the caller already has)
+     */
+    private AiInsights enrichUncached(BreakingChange change) {
+        if (isCombinedMode()) {
+            try {
+                return generateCombined(change);
+            } catch (InsightParseException e) {
+                log.warn("Combined AI response unusable for change {}, falling back to per-field calls: {}",
+                        change.getId(), e.getMessage());
+            }
+        }
+
+        return new AiInsights(
+                generateSuggestion(change),
+                predictImpact(change),
+                explainInPlainEnglish(change)
+        );
+    }
+
+    /**
+     * Ask for all three insights in one JSON-shaped response and cache the parsed result
+     */
+    private AiInsights generateCombined(BreakingChange change) {
+        log.info("Generating combined AI insights for breaking change: {}", change.getId());
+
+        Map<String, Object> inputs = new HashMap<>(changeInputs(change));
+        inputs.put("serviceName", change.getServiceName());
+        inputs.put("consumers", consumersInfo(change));
+
+        // Only parsed, normalized JSON is stored, so unparseable responses are never cached
+        AiInsights insights = parseInsights(call(COMBINED_PROMPT, inputs));
+        String json = toJson(insights);
+        insightCache.store("combined", COMBINED_TEMPLATE_VERSION, impactCacheInputs(change),
+                json, AiInsightCache.estimateTokens(COMBINED_PROMPT, inputs, json));
+
+        log.info("Combined AI insights generated successfully");
+        return insights;
+    }
+
+    /**
+     * Split pending changes into batches whose estimated prompt plus expected output
+     * fits the token budget. A change that alone exceeds the budget gets its own batch.
+     */
+    private List<List<Integer>> packBatches(List<Integer> pending, List<BreakingChange> changes) {
+        int headerTokens = AiInsightCache.estimateTokens(BATCH_PROMPT, Map.of(), "");
+
+        List<List<Integer>> batches = new ArrayList<>();
+        List<Integer> current = new ArrayList<>();
+        int currentTokens = headerTokens;
+        for (int index : pending) {
+            int cost = AiInsightCache.estimateTokens("", Map.of("change",
+                    formatBatchEntry(current.size() + 1, changes.get(index))), "") + outputTokensPerChange;
+            if (!current.isEmpty() && currentTokens + cost > batchTokenBudget) {
+                batches.add(current);
+                current = new ArrayList<>();
+                currentTokens = headerTokens;
+            }
+            current.add(index);
+            currentTokens += cost;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    /**
+     * Run one batched prompt and return the parsed insights keyed by 1-based change number.
+     * Entries that are missing or incomplete are simply absent from the map.
+     */
+    private Map<Integer, AiInsights> callBatch(List<Integer> batch, List<BreakingChange> changes) {
+        log.info("Generating AI insights for {} breaking changes in one batched prompt", batch.size());
+
+        StringBuilder changesText = new StringBuilder();
+        for (int position = 0; position < batch.size(); position++) {
+            changesText.append(formatBatchEntry(position + 1, changes.get(batch.get(position))));
+        }
+
+        Map<String, Object> inputs = Map.of("changes", changesText.toString());
+        String response = call(BATCH_PROMPT, inputs);
+        if (response == null) {
+            throw new InsightParseException("empty response");
+        }
+
+        int start = response.indexOf('[');
+        int end = response.lastIndexOf(']');
+        if (start < 0 || end <= start) {
+            throw new InsightParseException("no JSON array in response");
+        }
+
+        JsonNode array;
+        try {
+            array = objectMapper.readTree(response.substring(start, end + 1));
+        } catch (Exception e) {
+            throw new InsightParseException(e.getMessage());
+        }
+
+        // Spread the call's cost over the entries for the tokens-saved metric
+        int tokensPerEntry = AiInsightCache.estimateTokens(BATCH_PROMPT, inputs, response) / batch.size();
+
+        Map<Integer, AiInsights> parsed = new HashMap<>();
+        for (JsonNode entry : array) {
+            int number = entry.path("index").asInt(-1);
+            if (number < 1 || number > batch.size() || parsed.containsKey(number)) {
+                continue;
+            }
+            try {
+                AiInsights insights = insightsFrom(entry);
+                BreakingChange change = changes.get(batch.get(number - 1));
+                insightCache.store("combined", COMBINED_TEMPLATE_VERSION, impactCacheInputs(change),
+                        toJson(insights), tokensPerEntry);
+                parsed.put(number, insights);
+            } catch (InsightParseException e) {
+                log.warn("Skipping incomplete entry {} in batched AI response: {}", number, e.getMessage());
+            }
+        }
+
+        log.info("Batched AI insights parsed for {} of {} changes", parsed.size(), batch.size());
+        return parsed;
+    }
+
+    private String formatBatchEntry(int number, BreakingChange change) {
+        return String.format("Change %d:%n  Service: %s%n  Change Type: %s%n  Location: %s%n"
+                        + "  Description: %s%n  Old Version: %s%n  New Version: %s%n  Services that may depend on it:%n%s",
+                number, change.getServiceName(), change.getChangeType(), change.getPath(),
+                change.getDescription(), change.getOldVersion(), change.getNewVersion(),
+                consumersInfo(change).indent(4));
+    }
+
+    /**
+     * Parse a JSON object with suggestion, impact and explanation fields,
+     * tolerating a markdown code fence around it
+     */
+    private AiInsights parseInsights(String response) {
+        if (response == null) {
+            throw new InsightParseException("empty response");
+        }
+
+        String json = response.strip();
+        int start = json.indexOf('{');
+        int end = json.lastIndexOf('}');
+        if (start < 0 || end <= start) {
+            throw new InsightParseException("no JSON object in response");
+        }
+
+        try {
+            return insightsFrom(objectMapper.readTree(json.substring(start, end + 1)));
+        } catch (InsightParseException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new InsightParseException(e.getMessage());
+        }
+    }
+
+    private AiInsights insightsFrom(JsonNode node) {
+        String suggestion = node.path("suggestion").asText("");
+        String impact = node.path("impact").asText("");
+        String explanation = node.path("explanation").asText("");
+        if (suggestion.isBlank() || impact.isBlank() || explanation.isBlank()) {
+            throw new InsightParseException("missing one of suggestion, impact, explanation");
+        }
+        return new AiInsights(suggestion, impact, explanation);
+    }
+
+    private String toJson(AiInsights insights) {
+        try {
+            return objectMapper.writeValueAsString(insights);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to serialize AI insights", e);
+        }
+    }
+
+    /**
+     * Raised when a structured response cannot be turned into insights
+     */
+    private static class InsightParseException extends RuntimeException {
+        InsightParseException(String message) {
+            super(message);
+        }
+    }
 
     /**
      * Generate a backward-compatible suggestion for a breaking change
      */
+    @Override
     public String generateSuggestion(BreakingChange change) {
         log.info("Generating AI suggestion for breaking change: {}", change.getId());
 
-        String promptText = """
-                A breaking change was detected in a microservices API:
-                
-                Change Type: {changeType}
-                Location: {path}
-                Description: {description}
-                Old Version: {oldVersion}
-                New Version: {newVersion}
-                
-                As an expert software architect, suggest a backward-compatible alternative approach.
-                Provide specific, actionable steps that allow gradual migration without breaking existing clients.
-                Format your response as a numbered list with clear implementation steps.
-                """;
+        Map<String, Object> inputs = changeInputs(change);
 
-        PromptTemplate promptTemplate = new PromptTemplate(promptText);
-        Prompt prompt = promptTemplate.create(Map.of(
-                "changeType", change.getChangeType().toString(),
-                "path", change.getPath(),
-                "description", change.getDescription(),
-                "oldVersion", change.getOldVersion(),
-                "newVersion", change.getNewVersion()
-        ));
-
-        ChatClient chatClient = chatClientBuilder.build();
-        String response = chatClient.prompt(prompt).call().content();
+        String response = insightCache.getOrCompute("suggestion", SUGGESTION_TEMPLATE_VERSION, SUGGESTION_PROMPT,
+                cacheInputs(change), () -> call(SUGGESTION_PROMPT, inputs));
 
         log.info("AI suggestion generated successfully");
         return response;
@@ -58,45 +473,19 @@ public class AiService {
     /**
      * Predict which services might be impacted by this breaking change
      */
-    public String predictImpact(BreakingChange change, List<ApiSpec> allSpecs) {
+    @Override
+    public String predictImpact(BreakingChange change) {
         log.info("Predicting impact for breaking change: {}", change.getId());
 
-        StringBuilder servicesInfo = new StringBuilder();
-        for (ApiSpec spec : allSpecs) {
-            servicesInfo.append(String.format("- %s (version %s)\n", 
-                spec.getServiceName(), spec.getVersion()));
-        }
-
-        String promptText = """
-                A breaking change occurred in the {serviceName} microservice:
-                
-                Change Type: {changeType}
-                Location: {path}
-                Description: {description}
-                
-                Available microservices in the system:
-                {servicesInfo}
-                
-                Based on common microservice communication patterns and the nature of this change:
-                1. Predict which services are most likely to be affected
-                2. Assign a confidence score (0-100%) for each potentially affected service
-                3. Explain why each service might be impacted
-                
-                Format your response as:
-                Service Name | Confidence | Reason
-                """;
+        Optional<String> fromGraph = consumerIndex.describeImpact(change);
+        if (fromGraph.isPresent()) {
+            return fromGraph.get();
+        }
 
-        PromptTemplate promptTemplate = new PromptTemplate(promptText);
-        Prompt prompt = promptTemplate.create(Map.of(
-                "serviceName", change.getServiceName(),
-                "changeType", change.getChangeType().toString(),
-                "path", change.getPath(),
-                "description", change.getDescription(),
-                "servicesInfo", servicesInfo.toString()
-        ));
+        Map<String, Object> inputs = impactInputs(change);
 
-        ChatClient chatClient = chatClientBuilder.build();
-        String response = chatClient.prompt(prompt).call().content();
+        String response = insightCache.getOrCompute("impact", IMPACT_TEMPLATE_VERSION, IMPACT_PROMPT,
+                impactCacheInputs(change), () -> call(IMPACT_PROMPT, inputs));
 
         log.info("Impact prediction generated successfully");
         return response;
@@ -105,40 +494,198 @@ public class AiService {
     /**
      * Generate a plain English explanation of the breaking change
      */
+    @Override
     public String explainInPlainEnglish(BreakingChange change) {
         log.info("Generating plain English explanation for breaking change: {}", change.getId());
 
-        String promptText = """
-                Translate this technical API breaking change into plain English that a non-technical 
-                product manager or stakeholder can understand:
-                
-                Change Type: {changeType}
-                Location: {path}
-                Technical Description: {description}
-                Old Version: {oldVersion}
-                New Version: {newVersion}
-                
-                Provide:
-                1. A simple one-sentence summary (no jargon)
-                2. What this means for users/clients of the API
-                3. The business impact
-                
-                Keep it concise and avoid technical terminology.
-                """;
+        Map<String, Object> inputs = changeInputs(change);
 
-        PromptTemplate promptTemplate = new PromptTemplate(promptText);
-        Prompt prompt = promptTemplate.create(Map.of(
+        String response = insightCache.getOrCompute("explanation", EXPLANATION_TEMPLATE_VERSION, EXPLANATION_PROMPT,
+                cacheInputs(change), () -> call(EXPLANATION_PROMPT, inputs));
+
+        log.info("Plain English explanation generated successfully");
+        return response;
+    }
+
+    /**
+     * Stream suggestion, impact and explanation for a change, handing each text fragment to
+     * onToken as (field, fragment) while the model produces it. Fields already cached are
+     * emitted whole. The per-field prompts are used because their plain-text answers are
+     * readable while still incomplete, unlike the combined JSON response. A field whose answer
+     * breaks off midway is not replayed; the result is marked failed with placeholder text for it.
+     */
+    @Override
+    public AiInsights streamInsights(BreakingChange change,
+                                     BiConsumer<String, String> onToken) {
+        Optional<String> combined = insightCache.lookup("combined", COMBINED_TEMPLATE_VERSION,
+                impactCacheInputs(change));
+        if (combined.isPresent()) {
+            AiInsights insights = withGraphImpact(change, parseInsights(combined.get()));
+            onToken.accept("suggestion", insights.suggestion());
+            onToken.accept("impact", insights.impact());
+            onToken.accept("explanation", insights.explanation());
+            return insights;
+        }
+
+        log.info("Streaming AI insights for breaking change: {}", change.getId());
+        String suggestion = streamField("suggestion", SUGGESTION_TEMPLATE_VERSION, SUGGESTION_PROMPT,
+                changeInputs(change), cacheInputs(change), onToken);
+        String impact = streamImpact(change, onToken);
+        String explanation = streamField("explanation", EXPLANATION_TEMPLATE_VERSION, EXPLANATION_PROMPT,
+                changeInputs(change), cacheInputs(change), onToken);
+        if (suggestion != null && impact != null && explanation != null) {
+            return new AiInsights(suggestion, impact, explanation);
+        }
+
+        // Failed so the enrichment worker regenerates the broken fields later, without streaming
+        AiInsights unavailable = AiInsights.unavailable("response stream broke off");
+        return new AiInsights(
+                suggestion != null ? suggestion : unavailable.suggestion(),
+                impact != null ? impact : unavailable.impact(),
+                explanation != null ? explanation : unavailable.explanation(),
+                true
+        );
+    }
+
+    private String streamImpact(BreakingChange change,
+                                BiConsumer<String, String> onToken) {
+        Optional<String> fromGraph = consumerIndex.describeImpact(change);
+        if (fromGraph.isPresent()) {
+            onToken.accept("impact", fromGraph.get());
+            return fromGraph.get();
+        }
+        return streamField("impact", IMPACT_TEMPLATE_VERSION, IMPACT_PROMPT,
+                impactInputs(change), impactCacheInputs(change), onToken);
+    }
+
+    /**
+     * Stream one field, or null if its answer broke off after fragments were already emitted
+     */
+    private String streamField(String kind, String templateVersion, String promptText,
+                               Map<String, Object> inputs, Map<String, Object> cacheInputs,
+                               BiConsumer<String, String> onToken) {
+        Optional<String> cached = insightCache.lookup(kind, templateVersion, cacheInputs);
+        if (cached.isPresent()) {
+            onToken.accept(kind, cached.get());
+            return cached.get();
+        }
+
+        String content;
+        try {
+            content = stream(promptText, inputs, token -> onToken.accept(kind, token));
+        } catch (PartialResponseException e) {
+            // Retrying would send the same fragments again, so this field is left unavailable
+            log.warn("Streaming {} stopped partway: {}", kind, e.getMessage());
+            return null;
+        }
+        insightCache.store(kind, templateVersion, cacheInputs, content,
+                AiInsightCache.estimateTokens(promptText, inputs, content));
+        return content;
+    }
+
+    private Map<String, Object> changeInputs(BreakingChange change) {
+        return Map.of(
                 "changeType", change.getChangeType().toString(),
                 "path", change.getPath(),
                 "description", change.getDescription(),
                 "oldVersion", change.getOldVersion(),
                 "newVersion", change.getNewVersion()
-        ));
+        );
+    }
+
+    private Map<String, Object> impactInputs(BreakingChange change) {
+        return Map.of(
+                "serviceName", change.getServiceName(),
+                "changeType", change.getChangeType().toString(),
+                "path", change.getPath(),
+                "description", change.getDescription(),
+                "consumers", consumersInfo(change)
+        );
+    }
+
+    /**
+     * The subgraph a prompt gets: consumers this change reaches, topped up with services whose
+     * specs reference the changed path or schema, at most ai.impact.context-size entries.
+     * Its size does not depend on how many services exist.
+     */
+    private String consumersInfo(BreakingChange change) {
+        List<ImpactedService> context = new ArrayList<>(consumerIndex.impactOf(change));
+        int omitted = Math.max(0, context.size() - impactContextSize);
+        if (omitted > 0) {
+            context = context.subList(0, impactContextSize);
+        } else {
+            context.addAll(consumerIndex.referencingServices(change, impactContextSize - context.size()));
+        }
+
+        if (context.isEmpty()) {
+            return "None known: no declared consumer and no other spec references this path or schema.\n";
+        }
+        String text = ConsumerIndex.format(context);
+        return omitted > 0 ? text + "(" + omitted + " lower-confidence consumers omitted)\n" : text;
+    }
+
+    /**
+     * Prompt inputs that identify a change for caching. Old/new versions are fetch timestamps
+     * that differ on every run, so they are left out of the key.
+     */
+    private Map<String, Object> cacheInputs(BreakingChange change) {
+        return Map.of(
+                "changeType", change.getChangeType().toString(),
+                "path", change.getPath(),
+                "description", change.getDescription()
+        );
+    }
+
+    /**
+     * Cache inputs for prompts that also carry the services that may depend on the change
+     */
+    private Map<String, Object> impactCacheInputs(BreakingChange change) {
+        Map<String, Object> cacheInputs = new HashMap<>(cacheInputs(change));
+        cacheInputs.put("serviceName", change.getServiceName());
+        cacheInputs.put("consumers", consumersInfo(change));
+        return cacheInputs;
+    }
+
+    /**
+     * Render a prompt template and run it through the chat model, subject to rate limits
+     */
+    private String call(String promptText, Map<String, Object> inputs) {
+        PromptTemplate promptTemplate = new PromptTemplate(promptText);
+        Prompt prompt = promptTemplate.create(inputs);
+
+        // Rate limiting counts the prompt plus the answer we expect back
+        int estimatedTokens = AiInsightCache.estimateTokens(promptText, inputs, "") + outputTokensPerChange;
 
         ChatClient chatClient = chatClientBuilder.build();
-        String response = chatClient.prompt(prompt).call().content();
+        return aiCallScheduler.execute(estimatedTokens, () -> chatClient.prompt(prompt).call().content());
+    }
 
-        log.info("Plain English explanation generated successfully");
-        return response;
+    /**
+     * Like {@link #call}, but hands each fragment to onToken as it arrives and returns the full text.
+     * Only a failure before the first fragment is retried; a later one throws {@link PartialResponseException}.
+     */
+    private String stream(String promptText, Map<String, Object> inputs, Consumer<String> onToken) {
+        PromptTemplate promptTemplate = new PromptTemplate(promptText);
+        Prompt prompt = promptTemplate.create(inputs);
+        int estimatedTokens = AiInsightCache.estimateTokens(promptText, inputs, "") + outputTokensPerChange;
+
+        ChatClient chatClient = chatClientBuilder.build();
+        return aiCallScheduler.execute(estimatedTokens, () -> {
+            StringBuilder content = new StringBuilder();
+            try {
+                chatClient.prompt(prompt).stream().content()
+                        .doOnNext(token -> {
+                            content.append(token);
+                            onToken.accept(token);
+                        })
+                        .blockLast();
+            } catch (RuntimeException e) {
+                if (!content.isEmpty()) {
+                    throw new PartialResponseException(e);
+                }
+                throw e;
+            }
+            return content.toString();
+        });
     }
-}
\ No newline at end of file
+}
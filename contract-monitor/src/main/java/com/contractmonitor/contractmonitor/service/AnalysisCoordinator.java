@@ -0,0 +1,228 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.AnalysisLease;
+import com.contractmonitor.contractmonitor.entity.AnalysisReport;
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import com.contractmonitor.contractmonitor.repository.AnalysisLeaseRepository;
+import com.contractmonitor.contractmonitor.repository.AnalysisReportRepository;
+import com.contractmonitor.contractmonitor.repository.BreakingChangeRepository;
+import com.contractmonitor.contractmonitor.util.Deadline;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight entry point for analyses: at most one analysis per service runs at a time,
+ * and concurrent requests share its result instead of fetching and diffing again.
+ *
+ * Within a JVM, callers join the in-flight future. Across replicas, the runner holds a row in
+ * analysis_leases; a replica that finds the lease taken waits for it to be released and then
+ * returns the report the holder saved. If the holder died (lease expired) or saved nothing,
+ * the waiter takes the lease and runs the analysis itself.
+ *
+ * The lease lasts as long as the run can: its deadline, the persist grace it may use twice past
+ * the deadline (partial results, then the TIMED_OUT report), and a margin. A lease that expires
+ * therefore belongs to a holder that is gone, and waiters keep polling until then rather than
+ * giving up on a run that is still within its deadline.
+ *
+ * The lease is released after AnalysisService's persist phase has committed, so waiters only
+ * read a finished run.
+ */
+@Service
+@Slf4j
+public class AnalysisCoordinator {
+
+    private final AnalysisService analysisService;
+    private final AnalysisLeaseRepository leaseRepository;
+    private final AnalysisReportRepository reportRepository;
+    private final BreakingChangeRepository breakingChangeRepository;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, CompletableFuture<AnalysisOutcome>> inFlight = new ConcurrentHashMap<>();
+    private final String owner;
+
+    @Value("${analysis.deadline.timeout:2m}")
+    private Duration analysisTimeout;
+
+    @Value("${analysis.deadline.persist-grace:10s}")
+    private Duration persistGrace;
+
+    @Value("${analysis.single-flight.lease-grace:30s}")
+    private Duration leaseGrace;
+
+    @Value("${analysis.single-flight.poll-interval:500ms}")
+    private Duration pollInterval;
+
+    public AnalysisCoordinator(AnalysisService analysisService,
+                               AnalysisLeaseRepository leaseRepository,
+                               AnalysisReportRepository reportRepository,
+                               BreakingChangeRepository breakingChangeRepository,
+                               MeterRegistry meterRegistry) {
+        this.analysisService = analysisService;
+        this.leaseRepository = leaseRepository;
+        this.reportRepository = reportRepository;
+        this.breakingChangeRepository = breakingChangeRepository;
+        this.meterRegistry = meterRegistry;
+        this.owner = hostName() + "/" + UUID.randomUUID();
+    }
+
+    /**
+     * Analyze a service, or join an analysis of it that is already running
+     */
+    public AnalysisReport analyzeService(String serviceName) {
+        return analyzeService(serviceName, AiCallScheduler.Priority.INTERACTIVE);
+    }
+
+    /**
+     * Analyze a service, or join an analysis of it that is already running;
+     * aiPriority only applies if this call ends up running the analysis
+     */
+    public AnalysisReport analyzeService(String serviceName, AiCallScheduler.Priority aiPriority) {
+        return analyzeService(serviceName, aiPriority, AnalysisProgress.NONE);
+    }
+
+    /**
+     * As above; progress only hears about phases if this call runs the analysis itself
+     */
+    public AnalysisReport analyzeService(String serviceName, AiCallScheduler.Priority aiPriority,
+                                         AnalysisProgress progress) {
+        return singleFlight(serviceName, () -> analysisService.analyze(serviceName, aiPriority, progress)).report();
+    }
+
+    /**
+     * Like {@link AnalysisService#analyzeWithoutEnrichment}, coalesced with running analyses.
+     * If this call joins an analysis that queued enrichment, the worker enriches the new changes.
+     */
+    public AnalysisOutcome analyzeWithoutEnrichment(String serviceName) {
+        return singleFlight(serviceName, () -> analysisService.analyzeWithoutEnrichment(serviceName));
+    }
+
+    private AnalysisOutcome singleFlight(String serviceName, Supplier<AnalysisOutcome> analysis) {
+        CompletableFuture<AnalysisOutcome> mine = new CompletableFuture<>();
+        CompletableFuture<AnalysisOutcome> running = inFlight.putIfAbsent(serviceName, mine);
+        if (running != null) {
+            log.info("Joining in-flight analysis of {}", serviceName);
+            meterRegistry.counter("analysis.single-flight.coalesced", "scope", "local").increment();
+            return join(running);
+        }
+
+        try {
+            AnalysisOutcome outcome = runOnce(serviceName, analysis);
+            mine.complete(outcome);
+            return outcome;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(serviceName, mine);
+        }
+    }
+
+    /**
+     * Run under the cluster-wide lease, or share the result of the replica holding it
+     */
+    private AnalysisOutcome runOnce(String serviceName, Supplier<AnalysisOutcome> analysis) {
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            if (leaseRepository.tryAcquire(serviceName, owner, now, now.plus(leaseTtl())) == 1) {
+                try {
+                    return analysis.get();
+                } finally {
+                    leaseRepository.release(serviceName, owner);
+                }
+            }
+
+            Optional<AnalysisLease> held = leaseRepository.findById(serviceName);
+            if (held.isEmpty()) {
+                continue;
+            }
+            LocalDateTime holderStarted = held.get().getAcquiredAt();
+            log.info("Analysis of {} is running on {}, waiting for its result", serviceName, held.get().getOwner());
+
+            waitForRelease(serviceName, held.get());
+            Optional<AnalysisReport> shared = reportRepository
+                    .findTopByServiceNameAndAnalyzedAtGreaterThanEqualOrderByAnalyzedAtDesc(serviceName, holderStarted);
+            if (shared.isPresent()) {
+                meterRegistry.counter("analysis.single-flight.coalesced", "scope", "remote").increment();
+                return outcomeOf(serviceName, shared.get(), holderStarted);
+            }
+
+            // The holder failed or died without a report; take over on the next pass
+            log.info("Analysis of {} on {} ended without a report, taking over", serviceName, held.get().getOwner());
+        }
+    }
+
+    /**
+     * How long this run may hold the lease: the time its deadline allows plus what it may
+     * still spend saving past it
+     */
+    Duration leaseTtl() {
+        Deadline deadline = Deadline.current();
+        Duration run = deadline.isBounded() ? deadline.remaining() : analysisTimeout;
+        return run.plus(persistGrace.multipliedBy(2)).plus(leaseGrace);
+    }
+
+    /**
+     * Poll until the observed holder releases the lease or it expires; bounded by the lease
+     * itself and by the caller's deadline, if any
+     */
+    private void waitForRelease(String serviceName, AnalysisLease observed) {
+        while (true) {
+            Deadline.current().check("waiting for analysis of " + serviceName + " on another replica");
+            try {
+                Thread.sleep(pollInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for analysis of " + serviceName, e);
+            }
+            Optional<AnalysisLease> current = leaseRepository.findById(serviceName);
+            if (current.isEmpty()
+                    || !current.get().getOwner().equals(observed.getOwner())
+                    || current.get().getExpiresAt().isBefore(LocalDateTime.now())) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Rebuild an outcome from what another replica's run saved
+     */
+    private AnalysisOutcome outcomeOf(String serviceName, AnalysisReport report, LocalDateTime runStarted) {
+        List<BreakingChange> seen = breakingChangeRepository
+                .findByServiceNameAndLastSeenGreaterThanEqual(serviceName, runStarted);
+        List<BreakingChange> created = seen.stream()
+                .filter(change -> !change.getDetectedAt().isBefore(runStarted))
+                .toList();
+        return new AnalysisOutcome(report, seen, created);
+    }
+
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown-host";
+        }
+    }
+}
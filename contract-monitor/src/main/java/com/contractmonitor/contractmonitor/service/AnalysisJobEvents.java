@@ -0,0 +1,130 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.AnalysisJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Server-Sent Events for queued analyses. Jobs may run on any replica, so progress is read
+ * from analysis_jobs: one scheduled poll loads every watched job in a single query and pushes
+ * changes to its subscribers. No thread is held per subscriber, and the sends, which block on
+ * slow clients, run on the small analysisEventsExecutor pool instead of the scheduler thread.
+ * A subscriber still busy with its previous send is skipped and catches up on the next poll.
+ *
+ * Events: "status" whenever the status or phase changes, then "complete" with the job and its
+ * report, or "failed" with the job once it is dead-lettered.
+ */
+@Service
+@Slf4j
+public class AnalysisJobEvents {
+    
+    private final AnalysisJobService analysisJobService;
+    private final AnalysisService analysisService;
+    private final ThreadPoolTaskExecutor executor;
+    private final Map<SseEmitter, Subscription> subscriptions = new ConcurrentHashMap<>();
+    
+    private static final class Subscription {
+        private final Long jobId;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private AnalysisJob.Status lastStatus;
+        private AnalysisPhase lastPhase;
+        
+        private Subscription(Long jobId) {
+            this.jobId = jobId;
+        }
+    }
+    
+    public AnalysisJobEvents(AnalysisJobService analysisJobService,
+                             AnalysisService analysisService,
+                             @Qualifier("analysisEventsExecutor") ThreadPoolTaskExecutor executor) {
+        this.analysisJobService = analysisJobService;
+        this.analysisService = analysisService;
+        this.executor = executor;
+    }
+    
+    public void subscribe(Long jobId, SseEmitter emitter) {
+        subscriptions.put(emitter, new Subscription(jobId));
+        emitter.onCompletion(() -> subscriptions.remove(emitter));
+        emitter.onTimeout(() -> subscriptions.remove(emitter));
+        emitter.onError(error -> subscriptions.remove(emitter));
+    }
+    
+    @Scheduled(fixedDelayString = "${analysis.jobs.events-poll-interval-ms:500}")
+    public void publish() {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        
+        Set<Long> ids = subscriptions.values().stream().map(s -> s.jobId).collect(Collectors.toSet());
+        Map<Long, AnalysisJob> jobs = analysisJobService.getJobs(ids).stream()
+                .collect(Collectors.toMap(AnalysisJob::getId, job -> job));
+        
+        subscriptions.forEach((emitter, subscription) -> {
+            AnalysisJob job = jobs.get(subscription.jobId);
+            if (job == null || !subscription.sending.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor.execute(() -> send(emitter, subscription, job));
+            } catch (TaskRejectedException e) {
+                subscription.sending.set(false);
+            }
+        });
+    }
+    
+    private void send(SseEmitter emitter, Subscription subscription, AnalysisJob job) {
+        try {
+            update(emitter, subscription, job);
+        } catch (IOException | IllegalStateException e) {
+            // Client went away
+            subscriptions.remove(emitter);
+        } finally {
+            subscription.sending.set(false);
+        }
+    }
+    
+    private void update(SseEmitter emitter, Subscription subscription, AnalysisJob job) throws IOException {
+        if (job.getStatus() != subscription.lastStatus || !Objects.equals(job.getPhase(), subscription.lastPhase)) {
+            subscription.lastStatus = job.getStatus();
+            subscription.lastPhase = job.getPhase();
+            emitter.send(SseEmitter.event().name("status").data(statusOf(job)));
+        }
+        
+        if (job.getStatus() == AnalysisJob.Status.SUCCEEDED) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("job", job);
+            result.put("report", analysisService.getReport(job.getReportId()));
+            emitter.send(SseEmitter.event().name("complete").data(result));
+            subscriptions.remove(emitter);
+            emitter.complete();
+        } else if (job.getStatus() == AnalysisJob.Status.DEAD) {
+            emitter.send(SseEmitter.event().name("failed").data(job));
+            subscriptions.remove(emitter);
+            emitter.complete();
+        }
+    }
+    
+    private Map<String, Object> statusOf(AnalysisJob job) {
+        Map<String, Object> status = new HashMap<>();
+        status.put("jobId", job.getId());
+        status.put("status", job.getStatus());
+        status.put("phase", job.getPhase());
+        status.put("attempts", job.getAttempts());
+        status.put("lastError", job.getLastError());
+        return status;
+    }
+}
@@ -0,0 +1,156 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.AnalysisJob;
+import com.contractmonitor.contractmonitor.repository.AnalysisJobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Durable queue of analyses in the analysis_jobs table. Any number of replicas can claim from
+ * it concurrently: claiming locks rows with FOR UPDATE SKIP LOCKED, so each job goes to one worker.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class AnalysisJobService {
+    
+    private static final int MAX_ERROR_LENGTH = 2000;
+    
+    private final AnalysisJobRepository analysisJobRepository;
+    
+    @Value("${analysis.jobs.max-attempts:3}")
+    private int maxAttempts;
+    
+    @Value("${analysis.jobs.visibility-timeout:2m}")
+    private Duration visibilityTimeout;
+    
+    @Value("${analysis.jobs.retry-backoff:30s}")
+    private Duration retryBackoff;
+    
+    /**
+     * Queue an analysis; returns the already queued job for the service if there is one,
+     * raised to INTERACTIVE if this request is
+     */
+    public AnalysisJob enqueue(String serviceName, AiCallScheduler.Priority aiPriority) {
+        AnalysisJobRepository.QueuedJob queued = analysisJobRepository.enqueue(serviceName, aiPriority.name(),
+                LocalDateTime.now());
+        if (queued.isInserted()) {
+            log.info("Queued analysis job {} for {}", queued.getId(), serviceName);
+        }
+        return analysisJobRepository.findById(queued.getId()).orElseThrow();
+    }
+    
+    /**
+     * Claim up to limit runnable jobs for owner: queued jobs that are due, and running jobs
+     * whose worker stopped renewing its lock
+     */
+    public List<AnalysisJob> claim(String owner, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = analysisJobRepository.lockClaimable(now, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        analysisJobRepository.markClaimed(ids, owner, now, now.plus(visibilityTimeout));
+        return analysisJobRepository.findAllById(ids);
+    }
+    
+    /**
+     * Renew the locks on jobs owner is still running
+     */
+    public void extendLocks(String owner, Collection<Long> jobIds) {
+        if (!jobIds.isEmpty()) {
+            analysisJobRepository.extendLocks(jobIds, owner, LocalDateTime.now().plus(visibilityTimeout));
+        }
+    }
+    
+    public void recordPhase(AnalysisJob job, String owner, AnalysisPhase phase) {
+        analysisJobRepository.updatePhase(job.getId(), owner, phase);
+    }
+    
+    public void succeed(AnalysisJob job, String owner, Long reportId) {
+        if (analysisJobRepository.markSucceeded(job.getId(), owner, reportId, LocalDateTime.now()) == 0) {
+            log.warn("Analysis job {} finished after its lock was lost", job.getId());
+        }
+    }
+    
+    /**
+     * Record a failed attempt: retry with exponential backoff, or dead-letter the job
+     * once it has used max-attempts
+     */
+    public void fail(AnalysisJob job, String owner, Exception error) {
+        String message = truncate(error.getClass().getSimpleName() + ": " + error.getMessage());
+        if (job.getAttempts() >= maxAttempts) {
+            deadLetter(job, owner, message);
+            return;
+        }
+        
+        Duration delay = retryBackoff.multipliedBy(1L << Math.min(job.getAttempts() - 1, 10));
+        if (analysisJobRepository.markForRetry(job.getId(), owner, LocalDateTime.now().plus(delay), message) == 0) {
+            if (analysisJobRepository.existsByServiceNameAndStatus(job.getServiceName(), AnalysisJob.Status.QUEUED)) {
+                // A newer request for the service is queued and will run the same analysis
+                deadLetter(job, owner, message + " (not retried: another job for the service is queued)");
+            } else {
+                log.warn("Analysis job {} failed after its lock was lost: {}", job.getId(), message);
+            }
+            return;
+        }
+        log.warn("Analysis job {} for {} failed (attempt {} of {}), retrying in {}s: {}", job.getId(),
+                job.getServiceName(), job.getAttempts(), maxAttempts, delay.toSeconds(), message);
+    }
+    
+    public void deadLetter(AnalysisJob job, String owner, String reason) {
+        analysisJobRepository.markDead(job.getId(), owner, LocalDateTime.now(), truncate(reason));
+        log.error("Analysis job {} for {} dead-lettered after {} attempts: {}", job.getId(),
+                job.getServiceName(), job.getAttempts(), reason);
+    }
+    
+    /**
+     * Hand a claimed job back; if another job for the service is queued by now, the job stays
+     * RUNNING and is reclaimed once its lock expires
+     */
+    public void release(AnalysisJob job, String owner) {
+        analysisJobRepository.release(job.getId(), owner);
+    }
+    
+    /**
+     * Whether a claimed job has already used all of its attempts (its earlier workers died mid-run)
+     */
+    public boolean isExhausted(AnalysisJob job) {
+        return job.getAttempts() > maxAttempts;
+    }
+    
+    public Optional<AnalysisJob> getJob(Long id) {
+        return analysisJobRepository.findById(id);
+    }
+    
+    public List<AnalysisJob> getJobs(Collection<Long> ids) {
+        return analysisJobRepository.findAllById(ids);
+    }
+    
+    public List<AnalysisJob> getJobsByStatus(AnalysisJob.Status status, int limit) {
+        return analysisJobRepository.findByStatusOrderByCreatedAtDesc(status, PageRequest.of(0, limit));
+    }
+    
+    /**
+     * Put a dead-lettered job back on the queue with a fresh set of attempts; false if it is not
+     * dead or another job for the service is already queued
+     */
+    public boolean retryDead(Long id) {
+        return analysisJobRepository.requeueDead(id, LocalDateTime.now()) == 1;
+    }
+    
+    private String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,103 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.AnalysisJob;
+import com.contractmonitor.contractmonitor.entity.AnalysisReport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Drains the analysis job queue with a bounded pool. Each poll claims only as many jobs as
+ * there are idle workers, so claimed jobs never wait behind others on this replica; a heartbeat
+ * renews their locks while they run. Jobs of a replica that dies are reclaimed by others once
+ * the visibility timeout passes.
+ */
+@Service
+@Slf4j
+public class AnalysisJobWorker {
+    
+    private final AnalysisJobService analysisJobService;
+    private final AnalysisCoordinator analysisCoordinator;
+    private final ThreadPoolTaskExecutor executor;
+    private final Semaphore idleWorkers;
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+    private final String owner;
+    
+    public AnalysisJobWorker(AnalysisJobService analysisJobService,
+                             AnalysisCoordinator analysisCoordinator,
+                             @Qualifier("analysisJobExecutor") ThreadPoolTaskExecutor executor) {
+        this.analysisJobService = analysisJobService;
+        this.analysisCoordinator = analysisCoordinator;
+        this.executor = executor;
+        this.idleWorkers = new Semaphore(executor.getMaxPoolSize());
+        this.owner = hostName() + "/" + UUID.randomUUID();
+    }
+    
+    @Scheduled(fixedDelayString = "${analysis.jobs.poll-interval-ms:1000}")
+    public void poll() {
+        int idle = idleWorkers.availablePermits();
+        if (idle == 0) {
+            return;
+        }
+        
+        List<AnalysisJob> jobs = analysisJobService.claim(owner, idle);
+        for (AnalysisJob job : jobs) {
+            idleWorkers.acquireUninterruptibly();
+            running.add(job.getId());
+            try {
+                executor.execute(() -> {
+                    try {
+                        run(job);
+                    } finally {
+                        running.remove(job.getId());
+                        idleWorkers.release();
+                    }
+                });
+            } catch (TaskRejectedException e) {
+                running.remove(job.getId());
+                idleWorkers.release();
+                analysisJobService.release(job, owner);
+            }
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${analysis.jobs.heartbeat-interval-ms:30000}")
+    public void heartbeat() {
+        analysisJobService.extendLocks(owner, Set.copyOf(running));
+    }
+    
+    private void run(AnalysisJob job) {
+        if (analysisJobService.isExhausted(job)) {
+            // Every earlier attempt died without recording a result
+            analysisJobService.deadLetter(job, owner, "Worker lost on every attempt");
+            return;
+        }
+        
+        log.info("Running analysis job {} for {} (attempt {})", job.getId(), job.getServiceName(), job.getAttempts());
+        try {
+            AnalysisReport report = analysisCoordinator.analyzeService(job.getServiceName(), job.getAiPriority(),
+                    phase -> analysisJobService.recordPhase(job, owner, phase));
+            analysisJobService.succeed(job, owner, report.getId());
+        } catch (Exception e) {
+            analysisJobService.fail(job, owner, e);
+        }
+    }
+    
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown-host";
+        }
+    }
+}
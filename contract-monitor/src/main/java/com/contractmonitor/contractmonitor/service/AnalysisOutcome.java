@@ -0,0 +1,15 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.AnalysisReport;
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+
+import java.util.List;
+
+/**
+ * Result of one analysis run: the saved report, every breaking change detected,
+ * and the subset that had never been seen before (saved, awaiting AI enrichment)
+ */
+public record AnalysisOutcome(AnalysisReport report,
+                              List<BreakingChange> breakingChanges,
+                              List<BreakingChange> newBreakingChanges) {
+}
@@ -0,0 +1,159 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.AnalysisReport;
+import com.contractmonitor.contractmonitor.entity.ApiSpec;
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import com.contractmonitor.contractmonitor.entity.NonBreakingChange;
+import com.contractmonitor.contractmonitor.repository.AnalysisReportRepository;
+import com.contractmonitor.contractmonitor.repository.NonBreakingChangeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Persist phase of an analysis: everything a run writes, in one short transaction that
+ * starts only after the spec has been fetched and diffed
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class AnalysisPersistenceService {
+    
+    private final ApiSpecService apiSpecService;
+    private final BreakingChangeService breakingChangeService;
+    private final AnalysisReportRepository analysisReportRepository;
+    private final NonBreakingChangeRepository nonBreakingChangeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    /**
+     * Record the changes found by a run and save its report. New breaking changes are saved
+     * as PENDING; if queueEnrichment is set they are handed to the enrichment worker on commit.
+     * A diff truncated by the deadline is saved as found, under a TIMED_OUT report.
+     */
+    public AnalysisOutcome persist(AnalysisRun run, SpecDiff diff, AiCallScheduler.Priority aiPriority,
+                                   boolean queueEnrichment) {
+        List<BreakingChange> breakingChanges = diff.getBreakingChanges();
+        List<NonBreakingChange> nonBreakingChanges = diff.getNonBreakingChanges();
+        
+        // Changes already recorded by earlier runs are only marked as seen again
+        List<BreakingChange> savedBreakingChanges = breakingChanges.isEmpty()
+                ? List.of()
+                : breakingChangeService.recordDetected(breakingChanges);
+        if (queueEnrichment && !savedBreakingChanges.isEmpty()) {
+            // Delivered after commit, so the worker never sees uncommitted rows
+            eventPublisher.publishEvent(new EnrichmentRequestedEvent(
+                    savedBreakingChanges.stream().map(BreakingChange::getId).toList(), aiPriority));
+            log.info("Queued {} new breaking changes for AI enrichment", savedBreakingChanges.size());
+        }
+        
+        if (!nonBreakingChanges.isEmpty()) {
+            recordAdditions(nonBreakingChanges);
+        }
+        
+        AnalysisReport report = createAnalysisReport(run.serviceName(), run.comparisonSpec(), run.currentSpec(),
+                breakingChanges, nonBreakingChanges);
+        if (diff.isTruncated()) {
+            report.setStatus(AnalysisReport.Status.TIMED_OUT);
+            report.setSummary("Timed out during " + AnalysisPhase.DIFF
+                    + "; only changes found before the deadline are listed.\n" + report.getSummary());
+        }
+        return new AnalysisOutcome(analysisReportRepository.save(report), breakingChanges, savedBreakingChanges);
+    }
+    
+    /**
+     * Record the additions found by a run, keyed by fingerprint like breaking changes, so a
+     * poll against an unchanged baseline touches the existing rows instead of adding new ones
+     */
+    private void recordAdditions(List<NonBreakingChange> additions) {
+        Map<String, NonBreakingChange> byFingerprint = new LinkedHashMap<>();
+        for (NonBreakingChange change : additions) {
+            change.setFingerprint(change.computeFingerprint());
+            byFingerprint.putIfAbsent(change.getFingerprint(), change);
+        }
+        
+        List<NonBreakingChange> distinct = List.copyOf(byFingerprint.values());
+        nonBreakingChangeRepository.upsertSeen(
+                column(distinct, NonBreakingChange::getServiceName),
+                column(distinct, change -> change.getChangeType().name()),
+                column(distinct, NonBreakingChange::getPath),
+                column(distinct, NonBreakingChange::getDescription),
+                column(distinct, NonBreakingChange::getOldVersion),
+                column(distinct, NonBreakingChange::getNewVersion),
+                column(distinct, NonBreakingChange::getFingerprint),
+                LocalDateTime.now());
+    }
+    
+    private static String[] column(List<NonBreakingChange> changes, Function<NonBreakingChange, String> field) {
+        return changes.stream().map(field).toArray(String[]::new);
+    }
+    
+    /**
+     * Save a TIMED_OUT report for a run that hit its deadline before it had changes to save
+     */
+    public AnalysisOutcome persistTimedOut(String serviceName, AnalysisPhase phase) {
+        AnalysisReport report = new AnalysisReport();
+        report.setServiceName(serviceName);
+        report.setBreakingChangesCount(0);
+        report.setNonBreakingChangesCount(0);
+        report.setStatus(AnalysisReport.Status.TIMED_OUT);
+        report.setSummary("Analysis of " + serviceName + " timed out during " + phase + "; no changes were recorded.");
+        
+        return new AnalysisOutcome(analysisReportRepository.save(report), List.of(), List.of());
+    }
+    
+    /**
+     * First analysis of a service: make the fetched spec the baseline and save a baseline report
+     */
+    public AnalysisOutcome persistBaseline(AnalysisRun run) {
+        apiSpecService.setBaseline(run.serviceName(), run.currentSpec().getId());
+        
+        AnalysisReport report = new AnalysisReport();
+        report.setServiceName(run.serviceName());
+        report.setBreakingChangesCount(0);
+        report.setNonBreakingChangesCount(0);
+        report.setSummary("Baseline spec saved for " + run.serviceName()
+                + ". Version: " + run.currentSpec().getVersion());
+        
+        return new AnalysisOutcome(analysisReportRepository.save(report), List.of(), List.of());
+    }
+    
+    /**
+     * Create analysis report
+     */
+    private AnalysisReport createAnalysisReport(String serviceName, ApiSpec oldSpec, 
+                                               ApiSpec newSpec, List<BreakingChange> changes,
+                                               List<NonBreakingChange> additions) {
+        AnalysisReport report = new AnalysisReport();
+        report.setServiceName(serviceName);
+        report.setBreakingChangesCount(changes.size());
+        report.setNonBreakingChangesCount(additions.size());
+        
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("Analysis of %s: %s → %s\n", 
+                                    serviceName, oldSpec.getVersion(), newSpec.getVersion()));
+        summary.append(String.format("Breaking changes: %d\n", changes.size()));
+        summary.append(String.format("Non-breaking changes: %d\n", additions.size()));
+        
+        if (!changes.isEmpty()) {
+            summary.append("\nBreaking changes detected:\n");
+            changes.forEach(change -> 
+                summary.append(String.format("- %s at %s: %s\n", 
+                                           change.getChangeType(), 
+                                           change.getPath(), 
+                                           change.getDescription()))
+            );
+        }
+        
+        report.setSummary(summary.toString());
+        return report;
+    }
+}
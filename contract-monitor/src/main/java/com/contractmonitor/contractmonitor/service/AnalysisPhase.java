@@ -0,0 +1,11 @@
+package com.contractmonitor.contractmonitor.service;
+
+/**
+ * Phases of an analysis run, in order. Enrichment is not listed: it runs after the run has
+ * committed, on the enrichment worker.
+ */
+public enum AnalysisPhase {
+    FETCH,      // Downloading and saving the current spec
+    DIFF,       // Comparing it with the baseline or previous spec
+    PERSIST     // Saving changes and the report
+}
@@ -0,0 +1,12 @@
+package com.contractmonitor.contractmonitor.service;
+
+/**
+ * Notified as an analysis run enters each phase
+ */
+@FunctionalInterface
+public interface AnalysisProgress {
+    
+    AnalysisProgress NONE = phase -> { };
+    
+    void phaseStarted(AnalysisPhase phase);
+}
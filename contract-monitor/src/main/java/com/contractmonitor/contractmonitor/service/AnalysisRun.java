@@ -0,0 +1,24 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.ApiSpec;
+
+/**
+ * Per-run state of one analysis, resolved once after the fetch phase and handed to the
+ * later phases: the spec just fetched and the spec it is compared against
+ */
+public record AnalysisRun(String serviceName,
+                          ApiSpec currentSpec,
+                          ApiSpec comparisonSpec,
+                          boolean againstBaseline) {
+
+    /**
+     * First analysis of a service: nothing to compare against yet
+     */
+    public boolean isInitial() {
+        return comparisonSpec == null;
+    }
+
+    public String comparedAgainst() {
+        return againstBaseline ? "BASELINE" : "previous version";
+    }
+}
@@ -2,353 +2,192 @@ package com.contractmonitor.contractmonitor.service;
 
 import com.contractmonitor.contractmonitor.entity.AnalysisReport;
 import com.contractmonitor.contractmonitor.entity.ApiSpec;
-import com.contractmonitor.contractmonitor.entity.BreakingChange;
 import com.contractmonitor.contractmonitor.repository.AnalysisReportRepository;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.contractmonitor.contractmonitor.util.Deadline;
+import com.contractmonitor.contractmonitor.util.DeadlineExceededException;
+import com.contractmonitor.contractmonitor.util.KeysetPage;
+import com.contractmonitor.contractmonitor.util.PageCursor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.ArrayList;
-import java.util.Iterator;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
-
+import java.util.function.Supplier;
+
+/**
+ * Runs an analysis as explicit phases: fetch, diff, persist, enrich. Not transactional itself,
+ * so a database connection is only held for the individual queries of the fetch phase and
+ * the single short transaction of the persist phase, never across the HTTP fetch or the diff.
+ *
+ * Each run has a deadline that every phase honours (see {@link Deadline}). A run that misses
+ * it saves what it has under a TIMED_OUT report rather than failing.
+ */
 @Service
 @RequiredArgsConstructor
-@Transactional
 @Slf4j
 public class AnalysisService {
     
     private final ApiSpecService apiSpecService;
-    private final BreakingChangeService breakingChangeService;
+    private final AnalysisPersistenceService analysisPersistenceService;
     private final AnalysisReportRepository analysisReportRepository;
-    private final AiService aiService;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final DiffCacheService diffCacheService;
+    private final MeterRegistry meterRegistry;
+    private final PlatformTransactionManager transactionManager;
+    
+    @Value("${analysis.deadline.timeout:2m}")
+    private Duration timeout;
+    
+    @Value("${analysis.deadline.persist-grace:10s}")
+    private Duration persistGrace;
     
     /**
      * Analyze a service by comparing its latest spec with the previous one
      */
     public AnalysisReport analyzeService(String serviceName) {
-        log.info("Starting analysis for {}", serviceName);
-        
-        // Fetch and save current spec
-        ApiSpec currentSpec = apiSpecService.fetchAndSaveSpec(serviceName);
-        
-        Optional<ApiSpec> comparisonSpecOpt = apiSpecService.getComparisonSpec(serviceName);
-
-        if (comparisonSpecOpt.isEmpty()) {
-            log.info("Not enough history to analyze {}. Creating initial baseline.", serviceName);
-            // Auto-set first spec as baseline
-            apiSpecService.setBaseline(serviceName, currentSpec.getId());
-            return createBaselineReport(serviceName, currentSpec);
-        }
-
-        ApiSpec comparisonSpec = comparisonSpecOpt.get();
-
-        // Log which spec we're comparing against
-        if (apiSpecService.getBaselineSpec(serviceName).isPresent()) {
-            log.info("Comparing {} against BASELINE version: {}", serviceName, comparisonSpec.getVersion());
-        } else {
-            log.info("No baseline set. Comparing {} against PREVIOUS version: {}", serviceName,
-                    comparisonSpec.getVersion());
-        }
-        
-        // Compare specs and detect breaking changes
-        List<BreakingChange> breakingChanges = compareSpecs(comparisonSpec, currentSpec);
-
-        // Generate AI insights for each breaking change
-        if (!breakingChanges.isEmpty()) {
-            log.info("Generating AI insights for {} breaking changes", breakingChanges.size());
-
-            // Get all latest specs for impact prediction
-            List<ApiSpec> allSpecs = apiSpecService.getAllLatestSpecs();
-
-            for (BreakingChange change : breakingChanges) {
-                try {
-                    log.info("Generating AI insights for: {}", change.getDescription());
-
-                    // Generate backward-compatible suggestion
-                    String suggestion = aiService.generateSuggestion(change);
-                    change.setAiSuggestion(suggestion);
-
-                    // Predict impact on other services
-                    String impact = aiService.predictImpact(change, allSpecs);
-                    change.setPredictedImpact(impact);
-
-                    // Generate plain English explanation
-                    String explanation = aiService.explainInPlainEnglish(change);
-                    change.setPlainEnglishExplanation(explanation);
-
-                    log.info("AI insights generated successfully for change ID: {}", change.getId());
-
-                } catch (Exception e) {
-                    log.error("Failed to generate AI insights for change: {}. Error: {}",
-                            change.getDescription(), e.getMessage());
-                    // Continue with other changes even if AI fails for one
-                    change.setAiSuggestion("AI analysis unavailable: " + e.getMessage());
-                    change.setPredictedImpact("AI analysis unavailable: " + e.getMessage());
-                    change.setPlainEnglishExplanation("AI analysis unavailable: " + e.getMessage());
-                }
-            }
-
-            // Save breaking changes (now with AI insights)
-            breakingChangeService.saveAll(breakingChanges);
-        }
-        
-        // Create and save analysis report
-        AnalysisReport report = createAnalysisReport(serviceName, comparisonSpec, currentSpec, breakingChanges);
-        analysisReportRepository.save(report);
-        
-        log.info("Analysis complete for {}. Found {} breaking changes. Compared against: {}",
-                serviceName,
-                breakingChanges.size(),
-                apiSpecService.getBaselineSpec(serviceName).isPresent() ? "BASELINE" : "previous version");
-
-        return report;
+        return analyzeService(serviceName, AiCallScheduler.Priority.INTERACTIVE);
     }
     
     /**
-     * Compare two API specs and detect breaking changes
+     * Analyze a service; aiPriority orders its AI enrichment against other queued work
      */
-    private List<BreakingChange> compareSpecs(ApiSpec oldSpec, ApiSpec newSpec) {
-        List<BreakingChange> changes = new ArrayList<>();
-        
-        try {
-            JsonNode oldJson = objectMapper.readTree(oldSpec.getSpecContent());
-            JsonNode newJson = objectMapper.readTree(newSpec.getSpecContent());
-            
-            // Compare paths (endpoints)
-            changes.addAll(comparePaths(oldJson, newJson, oldSpec, newSpec));
-            
-            // Compare schemas (data models)
-            changes.addAll(compareSchemas(oldJson, newJson, oldSpec, newSpec));
-            
-        } catch (Exception e) {
-            log.error("Error comparing specs: {}", e.getMessage(), e);
-        }
-        
-        return changes;
+    public AnalysisReport analyzeService(String serviceName, AiCallScheduler.Priority aiPriority) {
+        return analyze(serviceName, aiPriority).report();
     }
     
     /**
-     * Compare API paths (endpoints)
+     * Analyze a service and queue AI enrichment for new breaking changes, returning the full outcome
      */
-    private List<BreakingChange> comparePaths(JsonNode oldJson, JsonNode newJson, 
-                                               ApiSpec oldSpec, ApiSpec newSpec) {
-        List<BreakingChange> changes = new ArrayList<>();
-        
-        JsonNode oldPaths = oldJson.path("paths");
-        JsonNode newPaths = newJson.path("paths");
-        
-        if (oldPaths.isMissingNode() || newPaths.isMissingNode()) {
-            return changes;
-        }
-        
-        // Check for removed endpoints
-        Iterator<String> fieldNames = oldPaths.fieldNames();
-        while (fieldNames.hasNext()) {
-            String path = fieldNames.next();
-            
-            if (!newPaths.has(path)) {
-                // Endpoint was removed - BREAKING CHANGE
-                BreakingChange change = new BreakingChange();
-                change.setServiceName(oldSpec.getServiceName());
-                change.setChangeType(BreakingChange.ChangeType.ENDPOINT_REMOVED);
-                change.setPath(path);
-                change.setDescription("Endpoint '" + path + "' was removed");
-                change.setOldVersion(oldSpec.getVersion());
-                change.setNewVersion(newSpec.getVersion());
-                changes.add(change);
-                
-                log.warn("BREAKING: Endpoint removed: {}", path);
-            } else {
-                // Endpoint exists, check HTTP methods
-                changes.addAll(compareMethods(path, oldPaths.get(path), newPaths.get(path), 
-                                             oldSpec, newSpec));
-            }
-        }
-        
-        return changes;
+    public AnalysisOutcome analyze(String serviceName, AiCallScheduler.Priority aiPriority) {
+        return analyze(serviceName, aiPriority, AnalysisProgress.NONE);
     }
     
     /**
-     * Compare HTTP methods within an endpoint
+     * Like {@link #analyze(String, AiCallScheduler.Priority)}, reporting each phase as it starts
      */
-    private List<BreakingChange> compareMethods(String path, JsonNode oldEndpoint, 
-                                                 JsonNode newEndpoint, 
-                                                 ApiSpec oldSpec, ApiSpec newSpec) {
-        List<BreakingChange> changes = new ArrayList<>();
-        
-        String[] methods = {"get", "post", "put", "delete", "patch"};
-        
-        for (String method : methods) {
-            if (oldEndpoint.has(method) && !newEndpoint.has(method)) {
-                // HTTP method was removed - BREAKING CHANGE
-                BreakingChange change = new BreakingChange();
-                change.setServiceName(oldSpec.getServiceName());
-                change.setChangeType(BreakingChange.ChangeType.METHOD_REMOVED);
-                change.setPath(path);
-                change.setDescription("HTTP method '" + method.toUpperCase() + "' removed from '" + path + "'");
-                change.setOldVersion(oldSpec.getVersion());
-                change.setNewVersion(newSpec.getVersion());
-                changes.add(change);
-                
-                log.warn("BREAKING: Method removed: {} {}", method.toUpperCase(), path);
-            }
-        }
-        
-        return changes;
+    public AnalysisOutcome analyze(String serviceName, AiCallScheduler.Priority aiPriority,
+                                   AnalysisProgress progress) {
+        return runAnalysis(serviceName, aiPriority, true, progress);
     }
     
     /**
-     * Compare schemas (data models)
+     * Analyze a service without queuing AI enrichment; the caller is responsible for
+     * enriching the returned new breaking changes (they are saved as PENDING)
      */
-    private List<BreakingChange> compareSchemas(JsonNode oldJson, JsonNode newJson, 
-                                                 ApiSpec oldSpec, ApiSpec newSpec) {
-        List<BreakingChange> changes = new ArrayList<>();
-        
-        JsonNode oldSchemas = oldJson.path("components").path("schemas");
-        JsonNode newSchemas = newJson.path("components").path("schemas");
+    public AnalysisOutcome analyzeWithoutEnrichment(String serviceName) {
+        return runAnalysis(serviceName, AiCallScheduler.Priority.INTERACTIVE, false, AnalysisProgress.NONE);
+    }
+    
+    /**
+     * Runs the phases in order under a deadline: the caller's, if it set one, else
+     * analysis.deadline.timeout from now. Only the persist phase holds a transaction for more than
+     * a single statement; fetching and diffing run without one, and enrichment happens after commit.
+     */
+    private AnalysisOutcome runAnalysis(String serviceName, AiCallScheduler.Priority aiPriority,
+                                        boolean queueEnrichment, AnalysisProgress progress) {
+        Deadline deadline = Deadline.current().isBounded() ? Deadline.current() : Deadline.after(timeout);
+        return Deadline.callWith(deadline,
+                () -> runPhases(serviceName, aiPriority, queueEnrichment, progress, deadline));
+    }
+    
+    private AnalysisOutcome runPhases(String serviceName, AiCallScheduler.Priority aiPriority,
+                                      boolean queueEnrichment, AnalysisProgress progress, Deadline deadline) {
+        log.info("Starting analysis for {}", serviceName);
         
-        if (oldSchemas.isMissingNode() || newSchemas.isMissingNode()) {
-            return changes;
+        AnalysisRun run;
+        try {
+            run = timed(AnalysisPhase.FETCH, progress, () -> fetch(serviceName));
+        } catch (DeadlineExceededException e) {
+            return timedOut(serviceName, AnalysisPhase.FETCH);
         }
         
-        // Check each schema
-        Iterator<String> schemaNames = oldSchemas.fieldNames();
-        while (schemaNames.hasNext()) {
-            String schemaName = schemaNames.next();
-            
-            if (!newSchemas.has(schemaName)) {
-                // Schema was removed - BREAKING CHANGE
-                BreakingChange change = new BreakingChange();
-                change.setServiceName(oldSpec.getServiceName());
-                change.setChangeType(BreakingChange.ChangeType.SCHEMA_REMOVED);
-                change.setPath("/components/schemas/" + schemaName);
-                change.setDescription("Schema '" + schemaName + "' was removed");
-                change.setOldVersion(oldSpec.getVersion());
-                change.setNewVersion(newSpec.getVersion());
-                changes.add(change);
-                
-                log.warn("BREAKING: Schema removed: {}", schemaName);
-            } else {
-                // Schema exists, check properties
-                changes.addAll(compareSchemaProperties(schemaName, 
-                                                      oldSchemas.get(schemaName), 
-                                                      newSchemas.get(schemaName), 
-                                                      oldSpec, newSpec));
-            }
+        if (run.isInitial()) {
+            log.info("Not enough history to analyze {}. Creating initial baseline.", serviceName);
+            return persistPhase(serviceName, progress, deadline,
+                    () -> analysisPersistenceService.persistBaseline(run));
+        }
+        log.info("Comparing {} against {} version: {}", serviceName, run.comparedAgainst(),
+                run.comparisonSpec().getVersion());
+        
+        // Stops early at the deadline; whatever was found is still persisted, as TIMED_OUT
+        SpecDiff diff = timed(AnalysisPhase.DIFF, progress,
+                () -> diffCacheService.compare(run.comparisonSpec(), run.currentSpec()));
+        if (diff.isTruncated()) {
+            log.warn("Diff of {} cut short by its deadline", serviceName);
+            meterRegistry.counter("analysis.timed-out", "phase", "diff").increment();
         }
         
-        return changes;
+        // Enrich phase: queued by persist and run by AiEnrichmentWorker after commit,
+        // or left to the caller when queueEnrichment is off
+        AnalysisOutcome outcome = persistPhase(serviceName, progress, deadline,
+                () -> analysisPersistenceService.persist(run, diff, aiPriority, queueEnrichment));
+        
+        log.info("Analysis {} for {}. Found {} breaking and {} non-breaking changes. Compared against: {}",
+                diff.isTruncated() ? "timed out" : "complete",
+                serviceName,
+                diff.getBreakingChanges().size(),
+                diff.getNonBreakingChanges().size(),
+                run.comparedAgainst());
+        
+        return outcome;
     }
     
     /**
-     * Compare properties within a schema
+     * Persist phase in one transaction bounded by the remaining time. If the deadline cuts it
+     * short, the transaction rolls back and a TIMED_OUT report is saved instead.
      */
-    private List<BreakingChange> compareSchemaProperties(String schemaName, 
-                                                         JsonNode oldSchema, 
-                                                         JsonNode newSchema, 
-                                                         ApiSpec oldSpec, 
-                                                         ApiSpec newSpec) {
-        List<BreakingChange> changes = new ArrayList<>();
-        
-        JsonNode oldProperties = oldSchema.path("properties");
-        JsonNode newProperties = newSchema.path("properties");
-        
-        if (oldProperties.isMissingNode()) {
-            return changes;
-        }
-        
-        // Check for removed or changed properties
-        Iterator<String> propertyNames = oldProperties.fieldNames();
-        while (propertyNames.hasNext()) {
-            String propertyName = propertyNames.next();
-            
-            if (!newProperties.has(propertyName)) {
-                // Property was removed - BREAKING CHANGE
-                BreakingChange change = new BreakingChange();
-                change.setServiceName(oldSpec.getServiceName());
-                change.setChangeType(BreakingChange.ChangeType.FIELD_REMOVED);
-                change.setPath("/components/schemas/" + schemaName);
-                change.setDescription("Field '" + propertyName + "' removed from '" + schemaName + "' schema");
-                change.setOldVersion(oldSpec.getVersion());
-                change.setNewVersion(newSpec.getVersion());
-                changes.add(change);
-                
-                log.warn("BREAKING: Field removed: {}.{}", schemaName, propertyName);
-            } else {
-                // Check if type changed
-                JsonNode oldProperty = oldProperties.get(propertyName);
-                JsonNode newProperty = newProperties.get(propertyName);
-                
-                String oldType = oldProperty.path("type").asText("");
-                String newType = newProperty.path("type").asText("");
-                
-                if (!oldType.isEmpty() && !newType.isEmpty() && !oldType.equals(newType)) {
-                    // Type changed - BREAKING CHANGE
-                    BreakingChange change = new BreakingChange();
-                    change.setServiceName(oldSpec.getServiceName());
-                    change.setChangeType(BreakingChange.ChangeType.TYPE_CHANGED);
-                    change.setPath("/components/schemas/" + schemaName);
-                    change.setDescription("Field '" + propertyName + "' type changed from '" + 
-                                        oldType + "' to '" + newType + "' in '" + schemaName + "' schema");
-                    change.setOldVersion(oldSpec.getVersion());
-                    change.setNewVersion(newSpec.getVersion());
-                    changes.add(change);
-                    
-                    log.warn("BREAKING: Type changed: {}.{} from {} to {}", 
-                            schemaName, propertyName, oldType, newType);
-                }
+    private AnalysisOutcome persistPhase(String serviceName, AnalysisProgress progress, Deadline deadline,
+                                         Supplier<AnalysisOutcome> persist) {
+        try {
+            return timed(AnalysisPhase.PERSIST, progress, () -> inTransaction(deadline, persist));
+        } catch (RuntimeException e) {
+            if (!deadline.isExpired()) {
+                throw e;
             }
+            return timedOut(serviceName, AnalysisPhase.PERSIST);
         }
-        
-        return changes;
+    }
+    
+    private AnalysisOutcome timedOut(String serviceName, AnalysisPhase phase) {
+        log.warn("Analysis of {} exceeded its deadline during {}", serviceName, phase);
+        meterRegistry.counter("analysis.timed-out", "phase", phase.name().toLowerCase()).increment();
+        return inTransaction(Deadline.none(), () -> analysisPersistenceService.persistTimedOut(serviceName, phase));
     }
     
     /**
-     * Create analysis report
+     * Run work in a transaction whose timeout (applied to every statement) is the time left;
+     * a run that is already out of time gets the persist grace period to save what it has
      */
-    private AnalysisReport createAnalysisReport(String serviceName, ApiSpec oldSpec, 
-                                               ApiSpec newSpec, List<BreakingChange> changes) {
-        AnalysisReport report = new AnalysisReport();
-        report.setServiceName(serviceName);
-        report.setBreakingChangesCount(changes.size());
-        report.setNonBreakingChangesCount(0);  // TODO: Implement non-breaking change detection
-        
-        StringBuilder summary = new StringBuilder();
-        summary.append(String.format("Analysis of %s: %s → %s\n", 
-                                    serviceName, oldSpec.getVersion(), newSpec.getVersion()));
-        summary.append(String.format("Breaking changes: %d\n", changes.size()));
-        
-        if (!changes.isEmpty()) {
-            summary.append("\nBreaking changes detected:\n");
-            changes.forEach(change -> 
-                summary.append(String.format("- %s at %s: %s\n", 
-                                           change.getChangeType(), 
-                                           change.getPath(), 
-                                           change.getDescription()))
-            );
-        }
-        
-        report.setSummary(summary.toString());
-        return report;
+    private <T> T inTransaction(Deadline deadline, Supplier<T> work) {
+        Duration budget = deadline.isBounded() && !deadline.isExpired() ? deadline.remaining() : persistGrace;
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setTimeout((int) Math.max(1, (budget.toMillis() + 999) / 1000));
+        return transaction.execute(status -> work.get());
     }
     
     /**
-     * Create baseline report for first analysis
+     * Fetch phase: download and save the current spec, then resolve what it is compared against
      */
-    private AnalysisReport createBaselineReport(String serviceName, ApiSpec spec) {
-        AnalysisReport report = new AnalysisReport();
-        report.setServiceName(serviceName);
-        report.setBreakingChangesCount(0);
-        report.setNonBreakingChangesCount(0);
-        report.setSummary("Baseline spec saved for " + serviceName + ". Version: " + spec.getVersion());
+    private AnalysisRun fetch(String serviceName) {
+        ApiSpec currentSpec = apiSpecService.fetchAndSaveSpec(serviceName);
         
-        return analysisReportRepository.save(report);
+        Optional<ApiSpec> baseline = apiSpecService.getBaselineSpec(serviceName);
+        if (baseline.isPresent()) {
+            return new AnalysisRun(serviceName, currentSpec, baseline.get(), true);
+        }
+        ApiSpec previous = apiSpecService.getPreviousSpec(serviceName, currentSpec.getId()).orElse(null);
+        return new AnalysisRun(serviceName, currentSpec, previous, false);
+    }
+    
+    private <T> T timed(AnalysisPhase phase, AnalysisProgress progress, Supplier<T> work) {
+        progress.phaseStarted(phase);
+        return meterRegistry.timer("analysis.phase.duration", "phase", phase.name().toLowerCase()).record(work);
     }
     
     /**
@@ -360,9 +199,20 @@ public class AnalysisService {
     }
     
     /**
-     * Get all analysis reports for a service
+     * Get a report by ID; null if there is none
+     */
+    public AnalysisReport getReport(Long reportId) {
+        return reportId == null ? null : analysisReportRepository.findById(reportId).orElse(null);
+    }
+    
+    /**
+     * Get a page of a service's analysis reports, newest first, starting after the cursor
      */
-    public List<AnalysisReport> getReportHistory(String serviceName) {
-        return analysisReportRepository.findByServiceNameOrderByAnalyzedAtDesc(serviceName);
+    public KeysetPage<AnalysisReport> getReportHistory(String serviceName, PageCursor after, int limit) {
+        int size = KeysetPage.clampLimit(limit);
+        PageCursor from = PageCursor.orStart(after);
+        List<AnalysisReport> fetched = analysisReportRepository.findHistoryPage(serviceName, from.at(), from.id(),
+                PageRequest.of(0, size + 1));
+        return KeysetPage.of(fetched, size, report -> new PageCursor(report.getAnalyzedAt(), report.getId()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,175 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import com.contractmonitor.contractmonitor.util.Deadline;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Runs an analysis and reports it over Server-Sent Events as it happens.
+ *
+ * Events, in order: one "change" per detected breaking change and the "report" as soon as the
+ * diff is saved; then, for every never-seen change, "insight" events carrying text fragments
+ * (field = suggestion, impact or explanation) as the provider produces them, followed by
+ * "insight-complete"; finally "complete". Failures are reported as an "error" event.
+ *
+ * The stream enriches its own new changes instead of queuing them for the background worker.
+ * If the client goes away, changes not yet started stay PENDING for the worker's sweep.
+ */
+@Service
+@Slf4j
+public class AnalysisStreamService {
+
+    private final AnalysisCoordinator analysisCoordinator;
+    private final InsightProvider insightProvider;
+    private final AiEnrichmentWorker enrichmentWorker;
+    private final ThreadPoolTaskExecutor executor;
+
+    @Value("${analysis.stream.timeout:5m}")
+    private Duration streamTimeout;
+
+    public AnalysisStreamService(AnalysisCoordinator analysisCoordinator,
+                                 InsightProvider insightProvider,
+                                 AiEnrichmentWorker enrichmentWorker,
+                                 @Qualifier("analysisStreamExecutor") ThreadPoolTaskExecutor executor) {
+        this.analysisCoordinator = analysisCoordinator;
+        this.insightProvider = insightProvider;
+        this.enrichmentWorker = enrichmentWorker;
+        this.executor = executor;
+    }
+
+    /**
+     * Start a streamed analysis on the stream pool; events are written to the emitter.
+     * Throws TaskRejectedException when the pool is saturated.
+     */
+    public void start(String serviceName, SseEmitter emitter) {
+        // One deadline for the analysis and the AI text streamed after it
+        executor.execute(() -> Deadline.runWith(Deadline.after(streamTimeout),
+                () -> run(serviceName, new EventSink(emitter))));
+    }
+
+    private void run(String serviceName, EventSink sink) {
+        try {
+            AnalysisOutcome outcome = analysisCoordinator.analyzeWithoutEnrichment(serviceName);
+
+            Set<Long> newIds = outcome.newBreakingChanges().stream()
+                    .map(BreakingChange::getId)
+                    .collect(Collectors.toSet());
+            for (BreakingChange change : outcome.newBreakingChanges()) {
+                sink.send("change", Map.of("isNew", true, "change", change));
+            }
+            for (BreakingChange change : outcome.breakingChanges()) {
+                if (change.getId() == null || !newIds.contains(change.getId())) {
+                    sink.send("change", Map.of("isNew", false, "change", change));
+                }
+            }
+            sink.send("report", outcome.report());
+
+            for (BreakingChange change : outcome.newBreakingChanges()) {
+                if (sink.isClosed()) {
+                    log.info("Stream client for {} disconnected, leaving remaining changes to the worker",
+                            serviceName);
+                    break;
+                }
+                if (Deadline.current().isExpired()) {
+                    log.info("Streamed analysis of {} reached its deadline, leaving remaining changes to the worker",
+                            serviceName);
+                    break;
+                }
+                streamInsights(change, sink);
+            }
+
+            sink.send("complete", Map.of(
+                    "serviceName", serviceName,
+                    "breakingChanges", outcome.breakingChanges().size(),
+                    "newBreakingChanges", outcome.newBreakingChanges().size()
+            ));
+            sink.complete();
+
+        } catch (Exception e) {
+            log.error("Streamed analysis of {} failed: {}", serviceName, e.getMessage(), e);
+            sink.send("error", Map.of(
+                    "error", "Analysis failed",
+                    "message", String.valueOf(e.getMessage())
+            ));
+            sink.complete();
+        }
+    }
+
+    private void streamInsights(BreakingChange change, EventSink sink) {
+        if (enrichmentWorker.claim(List.of(change.getId())).isEmpty()) {
+            // Someone else is already enriching it
+            return;
+        }
+
+        AiInsights insights;
+        try {
+            insights = insightProvider.streamInsights(change, (field, token) -> {
+                Map<String, Object> event = new HashMap<>();
+                event.put("changeId", change.getId());
+                event.put("field", field);
+                event.put("token", token);
+                sink.send("insight", event);
+            });
+        } catch (Exception e) {
+            log.error("Failed to stream AI insights for change {}: {}", change.getId(), e.getMessage());
+            insights = AiInsights.unavailable(e.getMessage());
+        }
+
+        enrichmentWorker.complete(change.getId(), insights);
+        sink.send("insight-complete", Map.of(
+                "changeId", change.getId(),
+                "failed", insights.failed()
+        ));
+    }
+
+    /**
+     * Wraps the emitter so a disconnected client only stops delivery, not the analysis
+     */
+    private static class EventSink {
+
+        private final SseEmitter emitter;
+        private volatile boolean closed;
+
+        EventSink(SseEmitter emitter) {
+            this.emitter = emitter;
+            emitter.onCompletion(() -> closed = true);
+            emitter.onTimeout(() -> closed = true);
+            emitter.onError(e -> closed = true);
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        synchronized void send(String name, Object data) {
+            if (closed) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().name(name).data(data));
+            } catch (IOException | IllegalStateException e) {
+                closed = true;
+            }
+        }
+
+        synchronized void complete() {
+            if (!closed) {
+                closed = true;
+                emitter.complete();
+            }
+        }
+    }
+}
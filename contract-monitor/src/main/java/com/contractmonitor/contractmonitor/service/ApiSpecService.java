@@ -2,13 +2,17 @@ package com.contractmonitor.contractmonitor.service;
 
 import com.contractmonitor.contractmonitor.entity.ApiSpec;
 import com.contractmonitor.contractmonitor.repository.ApiSpecRepository;
+import com.contractmonitor.contractmonitor.util.KeysetPage;
+import com.contractmonitor.contractmonitor.util.PageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,10 +24,13 @@ public class ApiSpecService {
     
     private final ApiSpecRepository apiSpecRepository;
     private final OpenApiClient openApiClient;
+    private final ApplicationEventPublisher eventPublisher;
     
     /**
-     * Fetch and save the current OpenAPI spec from a service
+     * Fetch and save the current OpenAPI spec from a service. The HTTP fetch runs outside
+     * any transaction; only the insert holds a connection.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ApiSpec fetchAndSaveSpec(String serviceName) {
         log.info("Fetching and saving spec for {}", serviceName);
         
@@ -40,6 +47,7 @@ public class ApiSpecService {
         apiSpec.setSpecContent(specContent);
         
         ApiSpec saved = apiSpecRepository.save(apiSpec);
+        eventPublisher.publishEvent(new ReferenceSpecChangedEvent(serviceName));
         log.info("Saved spec for {} with version {}", serviceName, version);
         
         return saved;
@@ -49,14 +57,18 @@ public class ApiSpecService {
      * Get the most recent spec for a service
      */
     public Optional<ApiSpec> getLatestSpec(String serviceName) {
-        return apiSpecRepository.findTopByServiceNameOrderByFetchedAtDesc(serviceName);
+        return apiSpecRepository.findTopByServiceNameOrderByFetchedAtDescIdDesc(serviceName);
     }
     
     /**
-     * Get all specs for a service (history)
+     * Get a page of a service's spec history, newest first, starting after the cursor
      */
-    public List<ApiSpec> getSpecHistory(String serviceName) {
-        return apiSpecRepository.findByServiceNameOrderByFetchedAtDesc(serviceName);
+    public KeysetPage<ApiSpec> getSpecHistory(String serviceName, PageCursor after, int limit) {
+        int size = KeysetPage.clampLimit(limit);
+        PageCursor from = PageCursor.orStart(after);
+        List<ApiSpec> fetched = apiSpecRepository.findHistoryPage(serviceName, from.at(), from.id(),
+                PageRequest.of(0, size + 1));
+        return KeysetPage.of(fetched, size, spec -> new PageCursor(spec.getFetchedAt(), spec.getId()));
     }
     
     /**
@@ -80,6 +92,13 @@ public class ApiSpecService {
         return history.subList(0, 2);  // Returns [newest, second-newest]
     }
     
+    /**
+     * Most recent spec of a service other than the given one, without loading its history
+     */
+    public Optional<ApiSpec> getPreviousSpec(String serviceName, Long currentSpecId) {
+        return apiSpecRepository.findTopByServiceNameAndIdNotOrderByFetchedAtDescIdDesc(serviceName, currentSpecId);
+    }
+    
     /**
      * Delete old specs (keep only last N versions)
      */
@@ -122,14 +141,8 @@ public class ApiSpecService {
     public List<ApiSpec> getAllLatestSpecs() {
         log.info("Fetching all latest specs for all services");
 
-        // Get distinct service names
-        List<String> serviceNames = apiSpecRepository.findDistinctServiceNames();
-
-        List<ApiSpec> latestSpecs = new ArrayList<>();
-        for (String serviceName : serviceNames) {
-            apiSpecRepository.findTopByServiceNameOrderByFetchedAtDesc(serviceName)
-                    .ifPresent(latestSpecs::add);
-        }
+        // One query for all services instead of one per service
+        List<ApiSpec> latestSpecs = apiSpecRepository.findLatestPerService();
 
         log.info("Found latest specs for {} services", latestSpecs.size());
         return latestSpecs;
@@ -166,6 +179,7 @@ public class ApiSpecService {
         spec.setBaselineSetAt(LocalDateTime.now());
         
         ApiSpec saved = apiSpecRepository.save(spec);
+        eventPublisher.publishEvent(new ReferenceSpecChangedEvent(serviceName));
         log.info("Successfully set baseline for {} at version {}", serviceName, spec.getVersion());
         
         return saved;
@@ -189,6 +203,7 @@ public class ApiSpecService {
     public void clearBaseline(String serviceName) {
         log.info("Clearing baseline for {}", serviceName);
         apiSpecRepository.clearBaseline(serviceName);
+        eventPublisher.publishEvent(new ReferenceSpecChangedEvent(serviceName));
     }
     
     /**
@@ -0,0 +1,88 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.ApiSpec;
+import com.contractmonitor.contractmonitor.repository.ApiSpecRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parsed reference spec (baseline, or latest when no baseline is set) per service.
+ *
+ * Entries are evicted locally once a transaction that changes a baseline or stores a spec has
+ * committed, and expire after a short TTL so changes made by other replicas are picked up.
+ */
+@Service
+@Slf4j
+public class BaselineCache {
+    
+    private final ApiSpecRepository apiSpecRepository;
+    private final SpecDiffEngine specDiffEngine;
+    private final Duration ttl;
+    private final Map<String, CachedBaseline> cache = new ConcurrentHashMap<>();
+    
+    public BaselineCache(ApiSpecRepository apiSpecRepository,
+                         SpecDiffEngine specDiffEngine,
+                         @Value("${analysis.check.baseline-cache-ttl:60s}") Duration ttl) {
+        this.apiSpecRepository = apiSpecRepository;
+        this.specDiffEngine = specDiffEngine;
+        this.ttl = ttl;
+    }
+    
+    /**
+     * Reference spec with its parsed JSON tree; the tree must be treated as read-only
+     */
+    public record CachedBaseline(ApiSpec spec, JsonNode json, boolean baseline, Instant loadedAt) {
+    }
+    
+    /**
+     * Get the cached reference spec for a service, loading it on a miss or after expiry
+     */
+    public Optional<CachedBaseline> get(String serviceName) {
+        CachedBaseline cached = cache.get(serviceName);
+        if (cached != null && cached.loadedAt().plus(ttl).isAfter(Instant.now())) {
+            return Optional.of(cached);
+        }
+        
+        Optional<CachedBaseline> loaded = load(serviceName);
+        loaded.ifPresentOrElse(entry -> cache.put(serviceName, entry), () -> cache.remove(serviceName));
+        return loaded;
+    }
+    
+    /**
+     * Drop the cached reference spec for a service
+     */
+    public void evict(String serviceName) {
+        cache.remove(serviceName);
+    }
+    
+    /**
+     * Evict after commit; evicting earlier lets a concurrent check reload and cache the old reference
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onReferenceSpecChanged(ReferenceSpecChangedEvent event) {
+        evict(event.serviceName());
+    }
+    
+    private Optional<CachedBaseline> load(String serviceName) {
+        Optional<ApiSpec> baseline = apiSpecRepository.findByServiceNameAndIsBaselineTrue(serviceName);
+        Optional<ApiSpec> reference = baseline.isPresent()
+                ? baseline
+                : apiSpecRepository.findTopByServiceNameOrderByFetchedAtDescIdDesc(serviceName);
+        
+        return reference.map(spec -> {
+            log.info("Caching {} spec {} for {}", baseline.isPresent() ? "baseline" : "latest",
+                    spec.getVersion(), serviceName);
+            return new CachedBaseline(spec, specDiffEngine.parse(spec), baseline.isPresent(), Instant.now());
+        });
+    }
+}
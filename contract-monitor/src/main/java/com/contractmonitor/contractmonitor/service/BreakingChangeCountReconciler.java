@@ -0,0 +1,35 @@
+package com.contractmonitor.contractmonitor.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Rebuilds the breaking change counters on startup (the table starts empty on an existing
+ * install) and periodically, to undo any drift from rows changed outside the application.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BreakingChangeCountReconciler {
+    
+    private final BreakingChangeService breakingChangeService;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        reconcile();
+    }
+    
+    @Scheduled(fixedDelayString = "${statistics.counters.reconcile-interval-ms:86400000}",
+               initialDelayString = "${statistics.counters.reconcile-interval-ms:86400000}")
+    public void reconcile() {
+        try {
+            breakingChangeService.rebuildCounts();
+        } catch (Exception e) {
+            log.error("Could not rebuild breaking change counters: {}", e.getMessage(), e);
+        }
+    }
+}
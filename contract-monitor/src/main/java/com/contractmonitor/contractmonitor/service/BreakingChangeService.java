@@ -1,14 +1,24 @@
 package com.contractmonitor.contractmonitor.service;
 
+import com.contractmonitor.contractmonitor.dto.BreakingChangeSummary;
 import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import com.contractmonitor.contractmonitor.entity.BreakingChangeCount;
+import com.contractmonitor.contractmonitor.repository.BreakingChangeCountRepository;
 import com.contractmonitor.contractmonitor.repository.BreakingChangeRepository;
+import com.contractmonitor.contractmonitor.util.KeysetPage;
+import com.contractmonitor.contractmonitor.util.PageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,6 +28,7 @@ import java.util.stream.Collectors;
 public class BreakingChangeService {
     
     private final BreakingChangeRepository breakingChangeRepository;
+    private final BreakingChangeCountRepository breakingChangeCountRepository;
     
     /**
      * Save a breaking change
@@ -27,6 +38,7 @@ public class BreakingChangeService {
                 breakingChange.getChangeType(), 
                 breakingChange.getServiceName(), 
                 breakingChange.getPath());
+        countNew(List.of(breakingChange));
         return breakingChangeRepository.save(breakingChange);
     }
     
@@ -35,28 +47,128 @@ public class BreakingChangeService {
      */
     public List<BreakingChange> saveAll(List<BreakingChange> changes) {
         log.info("Recording {} breaking changes", changes.size());
+        countNew(changes);
         return breakingChangeRepository.saveAll(changes);
     }
     
     /**
-     * Get all breaking changes for a service
+     * Add not-yet-saved changes to the per-service, per-type counters
      */
-    public List<BreakingChange> getByServiceName(String serviceName) {
-        return breakingChangeRepository.findByServiceNameOrderByDetectedAtDesc(serviceName);
+    private void countNew(List<BreakingChange> changes) {
+        changes.stream()
+                .filter(change -> change.getId() == null)
+                .collect(Collectors.groupingBy(
+                        change -> new BreakingChangeCount.Key(change.getServiceName(), change.getChangeType()),
+                        Collectors.counting()))
+                .forEach((key, delta) -> breakingChangeCountRepository.increment(
+                        key.getServiceName(), key.getChangeType().name(), delta));
     }
     
     /**
-     * Get breaking changes by type
+     * Recompute all counters from the breaking_changes table. Exact even with analyses
+     * running: they wait on the counter table lock until the rebuild commits.
      */
-    public List<BreakingChange> getByType(BreakingChange.ChangeType changeType) {
-        return breakingChangeRepository.findByChangeType(changeType);
+    public void rebuildCounts() {
+        breakingChangeCountRepository.lockForRebuild();
+        breakingChangeCountRepository.deleteAllCounts();
+        int rows = breakingChangeCountRepository.insertFromBreakingChanges();
+        log.info("Rebuilt breaking change counters ({} service/type pairs)", rows);
     }
-
+    
+    /**
+     * Record the breaking changes detected by one analysis run, keyed by fingerprint.
+     * Changes seen before get their lastSeen and newVersion bumped instead of a duplicate row, and
+     * a RESOLVED one that reappears is re-activated as a regression (IGNORED and ACKNOWLEDGED stay).
+     * Returns only the changes inserted by this run, saved and in detection order.
+     */
+    public List<BreakingChange> recordDetected(List<BreakingChange> detected) {
+        Map<String, BreakingChange> byFingerprint = new LinkedHashMap<>();
+        for (BreakingChange change : detected) {
+            change.setFingerprint(change.computeFingerprint());
+            byFingerprint.putIfAbsent(change.getFingerprint(), change);
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> insertedIds = new ArrayList<>();
+        List<BreakingChange> inserted = new ArrayList<>();
+        for (BreakingChange change : byFingerprint.values()) {
+            BreakingChangeRepository.UpsertedChange row = breakingChangeRepository.upsertSeen(
+                    change.getServiceName(), change.getChangeType().name(), change.getPath(),
+                    change.getDescription(), change.getOldVersion(), change.getNewVersion(),
+                    change.getFingerprint(), now);
+            if (row.isInserted()) {
+                insertedIds.add(row.getId());
+                inserted.add(change);
+            }
+        }
+        countNew(inserted);
+        
+        log.info("Detected {} breaking changes: {} already known, {} new",
+                detected.size(), byFingerprint.size() - inserted.size(), inserted.size());
+        if (insertedIds.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<Long, BreakingChange> saved = breakingChangeRepository.findAllById(insertedIds).stream()
+                .collect(Collectors.toMap(BreakingChange::getId, change -> change));
+        return insertedIds.stream().map(saved::get).toList();
+    }
+    
+    /**
+     * Store the outcome of an enrichment attempt. Failed attempts go back to PENDING
+     * until maxAttempts is reached, then the change is marked FAILED with placeholder text.
+     */
+    public BreakingChange completeEnrichment(Long changeId, AiInsights insights, int maxAttempts) {
+        BreakingChange change = breakingChangeRepository.findById(changeId)
+                .orElseThrow(() -> new RuntimeException("Breaking change not found with ID: " + changeId));
+        
+        int attempts = change.getEnrichmentAttempts() == null ? 0 : change.getEnrichmentAttempts();
+        change.setEnrichmentAttempts(attempts + 1);
+        change.setEnrichmentUpdatedAt(LocalDateTime.now());
+        
+        if (!insights.failed()) {
+            insights.applyTo(change);
+            change.setEnrichmentStatus(BreakingChange.EnrichmentStatus.COMPLETED);
+        } else if (change.getEnrichmentAttempts() < maxAttempts) {
+            change.setEnrichmentStatus(BreakingChange.EnrichmentStatus.PENDING);
+            log.warn("AI enrichment attempt {} failed for change {}, will retry",
+                    change.getEnrichmentAttempts(), changeId);
+        } else {
+            insights.applyTo(change);
+            change.setEnrichmentStatus(BreakingChange.EnrichmentStatus.FAILED);
+            log.error("AI enrichment failed for change {} after {} attempts", changeId, maxAttempts);
+        }
+        
+        return breakingChangeRepository.save(change);
+    }
+    
+    /**
+     * Get a breaking change with its AI text and resolution notes
+     */
+    public Optional<BreakingChange> getById(Long changeId) {
+        return breakingChangeRepository.findById(changeId);
+    }
+    
     /**
-     * Get breaking changes by service and type
+     * Get a page of a service's breaking changes, newest first, starting after the cursor
      */
-    public List<BreakingChange> getBreakingChangesByType(String serviceName, BreakingChange.ChangeType changeType) {
-        return breakingChangeRepository.findByServiceNameAndChangeType(serviceName, changeType);
+    public KeysetPage<BreakingChangeSummary> getByServiceName(String serviceName, PageCursor after, int limit) {
+        int size = KeysetPage.clampLimit(limit);
+        PageCursor from = PageCursor.orStart(after);
+        return page(breakingChangeRepository.findPageByServiceName(serviceName, from.at(), from.id(),
+                PageRequest.of(0, size + 1)), size);
+    }
+    
+    /**
+     * Get a page of breaking changes by service and type
+     */
+    public KeysetPage<BreakingChangeSummary> getBreakingChangesByType(String serviceName,
+                                                                      BreakingChange.ChangeType changeType,
+                                                                      PageCursor after, int limit) {
+        int size = KeysetPage.clampLimit(limit);
+        PageCursor from = PageCursor.orStart(after);
+        return page(breakingChangeRepository.findPageByServiceNameAndChangeType(serviceName, changeType,
+                from.at(), from.id(), PageRequest.of(0, size + 1)), size);
     }
     
     /**
@@ -67,34 +179,26 @@ public class BreakingChangeService {
     }
     
     /**
-     * Get all breaking changes across all services
+     * Get a page of breaking changes across all services
      */
-    public List<BreakingChange> getAllBreakingChanges() {
-        return breakingChangeRepository.findAll();
+    public KeysetPage<BreakingChangeSummary> getAllBreakingChanges(PageCursor after, int limit) {
+        int size = KeysetPage.clampLimit(limit);
+        PageCursor from = PageCursor.orStart(after);
+        return page(breakingChangeRepository.findPage(from.at(), from.id(), PageRequest.of(0, size + 1)), size);
     }
     
     /**
      * Get breaking changes grouped by type
      */
     public Map<String, Long> getBreakingChangesByType(String serviceName) {
-        List<BreakingChange> changes = breakingChangeRepository.findByServiceName(serviceName);
-        
-        return changes.stream()
-                .collect(Collectors.groupingBy(
-                        change -> change.getChangeType().toString(), // Convert enum to String
-                        Collectors.counting()));
+        return countsByType(breakingChangeCountRepository.findByKeyServiceName(serviceName));
     }
     
     /**
-     * Get recent breaking changes (last N)
+     * Get recent breaking changes (last N), or the N before the cursor
      */
-    public List<BreakingChange> getRecentChanges(String serviceName, int limit) {
-        List<BreakingChange> allChanges = breakingChangeRepository
-                .findByServiceNameOrderByDetectedAtDesc(serviceName);
-        
-        return allChanges.stream()
-                .limit(limit)
-                .collect(Collectors.toList());
+    public KeysetPage<BreakingChangeSummary> getRecentChanges(String serviceName, PageCursor after, int limit) {
+        return getByServiceName(serviceName, after, limit);
     }
     
     /**
@@ -110,6 +214,7 @@ public class BreakingChangeService {
     public void deleteAllForService(String serviceName) {
         List<BreakingChange> changes = breakingChangeRepository.findByServiceName(serviceName);
         breakingChangeRepository.deleteAll(changes);
+        breakingChangeCountRepository.deleteByServiceName(serviceName);
         log.info("Deleted {} breaking changes for {}", changes.size(), serviceName);
     }
     
@@ -117,18 +222,23 @@ public class BreakingChangeService {
      * Get summary statistics
      */
     public Map<String, Object> getStatistics() {
-        long total = breakingChangeRepository.count();
-        
-        Map<String, Long> byType = breakingChangeRepository.findAll().stream()
-                .collect(Collectors.groupingBy(
-                        change -> change.getChangeType().toString(), // Convert enum to String
-                        Collectors.counting()));
+        // One row per service and type, however many changes are stored
+        Map<String, Long> byType = countsByType(breakingChangeCountRepository.findAll());
+        long total = byType.values().stream().mapToLong(Long::longValue).sum();
         
         return Map.of(
                 "totalBreakingChanges", total,
                 "breakingChangesByType", byType
         );
     }
+    
+    private Map<String, Long> countsByType(List<BreakingChangeCount> counts) {
+        return counts.stream()
+                .filter(count -> count.getChangeCount() > 0)
+                .collect(Collectors.groupingBy(
+                        count -> count.getKey().getChangeType().toString(),
+                        Collectors.summingLong(BreakingChangeCount::getChangeCount)));
+    }
 
     /**
      * Update the status of a breaking change
@@ -157,24 +267,36 @@ public class BreakingChangeService {
     }
     
     /**
-     * Get breaking changes by status
+     * Get a page of breaking changes by status
      */
-    public List<BreakingChange> getByStatus(BreakingChange.Status status) {
-        return breakingChangeRepository.findByStatus(status);
+    public KeysetPage<BreakingChangeSummary> getByStatus(BreakingChange.Status status, PageCursor after, int limit) {
+        int size = KeysetPage.clampLimit(limit);
+        PageCursor from = PageCursor.orStart(after);
+        return page(breakingChangeRepository.findPageByStatus(status, from.at(), from.id(),
+                PageRequest.of(0, size + 1)), size);
     }
     
     /**
-     * Get breaking changes by service and status
+     * Get a page of breaking changes by service and status
      */
-    public List<BreakingChange> getByServiceNameAndStatus(String serviceName, BreakingChange.Status status) {
-        return breakingChangeRepository.findByServiceNameAndStatusOrderByDetectedAtDesc(serviceName, status);
+    public KeysetPage<BreakingChangeSummary> getByServiceNameAndStatus(String serviceName,
+                                                                       BreakingChange.Status status,
+                                                                       PageCursor after, int limit) {
+        int size = KeysetPage.clampLimit(limit);
+        PageCursor from = PageCursor.orStart(after);
+        return page(breakingChangeRepository.findPageByServiceNameAndStatus(serviceName, status,
+                from.at(), from.id(), PageRequest.of(0, size + 1)), size);
     }
     
     /**
-     * Get active breaking changes for a service
+     * Get a page of active breaking changes for a service
      */
-    public List<BreakingChange> getActiveChanges(String serviceName) {
-        return getByServiceNameAndStatus(serviceName, BreakingChange.Status.ACTIVE);
+    public KeysetPage<BreakingChangeSummary> getActiveChanges(String serviceName, PageCursor after, int limit) {
+        return getByServiceNameAndStatus(serviceName, BreakingChange.Status.ACTIVE, after, limit);
+    }
+    
+    private KeysetPage<BreakingChangeSummary> page(List<BreakingChangeSummary> fetched, int limit) {
+        return KeysetPage.of(fetched, limit, change -> new PageCursor(change.detectedAt(), change.id()));
     }
     
     /**
@@ -0,0 +1,79 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.ApiSpec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only compatibility check of a candidate spec against the cached reference spec.
+ * Nothing is written to the database and no AI calls are made.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CandidateCheckService {
+    
+    private final BaselineCache baselineCache;
+    private final SpecDiffEngine specDiffEngine;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    /**
+     * Diff a candidate spec against the service's baseline (or latest spec if no baseline is set)
+     */
+    public Map<String, Object> check(String serviceName, String candidateContent) {
+        BaselineCache.CachedBaseline reference = baselineCache.get(serviceName)
+                .orElseThrow(() -> new NoSuchElementException("No baseline or stored spec for " + serviceName));
+        
+        JsonNode candidateJson;
+        try {
+            candidateJson = objectMapper.readTree(candidateContent);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Candidate spec is not valid JSON: " + e.getMessage(), e);
+        }
+        if (candidateJson == null || !candidateJson.isObject()) {
+            throw new IllegalArgumentException("Candidate spec must be a JSON object");
+        }
+        
+        // Transient spec, never persisted
+        ApiSpec candidate = new ApiSpec();
+        candidate.setServiceName(serviceName);
+        candidate.setVersion(candidateJson.path("info").path("version").asText("candidate"));
+        
+        SpecDiff diff = specDiffEngine.compare(reference.json(), candidateJson, reference.spec(), candidate);
+        
+        log.info("Candidate check for {} against {} {}: {} breaking, {} non-breaking",
+                serviceName, reference.baseline() ? "baseline" : "latest", reference.spec().getVersion(),
+                diff.getBreakingChanges().size(), diff.getNonBreakingChanges().size());
+        
+        List<Map<String, String>> breaking = diff.getBreakingChanges().stream()
+                .map(change -> Map.of(
+                        "changeType", change.getChangeType().name(),
+                        "path", change.getPath(),
+                        "description", change.getDescription()))
+                .toList();
+        List<Map<String, String>> nonBreaking = diff.getNonBreakingChanges().stream()
+                .map(change -> Map.of(
+                        "changeType", change.getChangeType().name(),
+                        "path", change.getPath(),
+                        "description", change.getDescription()))
+                .toList();
+        
+        return Map.of(
+                "serviceName", serviceName,
+                "comparedAgainst", reference.baseline() ? "BASELINE" : "LATEST",
+                "comparedVersion", reference.spec().getVersion(),
+                "compatible", breaking.isEmpty(),
+                "breakingChangesCount", breaking.size(),
+                "nonBreakingChangesCount", nonBreaking.size(),
+                "breakingChanges", breaking,
+                "nonBreakingChanges", nonBreaking
+        );
+    }
+}
@@ -0,0 +1,544 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.ApiSpec;
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import com.contractmonitor.contractmonitor.entity.ServiceDependency;
+import com.contractmonitor.contractmonitor.repository.ApiSpecRepository;
+import com.contractmonitor.contractmonitor.repository.ServiceDependencyRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Which services call which endpoints and schemas of which other services.
+ *
+ * Edges come from two places: rows in service_dependencies, and an "x-dependencies" extension
+ * in a consumer's own stored spec, e.g.
+ * <pre>
+ * "x-dependencies": [ { "service": "user-service", "paths": ["/users/{id}"], "schemas": ["User"] } ]
+ * </pre>
+ * Provider specs add the endpoint-to-schema edges: an endpoint uses every schema its operations
+ * reference through $ref, directly or via other schemas. A schema change therefore reaches
+ * consumers of every endpoint that uses the schema.
+ *
+ * For services without declared edges, {@link #referencingServices} falls back to weaker,
+ * undeclared relations found in other specs: a schema that points at the provider's schema,
+ * either through an external $ref ("user-service.yaml#/components/schemas/User") or an
+ * "x-consumes" extension ({"x-consumes": {"service": "user-service", "schema": "User"}}, or just
+ * "user-service" for a schema of the same name), and URL fields (servers, links, "...Url"
+ * extensions) whose host names the provider and whose path is the changed endpoint.
+ *
+ * The graph is an immutable in-memory snapshot, so lookups are map reads. A stored spec only
+ * reloads and reparses its own service and a dependency change only reloads the declared rows;
+ * the whole index is read again once the refresh interval has passed, to pick up changes made
+ * by other instances.
+ */
+@Service
+@Slf4j
+public class ConsumerIndex {
+
+    static final int PATH_CONFIDENCE = 95;
+    static final int SCHEMA_CONFIDENCE = 90;
+    static final int SCHEMA_VIA_PATH_CONFIDENCE = 80;
+    static final int SERVICE_CONFIDENCE = 50;
+    static final int SCHEMA_REFERENCE_CONFIDENCE = 40;
+    static final int URL_MENTION_CONFIDENCE = 30;
+
+    private static final String SCHEMA_PREFIX = "/components/schemas/";
+    private static final String SCHEMA_REF_PREFIX = "#/components/schemas/";
+    private static final Pattern NAME_SEPARATOR = Pattern.compile("[^A-Za-z0-9_-]+");
+    // Scheme, authority, then a path that may be templated like /users/{id}
+    private static final Pattern ABSOLUTE_URL = Pattern.compile("[A-Za-z][A-Za-z0-9+.-]*://([^/?#]+)([^?#]*)(?:[?#].*)?");
+
+    private final ApiSpecRepository apiSpecRepository;
+    private final ServiceDependencyRepository dependencyRepository;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Duration refreshInterval;
+
+    // Parsed latest spec and stored dependency rows the snapshot is derived from; guarded by this
+    private final Map<String, ProviderSchemas> schemasByService = new HashMap<>();
+    private final Map<String, List<ServiceDependency>> dependenciesByProvider = new HashMap<>();
+
+    private final Set<String> changedServices = ConcurrentHashMap.newKeySet();
+    private final Set<String> changedProviders = ConcurrentHashMap.newKeySet();
+    private volatile Snapshot snapshot;
+
+    public ConsumerIndex(ApiSpecRepository apiSpecRepository,
+                         ServiceDependencyRepository dependencyRepository,
+                         @Value("${impact.graph.refresh-interval:60s}") Duration refreshInterval) {
+        this.apiSpecRepository = apiSpecRepository;
+        this.dependencyRepository = dependencyRepository;
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Mark a service's spec out of date once the transaction that stored it has committed;
+     * the next lookup reloads that service only
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onReferenceSpecChanged(ReferenceSpecChangedEvent event) {
+        changedServices.add(event.serviceName());
+    }
+
+    /**
+     * Mark a provider's declared dependency rows out of date once the change has committed;
+     * the next lookup reloads that provider's rows only
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDependencyChanged(DependencyChangedEvent event) {
+        changedProviders.add(event.providerService());
+    }
+
+    /**
+     * Consumers affected by a breaking change, highest confidence first
+     */
+    public List<ImpactedService> impactOf(BreakingChange change) {
+        Snapshot graph = current();
+        String provider = change.getServiceName();
+        Consumers consumers = graph.consumersByProvider().getOrDefault(provider, Consumers.EMPTY);
+        Map<String, ImpactedService> impacted = new LinkedHashMap<>();
+
+        switch (change.getChangeType()) {
+            case ENDPOINT_REMOVED, METHOD_REMOVED -> {
+                for (String consumer : consumers.byPath().getOrDefault(change.getPath(), Set.of())) {
+                    add(impacted, consumer, PATH_CONFIDENCE, "calls " + change.getPath());
+                }
+            }
+            case SCHEMA_REMOVED, FIELD_REMOVED, TYPE_CHANGED -> {
+                String schema = schemaName(change.getPath());
+                for (String consumer : consumers.bySchema().getOrDefault(schema, Set.of())) {
+                    add(impacted, consumer, SCHEMA_CONFIDENCE, "uses schema " + schema);
+                }
+                ProviderSchemas schemas = graph.schemasByService().getOrDefault(provider, ProviderSchemas.EMPTY);
+                for (String path : schemas.pathsBySchema().getOrDefault(schema, Set.of())) {
+                    for (String consumer : consumers.byPath().getOrDefault(path, Set.of())) {
+                        add(impacted, consumer, SCHEMA_VIA_PATH_CONFIDENCE,
+                                "calls " + path + ", which uses schema " + schema);
+                    }
+                }
+            }
+        }
+        for (String consumer : consumers.wholeService()) {
+            add(impacted, consumer, SERVICE_CONFIDENCE,
+                    "depends on " + provider + " without declaring specific endpoints");
+        }
+
+        impacted.remove(provider);
+        List<ImpactedService> result = new ArrayList<>(impacted.values());
+        result.sort(Comparator.comparingInt(ImpactedService::confidence).reversed()
+                .thenComparing(ImpactedService::serviceName));
+        return result;
+    }
+
+    /**
+     * Up to limit other services whose stored specs refer to the changed schema or endpoint of
+     * this provider without declaring a dependency: schemas pointing at it through $ref or
+     * x-consumes, or URL fields addressing the path on the provider's host. Services already in
+     * {@link #impactOf} are not repeated.
+     */
+    public List<ImpactedService> referencingServices(BreakingChange change, int limit) {
+        Snapshot graph = current();
+        String provider = change.getServiceName();
+        Set<String> known = new HashSet<>();
+        known.add(provider);
+        impactOf(change).forEach(impacted -> known.add(impacted.serviceName()));
+
+        boolean schemaChange = change.getPath().startsWith(SCHEMA_PREFIX);
+        String target = schemaChange ? schemaName(change.getPath()) : change.getPath();
+        List<Reference> references = (schemaChange ? graph.schemaReferences() : graph.urlMentions())
+                .getOrDefault(target, List.of());
+
+        List<ImpactedService> related = new ArrayList<>();
+        for (Reference reference : references) {
+            if (related.size() < limit && names(reference.location(), provider) && known.add(reference.service())) {
+                related.add(schemaChange
+                        ? new ImpactedService(reference.service(), SCHEMA_REFERENCE_CONFIDENCE,
+                                "references " + provider + "'s " + target + " schema (undeclared)")
+                        : new ImpactedService(reference.service(), URL_MENTION_CONFIDENCE,
+                                "its spec links to " + target + " on " + provider + " (undeclared)"));
+            }
+        }
+        return related;
+    }
+
+    /**
+     * Whether any consumer at all is known for the service
+     */
+    public boolean hasConsumers(String providerService) {
+        return current().consumersByProvider().containsKey(providerService);
+    }
+
+    /**
+     * Impact as text when the graph knows the service's consumers; empty when it has no data
+     */
+    public Optional<String> describeImpact(BreakingChange change) {
+        if (!hasConsumers(change.getServiceName())) {
+            return Optional.empty();
+        }
+        List<ImpactedService> impacted = impactOf(change);
+        if (impacted.isEmpty()) {
+            return Optional.of("No declared consumer of " + change.getServiceName() + " uses " + change.getPath());
+        }
+        return Optional.of("Service Name | Confidence | Reason\n" + format(impacted));
+    }
+
+    /**
+     * Render impacted services as lines of "Service Name | Confidence | Reason"
+     */
+    public static String format(List<ImpactedService> impacted) {
+        StringBuilder text = new StringBuilder();
+        for (ImpactedService service : impacted) {
+            text.append(String.format("%s | %d%% | %s%n",
+                    service.serviceName(), service.confidence(), service.reason()));
+        }
+        return text.toString();
+    }
+
+    private void add(Map<String, ImpactedService> impacted, String consumer, int confidence, String reason) {
+        ImpactedService existing = impacted.get(consumer);
+        if (existing == null || existing.confidence() < confidence) {
+            impacted.put(consumer, new ImpactedService(consumer, confidence, reason));
+        }
+    }
+
+    private String schemaName(String path) {
+        return path.startsWith(SCHEMA_PREFIX) ? path.substring(SCHEMA_PREFIX.length()) : path;
+    }
+
+    /**
+     * Whether a document reference or host names the service, e.g. "user-service.yaml" or
+     * "http://user-service:8080"
+     */
+    private static boolean names(String location, String service) {
+        return NAME_SEPARATOR.splitAsStream(location).anyMatch(service::equals);
+    }
+
+    private Snapshot current() {
+        Snapshot graph = snapshot;
+        if (graph == null || expired(graph) || !changedServices.isEmpty() || !changedProviders.isEmpty()) {
+            graph = update();
+        }
+        return graph;
+    }
+
+    private boolean expired(Snapshot graph) {
+        return graph.builtAt().plus(refreshInterval).isBefore(Instant.now());
+    }
+
+    private synchronized Snapshot update() {
+        Snapshot graph = snapshot;
+        if (graph == null || expired(graph)) {
+            return reloadAll();
+        }
+        if (changedServices.isEmpty() && changedProviders.isEmpty()) {
+            return graph;
+        }
+
+        // Taken before reading, so a change committed meanwhile triggers another update
+        Set<String> providers = Set.copyOf(changedProviders);
+        changedProviders.removeAll(providers);
+        for (String provider : providers) {
+            dependenciesByProvider.put(provider, dependencyRepository.findByProviderService(provider));
+        }
+        Set<String> services = Set.copyOf(changedServices);
+        changedServices.removeAll(services);
+        for (String service : services) {
+            Optional<ApiSpec> latest = apiSpecRepository.findTopByServiceNameOrderByFetchedAtDescIdDesc(service);
+            if (latest.isPresent()) {
+                reparseIfChanged(latest.get());
+            } else {
+                schemasByService.remove(service);
+            }
+        }
+        return publish();
+    }
+
+    private Snapshot reloadAll() {
+        changedServices.clear();
+        changedProviders.clear();
+
+        long started = System.nanoTime();
+        List<ApiSpec> latestSpecs = apiSpecRepository.findLatestPerService();
+        Set<String> seen = new HashSet<>();
+        for (ApiSpec spec : latestSpecs) {
+            seen.add(spec.getServiceName());
+            reparseIfChanged(spec);
+        }
+        schemasByService.keySet().retainAll(seen);
+        dependenciesByProvider.clear();
+        for (ServiceDependency dependency : dependencyRepository.findAll()) {
+            dependenciesByProvider.computeIfAbsent(dependency.getProviderService(), key -> new ArrayList<>()).add(dependency);
+        }
+
+        Snapshot graph = publish();
+        log.info("Consumer index reloaded: {} specs, {} providers with consumers in {} ms",
+                latestSpecs.size(), graph.consumersByProvider().size(), (System.nanoTime() - started) / 1_000_000);
+        return graph;
+    }
+
+    private void reparseIfChanged(ApiSpec spec) {
+        ProviderSchemas cached = schemasByService.get(spec.getServiceName());
+        if (cached == null || !cached.contentHash().equals(String.valueOf(spec.getContentHash()))) {
+            schemasByService.put(spec.getServiceName(), parse(spec));
+        }
+    }
+
+    /**
+     * Derive the lookup maps from the parsed specs and dependency rows held in memory
+     */
+    private Snapshot publish() {
+        Map<String, Consumers.Builder> builders = new HashMap<>();
+        schemasByService.values().forEach(schemas -> schemas.declared().forEach(dependency -> addEdge(builders, dependency)));
+        dependenciesByProvider.values().forEach(dependencies -> dependencies.forEach(dependency -> addEdge(builders, dependency)));
+
+        Map<String, Consumers> consumers = new HashMap<>();
+        builders.forEach((provider, builder) -> consumers.put(provider, builder.build()));
+
+        // Inverted indexes for referencingServices, in service order
+        Map<String, List<Reference>> schemaReferences = new HashMap<>();
+        Map<String, List<Reference>> urlMentions = new HashMap<>();
+        new TreeMap<>(schemasByService).forEach((service, schemas) -> {
+            schemas.schemaReferences().forEach(reference -> schemaReferences
+                    .computeIfAbsent(reference.target(), key -> new ArrayList<>())
+                    .add(new Reference(service, reference.location())));
+            schemas.urlMentions().forEach(url -> urlMentions
+                    .computeIfAbsent(url.target(), key -> new ArrayList<>())
+                    .add(new Reference(service, url.location())));
+        });
+
+        Snapshot graph = new Snapshot(Map.copyOf(schemasByService), Map.copyOf(consumers),
+                Map.copyOf(schemaReferences), Map.copyOf(urlMentions), Instant.now());
+        snapshot = graph;
+        return graph;
+    }
+
+    private void addEdge(Map<String, Consumers.Builder> builders, ServiceDependency dependency) {
+        builders.computeIfAbsent(dependency.getProviderService(), provider -> new Consumers.Builder())
+                .add(dependency.getConsumerService(), dependency.getPath(), dependency.getSchemaName());
+    }
+
+    /**
+     * Read a spec's endpoint-to-schema edges and its own x-dependencies declarations
+     */
+    private ProviderSchemas parse(ApiSpec spec) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(spec.getSpecContent());
+        } catch (Exception e) {
+            log.warn("Skipping unparseable spec {} for {} in consumer index", spec.getVersion(), spec.getServiceName());
+            return new ProviderSchemas(String.valueOf(spec.getContentHash()), Map.of(), List.of(), Set.of(), Set.of());
+        }
+
+        // Schema -> schemas it references, and schemas of other services it points at
+        Map<String, Set<String>> schemaRefs = new HashMap<>();
+        Set<Mention> schemaReferences = new HashSet<>();
+        collectExternalRefs(root, schemaReferences);
+        Iterator<Map.Entry<String, JsonNode>> schemas = root.path("components").path("schemas").fields();
+        while (schemas.hasNext()) {
+            Map.Entry<String, JsonNode> schema = schemas.next();
+            schemaRefs.put(schema.getKey(), collectRefs(schema.getValue(), new HashSet<>()));
+            collectConsumes(schema.getKey(), schema.getValue().path("x-consumes"), schemaReferences);
+        }
+
+        // Schema -> endpoints that use it, following references transitively
+        Map<String, Set<String>> pathsBySchema = new HashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> paths = root.path("paths").fields();
+        while (paths.hasNext()) {
+            Map.Entry<String, JsonNode> path = paths.next();
+            Deque<String> pending = new ArrayDeque<>(collectRefs(path.getValue(), new HashSet<>()));
+            Set<String> reached = new HashSet<>();
+            while (!pending.isEmpty()) {
+                String schema = pending.pop();
+                if (reached.add(schema)) {
+                    pending.addAll(schemaRefs.getOrDefault(schema, Set.of()));
+                }
+            }
+            for (String schema : reached) {
+                pathsBySchema.computeIfAbsent(schema, key -> new TreeSet<>()).add(path.getKey());
+            }
+        }
+
+        List<ServiceDependency> declared = new ArrayList<>();
+        for (JsonNode entry : root.path("x-dependencies")) {
+            String provider = entry.path("service").asText("");
+            if (provider.isBlank()) {
+                continue;
+            }
+            boolean specific = false;
+            for (JsonNode path : entry.path("paths")) {
+                declared.add(dependency(spec.getServiceName(), provider, path.asText(), null));
+                specific = true;
+            }
+            for (JsonNode schema : entry.path("schemas")) {
+                declared.add(dependency(spec.getServiceName(), provider, null, schema.asText()));
+                specific = true;
+            }
+            if (!specific) {
+                declared.add(dependency(spec.getServiceName(), provider, null, null));
+            }
+        }
+
+        Set<Mention> urlMentions = new HashSet<>();
+        collectUrlMentions(null, root, urlMentions);
+
+        return new ProviderSchemas(String.valueOf(spec.getContentHash()), pathsBySchema, List.copyOf(declared),
+                Set.copyOf(schemaReferences), Set.copyOf(urlMentions));
+    }
+
+    private ServiceDependency dependency(String consumer, String provider, String path, String schemaName) {
+        ServiceDependency dependency = new ServiceDependency();
+        dependency.setConsumerService(consumer);
+        dependency.setProviderService(provider);
+        dependency.setPath(path);
+        dependency.setSchemaName(schemaName);
+        return dependency;
+    }
+
+    /**
+     * Absolute URLs in fields named "url" or ending in "url"/"uri", as host and path
+     */
+    private void collectUrlMentions(String key, JsonNode node, Set<Mention> mentions) {
+        if (node.isTextual()) {
+            String field = key == null ? "" : key.toLowerCase(Locale.ROOT);
+            Matcher url = ABSOLUTE_URL.matcher(node.asText());
+            if ((field.endsWith("url") || field.endsWith("uri")) && url.matches() && !url.group(2).isEmpty()) {
+                mentions.add(new Mention(url.group(2), url.group(1)));
+            }
+        } else if (node.isObject()) {
+            node.fields().forEachRemaining(field -> collectUrlMentions(field.getKey(), field.getValue(), mentions));
+        } else if (node.isArray()) {
+            node.elements().forEachRemaining(child -> collectUrlMentions(key, child, mentions));
+        }
+    }
+
+    /**
+     * $refs into another document's schemas, as schema name and document
+     */
+    private void collectExternalRefs(JsonNode node, Set<Mention> references) {
+        if (node.isObject()) {
+            JsonNode ref = node.get("$ref");
+            if (ref != null && ref.isTextual()) {
+                int anchor = ref.asText().indexOf(SCHEMA_REF_PREFIX);
+                if (anchor > 0) {
+                    references.add(new Mention(ref.asText().substring(anchor + SCHEMA_REF_PREFIX.length()),
+                            ref.asText().substring(0, anchor)));
+                }
+            }
+            node.elements().forEachRemaining(child -> collectExternalRefs(child, references));
+        } else if (node.isArray()) {
+            node.elements().forEachRemaining(child -> collectExternalRefs(child, references));
+        }
+    }
+
+    /**
+     * "x-consumes": "user-service" or {"service": "user-service", "schema": "User"}, as schema name and service
+     */
+    private void collectConsumes(String schemaName, JsonNode consumes, Set<Mention> references) {
+        String service = consumes.isTextual() ? consumes.asText() : consumes.path("service").asText("");
+        if (!service.isBlank()) {
+            references.add(new Mention(consumes.path("schema").asText(schemaName), service));
+        }
+    }
+
+    private Set<String> collectRefs(JsonNode node, Set<String> refs) {
+        if (node.isObject()) {
+            JsonNode ref = node.get("$ref");
+            if (ref != null && ref.isTextual() && ref.asText().startsWith(SCHEMA_REF_PREFIX)) {
+                refs.add(ref.asText().substring(SCHEMA_REF_PREFIX.length()));
+            }
+            node.elements().forEachRemaining(child -> collectRefs(child, refs));
+        } else if (node.isArray()) {
+            node.elements().forEachRemaining(child -> collectRefs(child, refs));
+        }
+        return refs;
+    }
+
+    private record Snapshot(Map<String, ProviderSchemas> schemasByService,
+                            Map<String, Consumers> consumersByProvider,
+                            Map<String, List<Reference>> schemaReferences,
+                            Map<String, List<Reference>> urlMentions,
+                            Instant builtAt) {
+    }
+
+    /**
+     * What one stored spec contributes: its endpoint/schema edges, its declared dependencies,
+     * and the schemas and URLs of other services it refers to
+     */
+    private record ProviderSchemas(String contentHash,
+                                   Map<String, Set<String>> pathsBySchema,
+                                   List<ServiceDependency> declared,
+                                   Set<Mention> schemaReferences,
+                                   Set<Mention> urlMentions) {
+        static final ProviderSchemas EMPTY = new ProviderSchemas("", Map.of(), List.of(), Set.of(), Set.of());
+    }
+
+    /**
+     * A schema name or path in one spec, and the document, host or service it belongs to
+     */
+    private record Mention(String target, String location) {
+    }
+
+    /**
+     * A service whose spec refers to a schema name or path, and where it says that lives
+     */
+    private record Reference(String service, String location) {
+    }
+
+    /**
+     * Consumers of one provider, keyed by what they depend on
+     */
+    private record Consumers(Map<String, Set<String>> byPath,
+                             Map<String, Set<String>> bySchema,
+                             Set<String> wholeService) {
+        static final Consumers EMPTY = new Consumers(Map.of(), Map.of(), Set.of());
+
+        private static class Builder {
+            private final Map<String, Set<String>> byPath = new HashMap<>();
+            private final Map<String, Set<String>> bySchema = new HashMap<>();
+            private final Set<String> wholeService = new TreeSet<>();
+
+            void add(String consumer, String path, String schemaName) {
+                boolean hasPath = path != null && !path.isBlank();
+                boolean hasSchema = schemaName != null && !schemaName.isBlank();
+                if (hasPath) {
+                    byPath.computeIfAbsent(path, key -> new TreeSet<>()).add(consumer);
+                }
+                if (hasSchema) {
+                    bySchema.computeIfAbsent(schemaName, key -> new TreeSet<>()).add(consumer);
+                }
+                if (!hasPath && !hasSchema) {
+                    wholeService.add(consumer);
+                }
+            }
+
+            Consumers build() {
+                return new Consumers(Map.copyOf(byPath), Map.copyOf(bySchema), Set.copyOf(wholeService));
+            }
+        }
+    }
+}
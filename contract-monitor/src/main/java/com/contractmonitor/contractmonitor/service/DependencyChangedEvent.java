@@ -0,0 +1,7 @@
+package com.contractmonitor.contractmonitor.service;
+
+/**
+ * Published when a declared dependency on a provider service was added or removed
+ */
+public record DependencyChangedEvent(String providerService) {
+}
@@ -0,0 +1,80 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import com.contractmonitor.contractmonitor.entity.ServiceDependency;
+import com.contractmonitor.contractmonitor.repository.BreakingChangeRepository;
+import com.contractmonitor.contractmonitor.repository.ServiceDependencyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class DependencyService {
+    
+    private final ServiceDependencyRepository dependencyRepository;
+    private final BreakingChangeRepository breakingChangeRepository;
+    private final ConsumerIndex consumerIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    /**
+     * Declare that one service calls another (optionally a specific path or schema)
+     */
+    public ServiceDependency declare(ServiceDependency dependency) {
+        if (isBlank(dependency.getConsumerService()) || isBlank(dependency.getProviderService())) {
+            throw new IllegalArgumentException("consumerService and providerService are required");
+        }
+        dependency.setId(null);
+        
+        ServiceDependency saved = dependencyRepository.save(dependency);
+        eventPublisher.publishEvent(new DependencyChangedEvent(saved.getProviderService()));
+        log.info("Declared dependency: {} -> {} {}", saved.getConsumerService(), saved.getProviderService(),
+                saved.getPath() != null ? saved.getPath() : saved.getSchemaName() != null ? saved.getSchemaName() : "");
+        return saved;
+    }
+    
+    /**
+     * Remove a declared dependency
+     */
+    public void remove(Long id) {
+        ServiceDependency dependency = dependencyRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Dependency not found: " + id));
+        dependencyRepository.delete(dependency);
+        eventPublisher.publishEvent(new DependencyChangedEvent(dependency.getProviderService()));
+    }
+    
+    /**
+     * Get all declared dependencies
+     */
+    public List<ServiceDependency> getAll() {
+        return dependencyRepository.findAll();
+    }
+    
+    /**
+     * Get the dependencies a service declares on others
+     */
+    public List<ServiceDependency> getByConsumer(String consumerService) {
+        return dependencyRepository.findByConsumerService(consumerService);
+    }
+    
+    /**
+     * Services affected by a stored breaking change, from the consumer index
+     */
+    @Transactional(readOnly = true)
+    public List<ImpactedService> getImpact(Long breakingChangeId) {
+        BreakingChange change = breakingChangeRepository.findById(breakingChangeId)
+                .orElseThrow(() -> new NoSuchElementException("Breaking change not found: " + breakingChangeId));
+        return consumerIndex.impactOf(change);
+    }
+    
+    private boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,171 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.ApiSpec;
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import com.contractmonitor.contractmonitor.entity.NonBreakingChange;
+import com.contractmonitor.contractmonitor.repository.DiffCacheRepository;
+import com.contractmonitor.contractmonitor.util.HashUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Serves spec comparisons from a persistent cache keyed by the content hashes of both sides
+ * and the diff engine version that produced the entry.
+ * A hit rebuilds the change set from the stored entries without parsing or walking either spec.
+ * Entries from other engine versions or older than the retention are pruned on startup and daily.
+ */
+@Service
+@Transactional
+@Slf4j
+public class DiffCacheService {
+    
+    private final DiffCacheRepository diffCacheRepository;
+    private final SpecDiffEngine specDiffEngine;
+    private final Duration retention;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    public DiffCacheService(DiffCacheRepository diffCacheRepository,
+                            SpecDiffEngine specDiffEngine,
+                            @Value("${analysis.diff.cache-retention:30d}") Duration retention) {
+        this.diffCacheRepository = diffCacheRepository;
+        this.specDiffEngine = specDiffEngine;
+        this.retention = retention;
+    }
+    
+    /**
+     * Compare two specs, reusing a stored result for the same pair of documents.
+     * The cache lookup and insert are separate statements; the diff itself holds no connection.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SpecDiff compare(ApiSpec oldSpec, ApiSpec newSpec) {
+        String oldHash = contentHash(oldSpec);
+        String newHash = contentHash(newSpec);
+        
+        if (oldHash.equals(newHash)) {
+            log.info("Specs for {} are identical, skipping diff", newSpec.getServiceName());
+            return new SpecDiff();
+        }
+        
+        Optional<SpecDiff> cached = diffCacheRepository
+                .findByOldHashAndNewHashAndEngineVersion(oldHash, newHash, SpecDiffEngine.VERSION)
+                .flatMap(entry -> fromJson(entry.getChangesJson(), oldSpec, newSpec));
+        if (cached.isPresent()) {
+            log.info("Diff cache hit for {} ({} → {})", newSpec.getServiceName(),
+                    oldSpec.getVersion(), newSpec.getVersion());
+            return cached.get();
+        }
+        
+        SpecDiff diff;
+        try {
+            diff = specDiffEngine.compare(oldSpec, newSpec);
+        } catch (Exception e) {
+            // Unparseable specs are reported as "no changes" and never cached
+            log.error("Error comparing specs: {}", e.getMessage(), e);
+            return new SpecDiff();
+        }
+        
+        if (diff.isTruncated()) {
+            // Cut short by the run's deadline; only complete results are reusable
+            return diff;
+        }
+        diffCacheRepository.insertIfAbsent(oldHash, newHash, SpecDiffEngine.VERSION, toJson(diff));
+        return diff;
+    }
+    
+    /**
+     * Drop entries no current engine can hit and entries past the retention
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Scheduled(fixedDelayString = "${analysis.diff.cache-prune-interval-ms:86400000}",
+               initialDelayString = "${analysis.diff.cache-prune-interval-ms:86400000}")
+    public void prune() {
+        try {
+            int deleted = diffCacheRepository.deleteStale(SpecDiffEngine.VERSION,
+                    LocalDateTime.now().minus(retention));
+            if (deleted > 0) {
+                log.info("Pruned {} diff cache entries", deleted);
+            }
+        } catch (Exception e) {
+            log.error("Could not prune diff cache: {}", e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Stored hash, or computed for specs saved before hashes were recorded
+     */
+    private String contentHash(ApiSpec spec) {
+        if (spec.getContentHash() == null) {
+            spec.setContentHash(HashUtils.sha256(spec.getSpecContent()));
+        }
+        return spec.getContentHash();
+    }
+    
+    /**
+     * Version-independent form of a detected change
+     */
+    private record CachedChange(boolean breaking, String changeType, String path, String description) {
+    }
+    
+    private String toJson(SpecDiff diff) {
+        List<CachedChange> entries = new ArrayList<>();
+        diff.getBreakingChanges().forEach(change -> entries.add(new CachedChange(
+                true, change.getChangeType().name(), change.getPath(), change.getDescription())));
+        diff.getNonBreakingChanges().forEach(change -> entries.add(new CachedChange(
+                false, change.getChangeType().name(), change.getPath(), change.getDescription())));
+        
+        try {
+            return objectMapper.writeValueAsString(entries);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to serialize diff", e);
+        }
+    }
+    
+    private Optional<SpecDiff> fromJson(String json, ApiSpec oldSpec, ApiSpec newSpec) {
+        List<CachedChange> entries;
+        try {
+            entries = objectMapper.readValue(json, new TypeReference<List<CachedChange>>() {});
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable diff cache entry: {}", e.getMessage());
+            return Optional.empty();
+        }
+        
+        SpecDiff diff = new SpecDiff();
+        for (CachedChange entry : entries) {
+            if (entry.breaking()) {
+                BreakingChange change = new BreakingChange();
+                change.setServiceName(oldSpec.getServiceName());
+                change.setChangeType(BreakingChange.ChangeType.valueOf(entry.changeType()));
+                change.setPath(entry.path());
+                change.setDescription(entry.description());
+                change.setOldVersion(oldSpec.getVersion());
+                change.setNewVersion(newSpec.getVersion());
+                diff.getBreakingChanges().add(change);
+            } else {
+                NonBreakingChange change = new NonBreakingChange();
+                change.setServiceName(oldSpec.getServiceName());
+                change.setChangeType(NonBreakingChange.ChangeType.valueOf(entry.changeType()));
+                change.setPath(entry.path());
+                change.setDescription(entry.description());
+                change.setOldVersion(oldSpec.getVersion());
+                change.setNewVersion(newSpec.getVersion());
+                diff.getNonBreakingChanges().add(change);
+            }
+        }
+        return Optional.of(diff);
+    }
+}
@@ -0,0 +1,9 @@
+package com.contractmonitor.contractmonitor.service;
+
+import java.util.List;
+
+/**
+ * Published when newly detected breaking changes are saved and need AI enrichment
+ */
+public record EnrichmentRequestedEvent(List<Long> changeIds, AiCallScheduler.Priority priority) {
+}
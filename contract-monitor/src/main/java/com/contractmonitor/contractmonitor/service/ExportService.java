@@ -0,0 +1,95 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.AnalysisReport;
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import com.contractmonitor.contractmonitor.repository.AnalysisReportRepository;
+import com.contractmonitor.contractmonitor.repository.BreakingChangeRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes breaking changes and analysis reports as newline-delimited JSON, one entity per line,
+ * straight from a database cursor. Rows are detached once written, so memory use does not
+ * depend on how many rows are exported.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportService {
+    
+    // Rows between flushes of the output, in line with the cursor's fetch size
+    private static final int FLUSH_INTERVAL = Integer.parseInt(BreakingChangeRepository.EXPORT_FETCH_SIZE);
+    
+    private final BreakingChangeRepository breakingChangeRepository;
+    private final AnalysisReportRepository analysisReportRepository;
+    private final ObjectMapper objectMapper;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    /**
+     * Export breaking changes, of one service or (serviceName null) all of them;
+     * returns the number of rows written
+     */
+    @Transactional(readOnly = true)
+    public long exportBreakingChanges(String serviceName, OutputStream out) throws IOException {
+        try (Stream<BreakingChange> changes = serviceName == null
+                ? breakingChangeRepository.streamAll()
+                : breakingChangeRepository.streamByServiceName(serviceName)) {
+            return write("breaking changes", changes, out);
+        }
+    }
+    
+    /**
+     * Export analysis reports, of one service or (serviceName null) all of them;
+     * returns the number of rows written
+     */
+    @Transactional(readOnly = true)
+    public long exportReports(String serviceName, OutputStream out) throws IOException {
+        try (Stream<AnalysisReport> reports = serviceName == null
+                ? analysisReportRepository.streamAll()
+                : analysisReportRepository.streamByServiceName(serviceName)) {
+            return write("analysis reports", reports, out);
+        }
+    }
+    
+    private <T> long write(String what, Stream<T> rows, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        // Flushing is left to the loop, not done after every row
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Lines are ended explicitly below rather than separated by Jackson's default space
+            generator.setRootValueSeparator(null);
+            
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                T row = iterator.next();
+                writer.writeValue(generator, row);
+                generator.writeRaw('\n');
+                entityManager.detach(row);
+                if (++count % FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        
+        log.info("Exported {} {} in {} ms", count, what, (System.nanoTime() - started) / 1_000_000);
+        return count;
+    }
+}
@@ -0,0 +1,7 @@
+package com.contractmonitor.contractmonitor.service;
+
+/**
+ * A consumer affected by a breaking change, as found in the dependency graph
+ */
+public record ImpactedService(String serviceName, int confidence, String reason) {
+}
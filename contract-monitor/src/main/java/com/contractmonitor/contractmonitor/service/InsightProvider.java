@@ -0,0 +1,62 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Produces the suggestion, impact and explanation text attached to a breaking change.
+ * Implementations: {@link AiService} (chat model) and {@link TemplateInsightProvider}
+ * (local rules); {@link RoutingInsightProvider} chooses between them.
+ */
+public interface InsightProvider {
+
+    /**
+     * Generate a backward-compatible suggestion for a breaking change
+     */
+    String generateSuggestion(BreakingChange change);
+
+    /**
+     * Predict which services might be impacted by this breaking change
+     */
+    String predictImpact(BreakingChange change);
+
+    /**
+     * Generate a plain English explanation of the breaking change
+     */
+    String explainInPlainEnglish(BreakingChange change);
+
+    /**
+     * Generate all three insights for one change
+     */
+    default AiInsights enrich(BreakingChange change) {
+        return new AiInsights(
+                generateSuggestion(change),
+                predictImpact(change),
+                explainInPlainEnglish(change)
+        );
+    }
+
+    /**
+     * Enrich a set of changes; results are returned in input order
+     */
+    default List<AiInsights> enrichAll(List<BreakingChange> changes) {
+        return changes.stream()
+                .map(change -> enrich(change))
+                .toList();
+    }
+
+    /**
+     * Enrich one change, handing text to onToken as (field, fragment) while it is produced.
+     * Providers that cannot stream emit each field whole.
+     */
+    default AiInsights streamInsights(BreakingChange change,
+                                      BiConsumer<String, String> onToken) {
+        AiInsights insights = enrich(change);
+        onToken.accept("suggestion", insights.suggestion());
+        onToken.accept("impact", insights.impact());
+        onToken.accept("explanation", insights.explanation());
+        return insights;
+    }
+}
@@ -1,11 +1,18 @@
 package com.contractmonitor.contractmonitor.service;
 
+import com.contractmonitor.contractmonitor.util.Deadline;
+import com.contractmonitor.contractmonitor.util.DeadlineExceededException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.ResourceAccessException;
 
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.time.Duration;
+
 @Service
 @Slf4j
 public class OpenApiClient {
@@ -24,8 +31,29 @@ public class OpenApiClient {
     @Value("${microservices.notification-service.url}")
     private String notificationServiceUrl;
     
+    @Value("${microservices.connect-timeout:5s}")
+    private Duration connectTimeout;
+    
+    @Value("${microservices.read-timeout:30s}")
+    private Duration readTimeout;
+    
     public OpenApiClient() {
-        this.restTemplate = new RestTemplate();
+        this.restTemplate = new RestTemplate(new DeadlineAwareRequestFactory());
+    }
+    
+    /**
+     * Applies the configured timeouts, shortened to whatever is left of the calling thread's deadline
+     */
+    private class DeadlineAwareRequestFactory extends SimpleClientHttpRequestFactory {
+        
+        @Override
+        protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+            super.prepareConnection(connection, httpMethod);
+            Deadline deadline = Deadline.current();
+            deadline.check("fetch");
+            connection.setConnectTimeout(deadline.remainingMillis((int) connectTimeout.toMillis()));
+            connection.setReadTimeout(deadline.remainingMillis((int) readTimeout.toMillis()));
+        }
     }
     
     /**
@@ -38,9 +66,15 @@ public class OpenApiClient {
         try {
             log.info("Fetching OpenAPI spec from: {}", apiDocsUrl);
             String spec = restTemplate.getForObject(apiDocsUrl, String.class);
+            Deadline.current().check("fetch");
             log.info("Successfully fetched spec for {}", serviceName);
             return spec;
+        } catch (DeadlineExceededException e) {
+            throw e;
         } catch (ResourceAccessException e) {
+            if (Deadline.current().isExpired()) {
+                throw new DeadlineExceededException("fetch", e);
+            }
             log.error("Failed to connect to {}: {}", serviceName, e.getMessage());
             throw new RuntimeException("Service " + serviceName + " is not available", e);
         } catch (Exception e) {
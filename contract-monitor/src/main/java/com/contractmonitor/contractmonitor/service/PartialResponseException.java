@@ -0,0 +1,12 @@
+package com.contractmonitor.contractmonitor.service;
+
+/**
+ * Thrown when a streamed AI call fails after part of its answer was already handed on.
+ * {@link AiCallScheduler} never retries it: a retry would replay the prompt and repeat that output.
+ */
+public class PartialResponseException extends RuntimeException {
+    
+    public PartialResponseException(Throwable cause) {
+        super("AI response broke off after partial output: " + cause.getMessage(), cause);
+    }
+}
@@ -0,0 +1,47 @@
+package com.contractmonitor.contractmonitor.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Periodically queues an analysis of every monitored service this replica owns. Ownership comes
+ * from {@link ShardAssignmentService}, so each service is polled by one replica and adding
+ * replicas spreads the polling; the queued jobs themselves can run on any replica.
+ *
+ * Polling only writes to the queue: anything that talks to the services, including finding out
+ * that one is offline, happens in the job workers, off the shared scheduler threads.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PollingScheduler {
+    
+    private final ShardAssignmentService shardAssignmentService;
+    private final AnalysisJobService analysisJobService;
+    
+    @Value("${polling.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${polling.services:user-service,order-service,product-service,notification-service}")
+    private List<String> services;
+    
+    @Scheduled(fixedDelayString = "${polling.interval-ms:300000}",
+               initialDelayString = "${polling.initial-delay-ms:60000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        
+        List<String> owned = shardAssignmentService.ownedServices(services);
+        log.info("Polling {} of {} services on this replica", owned.size(), services.size());
+        for (String serviceName : owned) {
+            // At most one queued job per service, however long a previous one has been waiting
+            analysisJobService.enqueue(serviceName, AiCallScheduler.Priority.BACKGROUND);
+        }
+    }
+}
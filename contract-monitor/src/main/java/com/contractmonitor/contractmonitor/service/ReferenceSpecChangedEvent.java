@@ -0,0 +1,7 @@
+package com.contractmonitor.contractmonitor.service;
+
+/**
+ * Published when a service's reference spec may have changed: a spec was stored or its baseline was set or cleared
+ */
+public record ReferenceSpecChangedEvent(String serviceName) {
+}
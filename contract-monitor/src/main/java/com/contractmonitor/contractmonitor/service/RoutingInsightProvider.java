@@ -0,0 +1,106 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Picks the insight provider for each change. insights.provider sets the default for the
+ * environment (ai or template); insights.template-change-types sends routine change types
+ * to the local templates even when the default is ai.
+ */
+@Service
+@Primary
+@Slf4j
+public class RoutingInsightProvider implements InsightProvider {
+
+    private final AiService aiService;
+    private final TemplateInsightProvider templateProvider;
+    private final boolean templateByDefault;
+    private final Set<BreakingChange.ChangeType> templateChangeTypes;
+
+    public RoutingInsightProvider(AiService aiService,
+                                  TemplateInsightProvider templateProvider,
+                                  @Value("${insights.provider:ai}") String provider,
+                                  @Value("${insights.template-change-types:}") List<String> templateChangeTypes) {
+        this.aiService = aiService;
+        this.templateProvider = templateProvider;
+        this.templateByDefault = "template".equalsIgnoreCase(provider.trim());
+        this.templateChangeTypes = EnumSet.noneOf(BreakingChange.ChangeType.class);
+        for (String type : templateChangeTypes) {
+            if (!type.isBlank()) {
+                this.templateChangeTypes.add(BreakingChange.ChangeType.valueOf(type.trim().toUpperCase()));
+            }
+        }
+        log.info("Insight provider: {} (template for {})",
+                templateByDefault ? "template" : "ai", templateByDefault ? "all changes" : this.templateChangeTypes);
+    }
+
+    private InsightProvider providerFor(BreakingChange change) {
+        return templateByDefault || templateChangeTypes.contains(change.getChangeType())
+                ? templateProvider
+                : aiService;
+    }
+
+    @Override
+    public String generateSuggestion(BreakingChange change) {
+        return providerFor(change).generateSuggestion(change);
+    }
+
+    @Override
+    public String predictImpact(BreakingChange change) {
+        return providerFor(change).predictImpact(change);
+    }
+
+    @Override
+    public String explainInPlainEnglish(BreakingChange change) {
+        return providerFor(change).explainInPlainEnglish(change);
+    }
+
+    @Override
+    public AiInsights enrich(BreakingChange change) {
+        return providerFor(change).enrich(change);
+    }
+
+    /**
+     * Split the changes by provider so AI changes still share batched prompts
+     */
+    @Override
+    public List<AiInsights> enrichAll(List<BreakingChange> changes) {
+        List<Integer> aiIndexes = new ArrayList<>();
+        List<BreakingChange> aiChanges = new ArrayList<>();
+        AiInsights[] results = new AiInsights[changes.size()];
+
+        for (int i = 0; i < changes.size(); i++) {
+            BreakingChange change = changes.get(i);
+            if (providerFor(change) == templateProvider) {
+                results[i] = templateProvider.enrich(change);
+            } else {
+                aiIndexes.add(i);
+                aiChanges.add(change);
+            }
+        }
+
+        if (!aiChanges.isEmpty()) {
+            List<AiInsights> aiResults = aiService.enrichAll(aiChanges);
+            for (int i = 0; i < aiIndexes.size(); i++) {
+                results[aiIndexes.get(i)] = aiResults.get(i);
+            }
+        }
+        return List.of(results);
+    }
+
+    @Override
+    public AiInsights streamInsights(BreakingChange change,
+                                     BiConsumer<String, String> onToken) {
+        return providerFor(change).streamInsights(change, onToken);
+    }
+}
@@ -0,0 +1,122 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.repository.MonitorNodeRepository;
+import com.contractmonitor.contractmonitor.util.ConsistentHashRing;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Splits monitored services between live replicas. Every replica heartbeats a row in
+ * monitor_nodes and places the live nodes on a consistent-hash ring; since all replicas see the
+ * same rows they compute the same owner for each service without talking to each other.
+ *
+ * Rebalancing is implicit: when a node joins, or stops heartbeating for the node TTL, the next
+ * refresh rebuilds the ring and only the services that node gains or loses change owner.
+ * A replica that cannot heartbeat claims nothing, as the others will already have dropped it.
+ * Views may briefly differ during a change; the job queue and analysis lease absorb the overlap.
+ */
+@Service
+@Slf4j
+public class ShardAssignmentService {
+    
+    private final MonitorNodeRepository monitorNodeRepository;
+    private final String nodeId;
+    private volatile Membership membership;
+    
+    @Value("${polling.membership.node-ttl:30s}")
+    private Duration nodeTtl;
+    
+    @Value("${polling.membership.virtual-nodes:160}")
+    private int virtualNodes;
+    
+    public ShardAssignmentService(MonitorNodeRepository monitorNodeRepository) {
+        this.monitorNodeRepository = monitorNodeRepository;
+        this.nodeId = hostName() + "/" + UUID.randomUUID();
+    }
+    
+    /**
+     * Ring built from one view of the live nodes, and when it was read
+     */
+    private record Membership(List<String> nodeIds, ConsistentHashRing ring, long refreshedAtNanos) {
+    }
+    
+    @Scheduled(fixedDelayString = "${polling.membership.heartbeat-interval-ms:10000}")
+    public void heartbeat() {
+        try {
+            monitorNodeRepository.heartbeat(nodeId);
+            List<String> live = monitorNodeRepository.findLiveNodeIds(nodeTtl.toSeconds());
+            
+            Membership previous = membership;
+            if (previous == null || !previous.nodeIds().equals(live)) {
+                log.info("Polling membership changed: {} → {} live replicas",
+                        previous == null ? 0 : previous.nodeIds().size(), live.size());
+                membership = new Membership(live, new ConsistentHashRing(live, virtualNodes), System.nanoTime());
+            } else {
+                membership = new Membership(previous.nodeIds(), previous.ring(), System.nanoTime());
+            }
+            
+            // Rows of long-gone replicas are only kept around briefly for troubleshooting
+            monitorNodeRepository.deleteStale(nodeTtl.multipliedBy(10).toSeconds());
+        } catch (Exception e) {
+            log.warn("Polling heartbeat failed: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Whether this replica should poll the given service
+     */
+    public boolean owns(String serviceName) {
+        Membership current = membership;
+        if (current == null || System.nanoTime() - current.refreshedAtNanos() > nodeTtl.toNanos()) {
+            return false;
+        }
+        return nodeId.equals(current.ring().nodeFor(serviceName));
+    }
+    
+    /**
+     * The subset of services this replica should poll
+     */
+    public List<String> ownedServices(Collection<String> serviceNames) {
+        List<String> owned = new ArrayList<>();
+        for (String serviceName : serviceNames) {
+            if (owns(serviceName)) {
+                owned.add(serviceName);
+            }
+        }
+        return owned;
+    }
+    
+    public String getNodeId() {
+        return nodeId;
+    }
+    
+    /**
+     * Leave the ring on shutdown so the remaining replicas take over without waiting for the TTL
+     */
+    @PreDestroy
+    public void leave() {
+        try {
+            monitorNodeRepository.leave(nodeId);
+        } catch (Exception e) {
+            log.warn("Could not leave polling membership: {}", e.getMessage());
+        }
+    }
+    
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown-host";
+        }
+    }
+}
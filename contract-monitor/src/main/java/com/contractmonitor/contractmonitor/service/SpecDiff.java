@@ -0,0 +1,40 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import com.contractmonitor.contractmonitor.entity.NonBreakingChange;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of comparing two specs: breaking and non-breaking changes in traversal order
+ */
+@Getter
+public class SpecDiff {
+    
+    private final List<BreakingChange> breakingChanges = new ArrayList<>();
+    private final List<NonBreakingChange> nonBreakingChanges = new ArrayList<>();
+    
+    // Traversal stopped at the deadline; the changes found so far are kept
+    private boolean truncated;
+    
+    /**
+     * Append another result after this one, preserving order
+     */
+    public SpecDiff append(SpecDiff other) {
+        breakingChanges.addAll(other.breakingChanges);
+        nonBreakingChanges.addAll(other.nonBreakingChanges);
+        truncated |= other.truncated;
+        return this;
+    }
+    
+    public SpecDiff markTruncated() {
+        truncated = true;
+        return this;
+    }
+    
+    public boolean isEmpty() {
+        return breakingChanges.isEmpty() && nonBreakingChanges.isEmpty();
+    }
+}
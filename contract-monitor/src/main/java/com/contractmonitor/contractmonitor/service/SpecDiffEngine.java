@@ -0,0 +1,394 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.ApiSpec;
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import com.contractmonitor.contractmonitor.entity.NonBreakingChange;
+import com.contractmonitor.contractmonitor.util.Deadline;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Detects breaking and non-breaking changes between two OpenAPI specs.
+ *
+ * Specs are walked serially by default. With a parallelism above 1, once the combined number
+ * of path and schema keys reaches the parallel threshold, each key space is split into fork/join
+ * tasks on a dedicated pool and the partial results are concatenated left to right, so output
+ * order matches the serial walk. Measured on one core, fork/join was slower than serial, so it
+ * stays off until a multi-core speedup has been measured.
+ */
+@Service
+@Slf4j
+public class SpecDiffEngine {
+    
+    /**
+     * Identifies the classification rules; bump whenever the same pair of specs would produce a
+     * different change set, so results cached by DiffCacheService under older rules are dropped
+     */
+    public static final int VERSION = 2;
+    
+    private static final String[] HTTP_METHODS = {"get", "post", "put", "delete", "patch"};
+    
+    // Keys handled by one leaf task; each key may fan out into a method or property comparison
+    private static final int LEAF_SIZE = 256;
+    
+    // Keys visited between deadline checks
+    private static final int DEADLINE_CHECK_INTERVAL = 64;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int parallelThreshold;
+    private final ForkJoinPool pool;
+    
+    @Autowired
+    public SpecDiffEngine(@Value("${analysis.diff.parallel-threshold:2000}") int parallelThreshold,
+                          @Value("${analysis.diff.parallelism:1}") int parallelism) {
+        this(parallelThreshold, parallelism > 1 ? new ForkJoinPool(parallelism) : null);
+    }
+    
+    /**
+     * Engine that always walks serially
+     */
+    public SpecDiffEngine() {
+        this(Integer.MAX_VALUE, null);
+    }
+    
+    /**
+     * Engine that forks on the given pool once a diff reaches the threshold; a null pool means serial
+     */
+    public SpecDiffEngine(int parallelThreshold, ForkJoinPool pool) {
+        this.parallelThreshold = parallelThreshold;
+        this.pool = pool;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Parse and compare two stored specs
+     */
+    public SpecDiff compare(ApiSpec oldSpec, ApiSpec newSpec) {
+        Deadline deadline = Deadline.current();
+        JsonNode oldJson = parse(oldSpec);
+        JsonNode newJson = parse(newSpec);
+        if (deadline.isExpired()) {
+            return new SpecDiff().markTruncated();
+        }
+        return compare(oldJson, newJson, oldSpec, newSpec);
+    }
+    
+    /**
+     * Parse a spec's JSON content
+     */
+    public JsonNode parse(ApiSpec spec) {
+        try {
+            return objectMapper.readTree(spec.getSpecContent());
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid spec content for " + spec.getServiceName()
+                    + " version " + spec.getVersion() + ": " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Compare two already-parsed specs, choosing serial or parallel traversal by size.
+     * If the thread's deadline passes, traversal stops and the partial result is marked truncated.
+     */
+    public SpecDiff compare(JsonNode oldJson, JsonNode newJson, ApiSpec oldSpec, ApiSpec newSpec) {
+        // Fork/join workers don't see the caller's thread-local deadline, so it travels with the key spaces
+        Deadline deadline = Deadline.current();
+        Comparison comparison = new Comparison(oldJson, newJson, oldSpec, newSpec);
+        List<KeySpace> keySpaces = comparison.keySpaces(deadline);
+        
+        int totalKeys = keySpaces.stream().mapToInt(space -> space.keys().size()).sum();
+        if (pool == null || totalKeys < parallelThreshold || pool.getParallelism() < 2) {
+            SpecDiff diff = new SpecDiff();
+            for (KeySpace space : keySpaces) {
+                space.visitRange(0, space.keys().size(), diff);
+            }
+            return diff;
+        }
+        
+        log.debug("Diffing {} keys in parallel on {} threads", totalKeys, pool.getParallelism());
+        return pool.invoke(new RecursiveTask<SpecDiff>() {
+            @Override
+            protected SpecDiff compute() {
+                List<KeyRangeTask> tasks = new ArrayList<>();
+                for (KeySpace space : keySpaces) {
+                    tasks.add(new KeyRangeTask(space, 0, space.keys().size()));
+                }
+                invokeAll(tasks);
+                
+                SpecDiff diff = new SpecDiff();
+                tasks.forEach(task -> diff.append(task.join()));
+                return diff;
+            }
+        });
+    }
+    
+    /**
+     * Visits one key of a key space, adding any detected changes to the result
+     */
+    @FunctionalInterface
+    private interface KeyVisitor {
+        void visit(String key, SpecDiff out);
+    }
+    
+    private record KeySpace(List<String> keys, KeyVisitor visitor, Deadline deadline) {
+        
+        void visitRange(int from, int to, SpecDiff out) {
+            for (int i = from; i < to; i++) {
+                if ((i - from) % DEADLINE_CHECK_INTERVAL == 0 && deadline.isExpired()) {
+                    out.markTruncated();
+                    return;
+                }
+                visitor.visit(keys.get(i), out);
+            }
+        }
+    }
+    
+    /**
+     * Splits a key range in half until it is small enough to walk directly
+     */
+    private static final class KeyRangeTask extends RecursiveTask<SpecDiff> {
+        
+        private final KeySpace space;
+        private final int from;
+        private final int to;
+        
+        KeyRangeTask(KeySpace space, int from, int to) {
+            this.space = space;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected SpecDiff compute() {
+            if (to - from <= LEAF_SIZE) {
+                SpecDiff diff = new SpecDiff();
+                space.visitRange(from, to, diff);
+                return diff;
+            }
+            
+            int mid = (from + to) >>> 1;
+            KeyRangeTask left = new KeyRangeTask(space, from, mid);
+            left.fork();
+            SpecDiff right = new KeyRangeTask(space, mid, to).compute();
+            return left.join().append(right);
+        }
+    }
+    
+    /**
+     * Per-comparison state; the parsed trees are only read, so visitors can run concurrently
+     */
+    private static final class Comparison {
+        
+        private final JsonNode oldPaths;
+        private final JsonNode newPaths;
+        private final JsonNode oldSchemas;
+        private final JsonNode newSchemas;
+        private final ApiSpec oldSpec;
+        private final ApiSpec newSpec;
+        
+        Comparison(JsonNode oldJson, JsonNode newJson, ApiSpec oldSpec, ApiSpec newSpec) {
+            this.oldPaths = oldJson.path("paths");
+            this.newPaths = newJson.path("paths");
+            this.oldSchemas = oldJson.path("components").path("schemas");
+            this.newSchemas = newJson.path("components").path("schemas");
+            this.oldSpec = oldSpec;
+            this.newSpec = newSpec;
+        }
+        
+        /**
+         * Key spaces in serial traversal order: paths (old, then added), schemas (old, then added).
+         * A section missing from the old spec counts as empty, so everything in the new one is added;
+         * a section missing from the new spec is skipped rather than reported as removed wholesale.
+         */
+        List<KeySpace> keySpaces(Deadline deadline) {
+            List<KeySpace> spaces = new ArrayList<>();
+            
+            if (!newPaths.isMissingNode()) {
+                if (!oldPaths.isMissingNode()) {
+                    spaces.add(new KeySpace(keys(oldPaths), this::compareOldPath, deadline));
+                }
+                spaces.add(new KeySpace(keys(newPaths), this::checkAddedPath, deadline));
+            }
+            
+            if (!newSchemas.isMissingNode()) {
+                if (!oldSchemas.isMissingNode()) {
+                    spaces.add(new KeySpace(keys(oldSchemas), this::compareOldSchema, deadline));
+                }
+                spaces.add(new KeySpace(keys(newSchemas), this::checkAddedSchema, deadline));
+            }
+            
+            return spaces;
+        }
+        
+        private static List<String> keys(JsonNode node) {
+            List<String> keys = new ArrayList<>(node.size());
+            node.fieldNames().forEachRemaining(keys::add);
+            return keys;
+        }
+        
+        private void compareOldPath(String path, SpecDiff out) {
+            if (!newPaths.has(path)) {
+                // Endpoint was removed - BREAKING CHANGE
+                out.getBreakingChanges().add(breaking(BreakingChange.ChangeType.ENDPOINT_REMOVED, path,
+                        "Endpoint '" + path + "' was removed"));
+                
+                log.warn("BREAKING: Endpoint removed: {}", path);
+            } else {
+                // Endpoint exists, check HTTP methods
+                compareMethods(path, oldPaths.get(path), newPaths.get(path), out);
+            }
+        }
+        
+        private void checkAddedPath(String path, SpecDiff out) {
+            if (!oldPaths.has(path)) {
+                out.getNonBreakingChanges().add(nonBreaking(NonBreakingChange.ChangeType.ENDPOINT_ADDED, path,
+                        "Endpoint '" + path + "' was added"));
+            }
+        }
+        
+        /**
+         * Compare HTTP methods within an endpoint
+         */
+        private void compareMethods(String path, JsonNode oldEndpoint, JsonNode newEndpoint, SpecDiff out) {
+            for (String method : HTTP_METHODS) {
+                boolean inOld = oldEndpoint.has(method);
+                boolean inNew = newEndpoint.has(method);
+                
+                if (inOld && !inNew) {
+                    // HTTP method was removed - BREAKING CHANGE
+                    out.getBreakingChanges().add(breaking(BreakingChange.ChangeType.METHOD_REMOVED, path,
+                            "HTTP method '" + method.toUpperCase() + "' removed from '" + path + "'"));
+                    
+                    log.warn("BREAKING: Method removed: {} {}", method.toUpperCase(), path);
+                } else if (!inOld && inNew) {
+                    out.getNonBreakingChanges().add(nonBreaking(NonBreakingChange.ChangeType.METHOD_ADDED, path,
+                            "HTTP method '" + method.toUpperCase() + "' added to '" + path + "'"));
+                }
+            }
+        }
+        
+        private void compareOldSchema(String schemaName, SpecDiff out) {
+            if (!newSchemas.has(schemaName)) {
+                // Schema was removed - BREAKING CHANGE
+                out.getBreakingChanges().add(breaking(BreakingChange.ChangeType.SCHEMA_REMOVED,
+                        "/components/schemas/" + schemaName,
+                        "Schema '" + schemaName + "' was removed"));
+                
+                log.warn("BREAKING: Schema removed: {}", schemaName);
+            } else {
+                // Schema exists, check properties
+                compareSchemaProperties(schemaName, oldSchemas.get(schemaName), newSchemas.get(schemaName), out);
+            }
+        }
+        
+        private void checkAddedSchema(String schemaName, SpecDiff out) {
+            if (!oldSchemas.has(schemaName)) {
+                out.getNonBreakingChanges().add(nonBreaking(NonBreakingChange.ChangeType.SCHEMA_ADDED,
+                        "/components/schemas/" + schemaName,
+                        "Schema '" + schemaName + "' was added"));
+            }
+        }
+        
+        /**
+         * Compare properties within a schema
+         */
+        private void compareSchemaProperties(String schemaName, JsonNode oldSchema, JsonNode newSchema,
+                                             SpecDiff out) {
+            JsonNode oldProperties = oldSchema.path("properties");
+            JsonNode newProperties = newSchema.path("properties");
+            String schemaPath = "/components/schemas/" + schemaName;
+            
+            // Check for removed or changed properties
+            Iterator<String> propertyNames = oldProperties.fieldNames();
+            while (propertyNames.hasNext()) {
+                String propertyName = propertyNames.next();
+                
+                if (!newProperties.has(propertyName)) {
+                    // Property was removed - BREAKING CHANGE
+                    out.getBreakingChanges().add(breaking(BreakingChange.ChangeType.FIELD_REMOVED, schemaPath,
+                            "Field '" + propertyName + "' removed from '" + schemaName + "' schema"));
+                    
+                    log.warn("BREAKING: Field removed: {}.{}", schemaName, propertyName);
+                } else {
+                    // Check if type changed
+                    String oldType = oldProperties.get(propertyName).path("type").asText("");
+                    String newType = newProperties.get(propertyName).path("type").asText("");
+                    
+                    if (!oldType.isEmpty() && !newType.isEmpty() && !oldType.equals(newType)) {
+                        // Type changed - BREAKING CHANGE
+                        out.getBreakingChanges().add(breaking(BreakingChange.ChangeType.TYPE_CHANGED, schemaPath,
+                                "Field '" + propertyName + "' type changed from '" +
+                                oldType + "' to '" + newType + "' in '" + schemaName + "' schema"));
+                        
+                        log.warn("BREAKING: Type changed: {}.{} from {} to {}",
+                                schemaName, propertyName, oldType, newType);
+                    }
+                }
+            }
+            
+            // Check for added optional properties
+            Iterator<String> newPropertyNames = newProperties.fieldNames();
+            while (newPropertyNames.hasNext()) {
+                String propertyName = newPropertyNames.next();
+                
+                if (!oldProperties.has(propertyName) && !isRequired(newSchema, propertyName)) {
+                    out.getNonBreakingChanges().add(nonBreaking(NonBreakingChange.ChangeType.FIELD_ADDED, schemaPath,
+                            "Optional field '" + propertyName + "' added to '" + schemaName + "' schema"));
+                }
+            }
+        }
+        
+        /**
+         * Check whether a property is listed in the schema's required array
+         */
+        private static boolean isRequired(JsonNode schema, String propertyName) {
+            for (JsonNode required : schema.path("required")) {
+                if (propertyName.equals(required.asText())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        private BreakingChange breaking(BreakingChange.ChangeType changeType, String path, String description) {
+            BreakingChange change = new BreakingChange();
+            change.setServiceName(oldSpec.getServiceName());
+            change.setChangeType(changeType);
+            change.setPath(path);
+            change.setDescription(description);
+            change.setOldVersion(oldSpec.getVersion());
+            change.setNewVersion(newSpec.getVersion());
+            return change;
+        }
+        
+        private NonBreakingChange nonBreaking(NonBreakingChange.ChangeType changeType, String path,
+                                              String description) {
+            NonBreakingChange change = new NonBreakingChange();
+            change.setServiceName(oldSpec.getServiceName());
+            change.setChangeType(changeType);
+            change.setPath(path);
+            change.setDescription(description);
+            change.setOldVersion(oldSpec.getVersion());
+            change.setNewVersion(newSpec.getVersion());
+            
+            log.debug("Non-breaking: {} {}", changeType, description);
+            return change;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Deterministic, rule-based insights for breaking changes. No network calls: text is built
+ * from per-change-type templates filled with the names found in the change description,
+ * so it is suitable for routine changes, air-gapped installs and load tests.
+ */
+@Service
+@RequiredArgsConstructor
+public class TemplateInsightProvider implements InsightProvider {
+
+    // Names appear single-quoted in descriptions produced by SpecDiffEngine
+    private static final Pattern QUOTED = Pattern.compile("'([^']*)'");
+
+    private static final int RELATED_SERVICES_LIMIT = 10;
+
+    private final ConsumerIndex consumerIndex;
+
+    @Override
+    public String generateSuggestion(BreakingChange change) {
+        List<String> names = quotedNames(change);
+        String location = change.getPath();
+
+        return switch (change.getChangeType()) {
+            case ENDPOINT_REMOVED -> """
+                    1. Restore '%s' and mark it deprecated in the spec (deprecated: true).
+                    2. Announce a removal date and return a Deprecation/Sunset header from the old endpoint.
+                    3. If the endpoint moved, forward or redirect old requests to the replacement.
+                    4. Remove it only after access logs show no remaining callers."""
+                    .formatted(location);
+            case METHOD_REMOVED -> """
+                    1. Restore the %s operation on '%s' and mark it deprecated.
+                    2. Implement it by delegating to the replacement operation, if there is one.
+                    3. Announce a removal date to consumers of this operation.
+                    4. Remove it only after access logs show no remaining callers."""
+                    .formatted(name(names, 0), name(names, 1));
+            case SCHEMA_REMOVED -> """
+                    1. Restore the '%s' schema, or keep it as an alias of its replacement.
+                    2. Mark the old schema deprecated and document the replacement.
+                    3. Give consumers a release window to regenerate their clients.
+                    4. Remove it once no operation or consumer references it."""
+                    .formatted(name(names, 0));
+            case FIELD_REMOVED -> """
+                    1. Keep returning '%s' in '%s' and mark it deprecated.
+                    2. Populate it from the new source of the data, or with a documented default.
+                    3. Announce a removal date to consumers that read this field.
+                    4. Remove it in a later version once consumers have migrated."""
+                    .formatted(name(names, 0), name(names, 1));
+            case TYPE_CHANGED -> """
+                    1. Keep '%s' as type '%s' and add a new field with type '%s'.
+                    2. Fill both fields during the migration window.
+                    3. Mark the old field deprecated and announce a removal date.
+                    4. Remove the old field once consumers have switched."""
+                    .formatted(name(names, 0), name(names, 1), name(names, 2));
+        };
+    }
+
+    @Override
+    public String predictImpact(BreakingChange change) {
+        Optional<String> fromGraph = consumerIndex.describeImpact(change);
+        if (fromGraph.isPresent()) {
+            return fromGraph.get();
+        }
+
+        // No graph data: services whose specs reference the changed element are possible consumers
+        List<ImpactedService> related = consumerIndex.referencingServices(change, RELATED_SERVICES_LIMIT);
+        if (related.isEmpty()) {
+            return String.format("Service Name | Confidence | Reason%nExternal clients | unknown | Any client of %s using %s%n",
+                    change.getServiceName(), change.getPath());
+        }
+        return "Service Name | Confidence | Reason\n" + ConsumerIndex.format(related);
+    }
+
+    @Override
+    public String explainInPlainEnglish(BreakingChange change) {
+        List<String> names = quotedNames(change);
+
+        return switch (change.getChangeType()) {
+            case ENDPOINT_REMOVED -> String.format(
+                    "The %s service no longer offers %s. Apps that still use it will get errors "
+                            + "instead of data, so any feature built on it stops working until it is updated.",
+                    change.getServiceName(), change.getPath());
+            case METHOD_REMOVED -> String.format(
+                    "One of the actions available at %s (%s) was taken away. Apps that use that action "
+                            + "will fail until they are changed to use something else.",
+                    name(names, 1), name(names, 0));
+            case SCHEMA_REMOVED -> String.format(
+                    "The data format '%s' was removed from the %s service. Apps that send or read data "
+                            + "in this format may fail or show missing information.",
+                    name(names, 0), change.getServiceName());
+            case FIELD_REMOVED -> String.format(
+                    "The '%s' piece of information is no longer included in '%s'. Screens or reports "
+                            + "that rely on it may show blanks or fail.",
+                    name(names, 0), name(names, 1));
+            case TYPE_CHANGED -> String.format(
+                    "The '%s' value changed its format (from %s to %s). Apps expecting the old format "
+                            + "may misread it or fail to process it.",
+                    name(names, 0), name(names, 1), name(names, 2));
+        };
+    }
+
+    private List<String> quotedNames(BreakingChange change) {
+        List<String> names = new ArrayList<>();
+        if (change.getDescription() != null) {
+            Matcher matcher = QUOTED.matcher(change.getDescription());
+            while (matcher.find()) {
+                names.add(matcher.group(1));
+            }
+        }
+        return names;
+    }
+
+    private String name(List<String> names, int index) {
+        return index < names.size() ? names.get(index) : "?";
+    }
+}
@@ -0,0 +1,44 @@
+package com.contractmonitor.contractmonitor.util;
+
+import java.util.Collection;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent-hash ring. Every node is placed at several virtual points so keys spread
+ * evenly; adding or removing a node only moves the keys that node gains or loses.
+ * Nodes with the same ids always produce the same ring, on any JVM.
+ */
+public final class ConsistentHashRing {
+    
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    
+    public ConsistentHashRing(Collection<String> nodeIds, int virtualNodes) {
+        for (String nodeId : nodeIds) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(nodeId + "#" + i), nodeId);
+            }
+        }
+    }
+    
+    /**
+     * Node owning a key: the first virtual point at or after the key's hash, wrapping around;
+     * null if the ring is empty
+     */
+    public String nodeFor(String key) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        SortedMap<Long, String> tail = ring.tailMap(hash(key));
+        return tail.isEmpty() ? ring.firstEntry().getValue() : tail.get(tail.firstKey());
+    }
+    
+    public boolean isEmpty() {
+        return ring.isEmpty();
+    }
+    
+    private static long hash(String value) {
+        // First 64 bits of SHA-256: evenly spread even for similar ids like "node-1#0", "node-1#1"
+        return Long.parseUnsignedLong(HashUtils.sha256(value).substring(0, 16), 16);
+    }
+}
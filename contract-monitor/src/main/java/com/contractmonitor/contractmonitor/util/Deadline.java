@@ -0,0 +1,93 @@
+package com.contractmonitor.contractmonitor.util;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Point in time by which a unit of work must finish. The deadline of the work running on a
+ * thread is available from {@link #current()}, so it reaches every step of an analysis without
+ * being passed through each call; work handed to other threads must be given it explicitly.
+ */
+public final class Deadline {
+    
+    private static final Deadline NONE = new Deadline(Long.MAX_VALUE, false);
+    private static final ThreadLocal<Deadline> CURRENT = ThreadLocal.withInitial(() -> NONE);
+    
+    private final long expiresAtNanos;
+    private final boolean bounded;
+    
+    private Deadline(long expiresAtNanos, boolean bounded) {
+        this.expiresAtNanos = expiresAtNanos;
+        this.bounded = bounded;
+    }
+    
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos(), true);
+    }
+    
+    public static Deadline none() {
+        return NONE;
+    }
+    
+    /**
+     * Deadline of the work running on this thread; unbounded if none was set
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+    
+    /**
+     * Run work with the given deadline as this thread's current deadline
+     */
+    public static <T> T callWith(Deadline deadline, Supplier<T> work) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        try {
+            return work.get();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+    
+    public static void runWith(Deadline deadline, Runnable work) {
+        callWith(deadline, () -> {
+            work.run();
+            return null;
+        });
+    }
+    
+    public boolean isBounded() {
+        return bounded;
+    }
+    
+    public boolean isExpired() {
+        return bounded && System.nanoTime() - expiresAtNanos >= 0;
+    }
+    
+    /**
+     * Time left, zero once expired; a very long duration for an unbounded deadline
+     */
+    public Duration remaining() {
+        if (!bounded) {
+            return Duration.ofNanos(Long.MAX_VALUE);
+        }
+        return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+    }
+    
+    /**
+     * Milliseconds left, capped at the given value (which applies alone if unbounded); at least 1
+     */
+    public int remainingMillis(int cap) {
+        long remaining = Math.min(remaining().toMillis(), cap);
+        return (int) Math.max(1, remaining);
+    }
+    
+    /**
+     * Throw if the deadline has passed; stage names the step that noticed
+     */
+    public void check(String stage) {
+        if (isExpired()) {
+            throw new DeadlineExceededException(stage);
+        }
+    }
+}
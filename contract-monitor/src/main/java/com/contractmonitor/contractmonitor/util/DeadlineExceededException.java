@@ -0,0 +1,22 @@
+package com.contractmonitor.contractmonitor.util;
+
+/**
+ * Thrown when work is abandoned because its {@link Deadline} passed
+ */
+public class DeadlineExceededException extends RuntimeException {
+    
+    private final String stage;
+    
+    public DeadlineExceededException(String stage) {
+        this(stage, null);
+    }
+    
+    public DeadlineExceededException(String stage, Throwable cause) {
+        super("Deadline exceeded during " + stage, cause);
+        this.stage = stage;
+    }
+    
+    public String getStage() {
+        return stage;
+    }
+}
@@ -0,0 +1,31 @@
+package com.contractmonitor.contractmonitor.util;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated list and the cursor of the page after it (null on the last page)
+ */
+public record KeysetPage<T>(List<T> items, PageCursor nextCursor) {
+    
+    public static final int MAX_LIMIT = 500;
+    
+    /**
+     * Page size to use for a requested limit
+     */
+    public static int clampLimit(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_LIMIT);
+    }
+    
+    /**
+     * Page from a query that fetched up to limit + 1 rows; the extra row only tells
+     * whether there is a next page
+     */
+    public static <T> KeysetPage<T> of(List<T> fetched, int limit, Function<T, PageCursor> cursorOf) {
+        if (fetched.size() <= limit) {
+            return new KeysetPage<>(fetched, null);
+        }
+        List<T> items = fetched.subList(0, limit);
+        return new KeysetPage<>(items, cursorOf.apply(items.get(limit - 1)));
+    }
+}
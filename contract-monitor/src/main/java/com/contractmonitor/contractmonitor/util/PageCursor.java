@@ -0,0 +1,46 @@
+package com.contractmonitor.contractmonitor.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in a newest-first keyset page: the timestamp and id of the last row returned.
+ * The next page holds rows strictly before it in (timestamp DESC, id DESC) order, so the
+ * database seeks straight to it through an index whatever the page depth.
+ *
+ * Clients see an opaque URL-safe token; Spring binds ?cursor= request parameters through
+ * {@link #valueOf(String)}, so a malformed token is answered with 400.
+ */
+public record PageCursor(LocalDateTime at, Long id) {
+    
+    // Sorts before every stored row, so the first page needs no separate query
+    private static final PageCursor START = new PageCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+    
+    /**
+     * The given cursor, or the start of the list if there is none
+     */
+    public static PageCursor orStart(PageCursor cursor) {
+        return cursor != null ? cursor : START;
+    }
+    
+    /**
+     * Decode a token produced by {@link #toString()}
+     */
+    public static PageCursor valueOf(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf('|');
+            return new PageCursor(LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + token, e);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((at + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,51 @@
+package com.contractmonitor.contractmonitor.util;
+
+/**
+ * Token bucket refilled continuously at a fixed rate per minute. Thread-safe.
+ */
+public class TokenBucket {
+    
+    private final double capacity;
+    private final double refillPerNano;
+    private double tokens;
+    private long lastRefill;
+    
+    public TokenBucket(long perMinute) {
+        this.capacity = perMinute;
+        this.refillPerNano = perMinute / 60_000_000_000.0;
+        this.tokens = perMinute;
+        this.lastRefill = System.nanoTime();
+    }
+    
+    /**
+     * Nanoseconds until the given amount can be taken; 0 if available now.
+     * Amounts larger than the bucket are capped so oversized requests still get through.
+     */
+    public synchronized long nanosUntilAvailable(double amount) {
+        refill();
+        double needed = Math.min(amount, capacity);
+        if (tokens >= needed) {
+            return 0;
+        }
+        return (long) Math.ceil((needed - tokens) / refillPerNano);
+    }
+    
+    /**
+     * Take the given amount (capped at capacity) if available
+     */
+    public synchronized boolean tryAcquire(double amount) {
+        refill();
+        double needed = Math.min(amount, capacity);
+        if (tokens < needed) {
+            return false;
+        }
+        tokens -= needed;
+        return true;
+    }
+    
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+        lastRefill = now;
+    }
+}
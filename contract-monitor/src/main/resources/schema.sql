@@ -0,0 +1,87 @@
+-- Runs after Hibernate's ddl-auto update (spring.jpa.defer-datasource-initialization) on every start,
+-- so every statement must be idempotent. Covers what JPA annotations cannot express.
+
+-- At most one queued analysis job per service; AnalysisJobRepository.enqueue upserts against it.
+-- Duplicates queued before the index existed are dead-lettered first, keeping the oldest.
+UPDATE analysis_jobs SET status = 'DEAD', finished_at = now(), last_error = 'Duplicate of an older queued job'
+WHERE status = 'QUEUED'
+  AND NOT EXISTS (SELECT 1 FROM pg_indexes WHERE indexname = 'uk_analysis_jobs_queued_service')
+  AND id NOT IN (SELECT MIN(id) FROM analysis_jobs WHERE status = 'QUEUED' GROUP BY service_name);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_analysis_jobs_queued_service ON analysis_jobs (service_name) WHERE status = 'QUEUED';
+
+-- Descriptions embed the path, which alone may be 500 characters; ddl-auto never widens a column.
+ALTER TABLE non_breaking_changes ALTER COLUMN description TYPE TEXT;
+
+-- Additions used to be stored again by every run. Rows from before fingerprints existed are collapsed
+-- to the oldest row of each addition, which takes the latest detection as last_seen, and then get the
+-- fingerprint NonBreakingChange.computeFingerprint() gives them (Java concatenates a null as 'null').
+UPDATE non_breaking_changes n SET last_seen = g.last_seen
+FROM (SELECT MIN(id) AS id, MAX(detected_at) AS last_seen
+      FROM non_breaking_changes WHERE fingerprint IS NULL
+      GROUP BY service_name || '|' || change_type || '|' || path || '|' || COALESCE(description, 'null')) g
+WHERE n.id = g.id;
+
+DELETE FROM non_breaking_changes n
+USING non_breaking_changes older
+WHERE n.fingerprint IS NULL AND older.fingerprint IS NULL AND older.id < n.id
+  AND older.service_name || '|' || older.change_type || '|' || older.path || '|' || COALESCE(older.description, 'null')
+    = n.service_name || '|' || n.change_type || '|' || n.path || '|' || COALESCE(n.description, 'null');
+
+UPDATE non_breaking_changes
+SET fingerprint = encode(sha256(convert_to(
+        service_name || '|' || change_type || '|' || path || '|' || COALESCE(description, 'null'), 'UTF8')), 'hex'),
+    last_seen = COALESCE(last_seen, detected_at)
+WHERE fingerprint IS NULL;
+
+-- Breaking changes stored before fingerprints existed have none, so the upsert would record each of
+-- them again as new: counted twice and sent through AI enrichment again. Rows describing the same
+-- change (legacy rows, and any row a run has since inserted for them) are merged into the oldest,
+-- which keeps its status and takes the latest last_seen and any AI text of the others. The others
+-- are deleted; the counters are rebuilt from the table on startup. Also runs when the unique index
+-- is missing, i.e. ddl-auto could not add it over duplicate fingerprints.
+-- Fingerprints match BreakingChange.computeFingerprint(), where a null description reads 'null'.
+UPDATE breaking_changes b
+SET last_seen = g.last_seen,
+    ai_suggestion = COALESCE(b.ai_suggestion, g.ai_suggestion),
+    predicted_impact = COALESCE(b.predicted_impact, g.predicted_impact),
+    plain_english_explanation = COALESCE(b.plain_english_explanation, g.plain_english_explanation),
+    enrichment_status = CASE WHEN COALESCE(b.ai_suggestion, g.ai_suggestion, b.predicted_impact, g.predicted_impact,
+                                           b.plain_english_explanation, g.plain_english_explanation) IS NOT NULL
+                             THEN 'COMPLETED' ELSE b.enrichment_status END
+FROM (SELECT MIN(id) AS id, MAX(COALESCE(last_seen, detected_at)) AS last_seen,
+             (ARRAY_AGG(ai_suggestion ORDER BY id) FILTER (WHERE ai_suggestion IS NOT NULL))[1] AS ai_suggestion,
+             (ARRAY_AGG(predicted_impact ORDER BY id) FILTER (WHERE predicted_impact IS NOT NULL))[1] AS predicted_impact,
+             (ARRAY_AGG(plain_english_explanation ORDER BY id)
+                  FILTER (WHERE plain_english_explanation IS NOT NULL))[1] AS plain_english_explanation
+      FROM (SELECT *, COALESCE(fingerprint, encode(sha256(convert_to(
+                       service_name || '|' || change_type || '|' || path || '|' || COALESCE(description, 'null'),
+                       'UTF8')), 'hex')) AS fp
+            FROM breaking_changes
+            WHERE EXISTS (SELECT 1 FROM breaking_changes WHERE fingerprint IS NULL)
+               OR NOT EXISTS (SELECT 1 FROM pg_indexes WHERE indexname = 'uk_breaking_changes_fingerprint')) k
+      GROUP BY fp
+      HAVING COUNT(*) > 1) g
+WHERE b.id = g.id;
+
+DELETE FROM breaking_changes b
+USING (SELECT id, MIN(id) OVER (PARTITION BY fp) AS keeper_id
+       FROM (SELECT id, COALESCE(fingerprint, encode(sha256(convert_to(
+                        service_name || '|' || change_type || '|' || path || '|' || COALESCE(description, 'null'),
+                        'UTF8')), 'hex')) AS fp
+             FROM breaking_changes
+             WHERE EXISTS (SELECT 1 FROM breaking_changes WHERE fingerprint IS NULL)
+                OR NOT EXISTS (SELECT 1 FROM pg_indexes WHERE indexname = 'uk_breaking_changes_fingerprint')) k) d
+WHERE b.id = d.id AND d.id <> d.keeper_id;
+
+UPDATE breaking_changes
+SET fingerprint = encode(sha256(convert_to(
+        service_name || '|' || change_type || '|' || path || '|' || COALESCE(description, 'null'), 'UTF8')), 'hex'),
+    last_seen = COALESCE(last_seen, detected_at),
+    enrichment_status = CASE WHEN ai_suggestion IS NOT NULL OR predicted_impact IS NOT NULL
+                                  OR plain_english_explanation IS NOT NULL
+                             THEN 'COMPLETED' ELSE enrichment_status END,
+    enrichment_attempts = COALESCE(enrichment_attempts, 0)
+WHERE fingerprint IS NULL;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_breaking_changes_fingerprint ON breaking_changes (fingerprint);
@@ -0,0 +1,50 @@
+package com.contractmonitor.contractmonitor.repository;
+
+import com.contractmonitor.contractmonitor.entity.AiInsight;
+import com.contractmonitor.contractmonitor.service.AiInsightCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AiInsightRepositoryTest extends PostgresRepositoryTest {
+    
+    @Autowired
+    private AiInsightRepository repository;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Test
+    void pruneDropsSupersededTemplateVersionsAndEntriesPastTheRetention() {
+        AiInsightCache cache = new AiInsightCache(repository, new SimpleMeterRegistry(), 10, Duration.ofDays(90));
+        cache.useTemplateVersions(Map.of("impact", "impact-v3", "combined", "combined-v3"));
+        
+        insert("current", "impact", "impact-v3", LocalDateTime.now());
+        insert("superseded", "impact", "impact-v2", LocalDateTime.now());
+        insert("expired", "combined", "combined-v3", LocalDateTime.now().minusDays(91));
+        // A kind nobody registered is only pruned by age
+        insert("unregistered", "summary", "summary-v1", LocalDateTime.now());
+        
+        cache.prune();
+        
+        entityManager.clear();
+        assertThat(repository.findAll()).extracting(AiInsight::getCacheKey)
+                .containsExactlyInAnyOrder("current", "unregistered");
+    }
+    
+    private void insert(String cacheKey, String kind, String templateVersion, LocalDateTime createdAt) {
+        repository.insertIfAbsent(cacheKey, kind, templateVersion, "content", 100);
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE ai_insights SET created_at = :createdAt WHERE cache_key = :cacheKey")
+                .setParameter("createdAt", createdAt)
+                .setParameter("cacheKey", cacheKey)
+                .executeUpdate();
+    }
+}
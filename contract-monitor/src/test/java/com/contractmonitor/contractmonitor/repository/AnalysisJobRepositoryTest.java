@@ -0,0 +1,128 @@
+package com.contractmonitor.contractmonitor.repository;
+
+import com.contractmonitor.contractmonitor.service.AiCallScheduler;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnalysisJobRepositoryTest extends PostgresRepositoryTest {
+    
+    @Autowired
+    private AnalysisJobRepository repository;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Test
+    void enqueueSharesTheQueuedJobAndOnlyRaisesItsPriority() {
+        AnalysisJobRepository.QueuedJob first = enqueue("user-service", AiCallScheduler.Priority.BACKGROUND);
+        AnalysisJobRepository.QueuedJob raised = enqueue("user-service", AiCallScheduler.Priority.INTERACTIVE);
+        AnalysisJobRepository.QueuedJob again = enqueue("user-service", AiCallScheduler.Priority.BACKGROUND);
+        
+        assertThat(first.isInserted()).isTrue();
+        assertThat(raised.isInserted()).isFalse();
+        assertThat(again.getId()).isEqualTo(first.getId());
+        
+        entityManager.clear();
+        assertThat(repository.findById(first.getId()).orElseThrow().getAiPriority())
+                .isEqualTo(AiCallScheduler.Priority.INTERACTIVE);
+        assertThat(repository.count()).isEqualTo(1);
+    }
+    
+    @Test
+    void retryStaysOffTheQueueWhileAnotherJobForTheServiceIsQueued() {
+        Long running = enqueue("user-service", AiCallScheduler.Priority.BACKGROUND).getId();
+        LocalDateTime now = LocalDateTime.now();
+        repository.markClaimed(List.of(running), "worker-1", now, now.plusMinutes(2));
+        Long queued = enqueue("user-service", AiCallScheduler.Priority.BACKGROUND).getId();
+        
+        assertThat(queued).isNotEqualTo(running);
+        assertThat(repository.markForRetry(running, "worker-1", now.plusSeconds(30), "failed")).isZero();
+        assertThat(repository.release(running, "worker-1")).isZero();
+    }
+    
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void concurrentEnqueuesCreateOneQueuedJob() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return enqueue("order-service", AiCallScheduler.Priority.BACKGROUND).getId();
+                }));
+            }
+            start.countDown();
+            
+            for (Future<Long> result : results) {
+                assertThat(result.get()).isEqualTo(results.get(0).get());
+            }
+            assertThat(repository.count()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+            repository.deleteAllInBatch();
+        }
+    }
+    
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void claimSkipsJobsLockedByAnotherWorker() throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Long first = enqueue("user-service", AiCallScheduler.Priority.BACKGROUND).getId();
+        Long second = enqueue("order-service", AiCallScheduler.Priority.BACKGROUND).getId();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        try {
+            // Another worker holds the oldest job in an open claiming transaction
+            CompletableFuture<List<Long>> other = CompletableFuture.supplyAsync(() -> transaction.execute(status -> {
+                List<Long> ids = repository.lockClaimable(LocalDateTime.now(), 1);
+                locked.countDown();
+                await(done);
+                return ids;
+            }));
+            assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+            
+            List<Long> mine = transaction.execute(status -> repository.lockClaimable(LocalDateTime.now(), 10));
+            done.countDown();
+            
+            assertThat(other.get(10, TimeUnit.SECONDS)).containsExactly(first);
+            assertThat(mine).containsExactly(second);
+        } finally {
+            done.countDown();
+            repository.deleteAllInBatch();
+        }
+    }
+    
+    private AnalysisJobRepository.QueuedJob enqueue(String serviceName, AiCallScheduler.Priority priority) {
+        return repository.enqueue(serviceName, priority.name(), LocalDateTime.now());
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.contractmonitor.contractmonitor.repository;
+
+import com.contractmonitor.contractmonitor.entity.ApiSpec;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ApiSpecRepositoryTest extends PostgresRepositoryTest {
+    
+    @Autowired
+    private ApiSpecRepository repository;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Test
+    void latestPerServiceReturnsOneRowPerServiceWhenFetchTimesTie() {
+        LocalDateTime fetchedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        save("user-service", "v1", fetchedAt.minusMinutes(5));
+        save("user-service", "v2", fetchedAt);
+        ApiSpec tiedSecond = save("user-service", "v3", fetchedAt);
+        ApiSpec other = save("order-service", "v1", fetchedAt.minusHours(1));
+        entityManager.clear();
+        
+        assertThat(repository.findLatestPerService())
+                .extracting(ApiSpec::getServiceName, ApiSpec::getId)
+                .containsExactlyInAnyOrder(
+                        tuple("user-service", tiedSecond.getId()),
+                        tuple("order-service", other.getId()));
+        assertThat(repository.findTopByServiceNameOrderByFetchedAtDescIdDesc("user-service"))
+                .map(ApiSpec::getId).contains(tiedSecond.getId());
+    }
+    
+    private ApiSpec save(String serviceName, String version, LocalDateTime fetchedAt) {
+        ApiSpec spec = new ApiSpec();
+        spec.setServiceName(serviceName);
+        spec.setVersion(version);
+        spec.setSpecContent("{\"info\": {\"version\": \"" + version + "\"}}");
+        entityManager.persistAndFlush(spec);
+        
+        // fetchedAt is stamped on insert
+        spec.setFetchedAt(fetchedAt);
+        entityManager.flush();
+        return spec;
+    }
+}
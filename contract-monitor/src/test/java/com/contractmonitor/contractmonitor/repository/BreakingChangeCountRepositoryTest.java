@@ -0,0 +1,104 @@
+package com.contractmonitor.contractmonitor.repository;
+
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import com.contractmonitor.contractmonitor.entity.BreakingChangeCount;
+import com.contractmonitor.contractmonitor.service.BreakingChangeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The maintained counters must always equal a GROUP BY over breaking_changes
+ */
+@Import(BreakingChangeService.class)
+class BreakingChangeCountRepositoryTest extends PostgresRepositoryTest {
+    
+    @Autowired
+    private BreakingChangeCountRepository countRepository;
+    
+    @Autowired
+    private BreakingChangeService breakingChangeService;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Test
+    void incrementCreatesTheCounterThenAddsToIt() {
+        countRepository.increment("user-service", "FIELD_REMOVED", 2);
+        countRepository.increment("user-service", "FIELD_REMOVED", 3);
+        countRepository.increment("user-service", "TYPE_CHANGED", 1);
+        
+        entityManager.clear();
+        assertThat(countersByKey()).containsExactlyInAnyOrderEntriesOf(Map.of(
+                "user-service/FIELD_REMOVED", 5L,
+                "user-service/TYPE_CHANGED", 1L));
+    }
+    
+    @Test
+    void recordingAndRebuildingBothMatchGroupBy() {
+        List<BreakingChange> firstRun = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            firstRun.add(change("service-" + (i % 3), BreakingChange.ChangeType.values()[i % 5], "/path/" + i));
+        }
+        breakingChangeService.recordDetected(firstRun);
+        
+        // A second run sees half of them again plus some new ones; only the new ones count
+        List<BreakingChange> secondRun = new ArrayList<>();
+        for (int i = 15; i < 40; i++) {
+            secondRun.add(change("service-" + (i % 3), BreakingChange.ChangeType.values()[i % 5], "/path/" + i));
+        }
+        breakingChangeService.recordDetected(secondRun);
+        
+        entityManager.clear();
+        assertThat(countersByKey()).isEqualTo(groupBy()).hasSize(15);
+        
+        // Drift, e.g. rows deleted outside the application, is undone by a rebuild
+        countRepository.increment("service-0", "ENDPOINT_REMOVED", 7);
+        countRepository.increment("retired-service", "TYPE_CHANGED", 3);
+        breakingChangeService.rebuildCounts();
+        
+        entityManager.clear();
+        assertThat(countersByKey()).isEqualTo(groupBy());
+        assertThat(breakingChangeService.getStatistics().get("totalBreakingChanges")).isEqualTo(40L);
+    }
+    
+    private Map<String, Long> countersByKey() {
+        Map<String, Long> counters = new HashMap<>();
+        for (BreakingChangeCount count : countRepository.findAll()) {
+            counters.put(count.getKey().getServiceName() + "/" + count.getKey().getChangeType(), count.getChangeCount());
+        }
+        return counters;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<String, Long> groupBy() {
+        List<Object[]> rows = entityManager.getEntityManager()
+                .createNativeQuery("SELECT service_name, change_type, COUNT(*) FROM breaking_changes "
+                        + "GROUP BY service_name, change_type")
+                .getResultList();
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put(row[0] + "/" + row[1], ((Number) row[2]).longValue());
+        }
+        return counts;
+    }
+    
+    private static BreakingChange change(String serviceName, BreakingChange.ChangeType type, String path) {
+        BreakingChange change = new BreakingChange();
+        change.setServiceName(serviceName);
+        change.setChangeType(type);
+        change.setPath(path);
+        change.setDescription(type + " at " + path);
+        change.setOldVersion("v1");
+        change.setNewVersion("v2");
+        return change;
+    }
+}
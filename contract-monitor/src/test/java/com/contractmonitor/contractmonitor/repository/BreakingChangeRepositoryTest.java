@@ -0,0 +1,244 @@
+package com.contractmonitor.contractmonitor.repository;
+
+import com.contractmonitor.contractmonitor.dto.BreakingChangeSummary;
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import com.contractmonitor.contractmonitor.util.HashUtils;
+import com.contractmonitor.contractmonitor.util.KeysetPage;
+import com.contractmonitor.contractmonitor.util.PageCursor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BreakingChangeRepositoryTest extends PostgresRepositoryTest {
+    
+    @Autowired
+    private BreakingChangeRepository repository;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    @Test
+    void upsertInsertsOnceThenTouchesTheExistingRow() {
+        // Postgres keeps microseconds
+        LocalDateTime first = LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.MICROS);
+        LocalDateTime second = first.plusMinutes(30);
+        
+        BreakingChangeRepository.UpsertedChange inserted = upsert("/users", "v2", first);
+        BreakingChangeRepository.UpsertedChange touched = upsert("/users", "v3", second);
+        
+        assertThat(inserted.isInserted()).isTrue();
+        assertThat(touched.isInserted()).isFalse();
+        assertThat(touched.getId()).isEqualTo(inserted.getId());
+        
+        entityManager.clear();
+        BreakingChange change = repository.findById(inserted.getId()).orElseThrow();
+        assertThat(change.getNewVersion()).isEqualTo("v3");
+        assertThat(change.getDetectedAt()).isEqualTo(first);
+        assertThat(change.getLastSeen()).isEqualTo(second);
+        assertThat(change.getStatus()).isEqualTo(BreakingChange.Status.ACTIVE);
+        assertThat(change.getEnrichmentStatus()).isEqualTo(BreakingChange.EnrichmentStatus.PENDING);
+        assertThat(repository.count()).isEqualTo(1);
+    }
+    
+    @Test
+    void reappearingResolvedChangeIsReactivatedButIgnoredStaysIgnored() {
+        Long resolved = upsert("/orders", "v2", LocalDateTime.now()).getId();
+        Long ignored = upsert("/legacy", "v2", LocalDateTime.now()).getId();
+        markAs(resolved, BreakingChange.Status.RESOLVED);
+        markAs(ignored, BreakingChange.Status.IGNORED);
+        
+        upsert("/orders", "v3", LocalDateTime.now());
+        upsert("/legacy", "v3", LocalDateTime.now());
+        
+        entityManager.clear();
+        BreakingChange regressed = repository.findById(resolved).orElseThrow();
+        assertThat(regressed.getStatus()).isEqualTo(BreakingChange.Status.ACTIVE);
+        assertThat(regressed.getResolvedAt()).isNull();
+        assertThat(regressed.getResolvedBy()).isNull();
+        assertThat(regressed.getResolutionNotes()).isEqualTo("fixed");
+        assertThat(repository.findById(ignored).orElseThrow().getStatus()).isEqualTo(BreakingChange.Status.IGNORED);
+    }
+    
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void concurrentRunsReportingTheSameChangeInsertOneRow() throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return transaction.execute(status -> upsert("/race", "v2", LocalDateTime.now()).isInserted());
+                }));
+            }
+            start.countDown();
+            
+            int inserted = 0;
+            for (Future<Boolean> result : results) {
+                inserted += result.get() ? 1 : 0;
+            }
+            assertThat(inserted).isEqualTo(1);
+            assertThat(repository.count()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+            repository.deleteAllInBatch();
+        }
+    }
+    
+    @Test
+    void cursorPagesVisitEveryRowOnceAcrossTiedTimestamps() {
+        LocalDateTime tied = LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.MICROS);
+        List<Long> expected = new ArrayList<>();
+        expected.add(upsert("/newest", "v2", tied.plusMinutes(5)).getId());
+        List<Long> sameTime = new ArrayList<>();
+        for (String path : List.of("/a", "/b", "/c")) {
+            sameTime.add(upsert(path, "v2", tied).getId());
+        }
+        sameTime.sort(Comparator.reverseOrder());
+        expected.addAll(sameTime);
+        expected.add(upsert("/oldest", "v2", tied.minusMinutes(5)).getId());
+        
+        List<Long> seen = new ArrayList<>();
+        PageCursor cursor = null;
+        int pages = 0;
+        do {
+            PageCursor from = PageCursor.orStart(cursor);
+            KeysetPage<BreakingChangeSummary> page = KeysetPage.of(
+                    repository.findPageByServiceName("user-service", from.at(), from.id(), PageRequest.of(0, 3)),
+                    2, change -> new PageCursor(change.detectedAt(), change.id()));
+            page.items().forEach(change -> seen.add(change.id()));
+            cursor = page.nextCursor() != null ? PageCursor.valueOf(page.nextCursor().toString()) : null;
+            pages++;
+        } while (cursor != null);
+        
+        assertThat(seen).containsExactlyElementsOf(expected);
+        assertThat(pages).isEqualTo(3);
+    }
+    
+    @Test
+    void summaryFlagsInsightsWhicheverAiFieldIsFilled() {
+        Long none = upsert("/none", "v2", LocalDateTime.now()).getId();
+        Long impactOnly = upsert("/impact", "v2", LocalDateTime.now()).getId();
+        Long explanationOnly = upsert("/explanation", "v2", LocalDateTime.now()).getId();
+        repository.findById(impactOnly).orElseThrow().setPredictedImpact("order-service breaks");
+        repository.findById(explanationOnly).orElseThrow().setPlainEnglishExplanation("The endpoint is gone");
+        entityManager.flush();
+        entityManager.clear();
+        
+        PageCursor start = PageCursor.orStart(null);
+        List<BreakingChangeSummary> summaries = repository.findPageByServiceName("user-service",
+                start.at(), start.id(), PageRequest.of(0, 10));
+        
+        assertThat(summaries).filteredOn(BreakingChangeSummary::hasInsights)
+                .extracting(BreakingChangeSummary::id)
+                .containsExactlyInAnyOrder(impactOnly, explanationOnly)
+                .doesNotContain(none);
+    }
+    
+    @Test
+    void schemaScriptMergesChangesStoredBeforeFingerprints() {
+        LocalDateTime detected = LocalDateTime.now().minusDays(3).truncatedTo(ChronoUnit.MICROS);
+        Long oldest = insertLegacy("/users", "Endpoint /users was removed", detected, "RESOLVED", null);
+        insertLegacy("/users", "Endpoint /users was removed", detected.plusDays(1), "ACTIVE", "restore it");
+        // Inserted for the same change by the first run after the upgrade
+        upsertDetected("/users", detected.plusDays(2));
+        Long withoutDescription = insertLegacy("/orders", null, detected, "ACTIVE", "add it back");
+        
+        runSchemaScript();
+        runSchemaScript();
+        
+        entityManager.clear();
+        assertThat(repository.findAll()).extracting(BreakingChange::getId)
+                .containsExactlyInAnyOrder(oldest, withoutDescription);
+        
+        BreakingChange merged = repository.findById(oldest).orElseThrow();
+        assertThat(merged.getFingerprint()).isEqualTo(merged.computeFingerprint());
+        assertThat(merged.getStatus()).isEqualTo(BreakingChange.Status.RESOLVED);
+        assertThat(merged.getLastSeen()).isEqualTo(detected.plusDays(2));
+        assertThat(merged.getAiSuggestion()).isEqualTo("restore it");
+        assertThat(merged.getEnrichmentStatus()).isEqualTo(BreakingChange.EnrichmentStatus.COMPLETED);
+        
+        BreakingChange backfilled = repository.findById(withoutDescription).orElseThrow();
+        assertThat(backfilled.getFingerprint()).isEqualTo(backfilled.computeFingerprint());
+        assertThat(backfilled.getLastSeen()).isEqualTo(detected);
+        assertThat(backfilled.getEnrichmentStatus()).isEqualTo(BreakingChange.EnrichmentStatus.COMPLETED);
+        
+        // The next run touches the merged row instead of recording the change as new
+        assertThat(upsertDetected("/users", LocalDateTime.now()).getId()).isEqualTo(oldest);
+    }
+    
+    private BreakingChangeRepository.UpsertedChange upsert(String path, String newVersion, LocalDateTime now) {
+        String description = "Endpoint " + path + " was removed";
+        return repository.upsertSeen("user-service", BreakingChange.ChangeType.ENDPOINT_REMOVED.name(), path,
+                description, "v1", newVersion, HashUtils.sha256(path), now);
+    }
+    
+    // Fingerprinted the way BreakingChangeService.recordDetected does
+    private BreakingChangeRepository.UpsertedChange upsertDetected(String path, LocalDateTime now) {
+        BreakingChange change = new BreakingChange();
+        change.setServiceName("user-service");
+        change.setChangeType(BreakingChange.ChangeType.ENDPOINT_REMOVED);
+        change.setPath(path);
+        change.setDescription("Endpoint " + path + " was removed");
+        return repository.upsertSeen(change.getServiceName(), change.getChangeType().name(), path,
+                change.getDescription(), "v1", "v3", change.computeFingerprint(), now);
+    }
+    
+    private Long insertLegacy(String path, String description, LocalDateTime detectedAt, String status,
+                              String aiSuggestion) {
+        return ((Number) entityManager.getEntityManager().createNativeQuery(
+                        "INSERT INTO breaking_changes (service_name, change_type, path, description, old_version, "
+                                + "new_version, detected_at, status, ai_suggestion) VALUES ('user-service', "
+                                + "'ENDPOINT_REMOVED', :path, :description, 'v1', 'v2', :detectedAt, :status, "
+                                + ":aiSuggestion) RETURNING id")
+                .setParameter("path", path)
+                .setParameter("description", description)
+                .setParameter("detectedAt", detectedAt)
+                .setParameter("status", status)
+                .setParameter("aiSuggestion", aiSuggestion)
+                .getSingleResult()).longValue();
+    }
+    
+    // Runs on the test transaction's connection, so it sees the rows above and rolls back with them
+    private void runSchemaScript() {
+        ScriptUtils.executeSqlScript(DataSourceUtils.getConnection(dataSource), new ClassPathResource("schema.sql"));
+    }
+    
+    private void markAs(Long id, BreakingChange.Status status) {
+        BreakingChange change = repository.findById(id).orElseThrow();
+        change.setStatus(status);
+        change.setResolvedAt(LocalDateTime.now());
+        change.setResolvedBy("alice");
+        change.setResolutionNotes("fixed");
+        entityManager.flush();
+    }
+}
@@ -0,0 +1,112 @@
+package com.contractmonitor.contractmonitor.repository;
+
+import com.contractmonitor.contractmonitor.entity.NonBreakingChange;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NonBreakingChangeRepositoryTest extends PostgresRepositoryTest {
+    
+    @Autowired
+    private NonBreakingChangeRepository repository;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    @Test
+    void repeatedRunsTouchTheAdditionsTheyAlreadyRecorded() {
+        LocalDateTime first = LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.MICROS);
+        LocalDateTime second = first.plusMinutes(30);
+        String longPath = "/" + "a".repeat(499);
+        
+        upsert("v2", first, "/users", longPath);
+        upsert("v3", second, "/users", longPath);
+        
+        entityManager.clear();
+        List<NonBreakingChange> stored = repository.findByServiceNameOrderByDetectedAtDesc("user-service");
+        assertThat(stored).hasSize(2);
+        assertThat(stored).allSatisfy(change -> {
+            assertThat(change.getDetectedAt()).isEqualTo(first);
+            assertThat(change.getLastSeen()).isEqualTo(second);
+            assertThat(change.getNewVersion()).isEqualTo("v3");
+            assertThat(change.getFingerprint()).isEqualTo(change.computeFingerprint());
+        });
+        assertThat(stored).extracting(NonBreakingChange::getDescription)
+                .contains("Endpoint '" + longPath + "' was added");
+    }
+    
+    @Test
+    void schemaScriptCollapsesAdditionsStoredBeforeFingerprints() {
+        LocalDateTime detected = LocalDateTime.now().minusDays(3).truncatedTo(ChronoUnit.MICROS);
+        Long oldest = insertLegacy("/users", "Endpoint '/users' was added", detected);
+        insertLegacy("/users", "Endpoint '/users' was added", detected.plusDays(1));
+        insertLegacy("/users", "Endpoint '/users' was added", detected.plusDays(2));
+        Long withoutDescription = insertLegacy("/orders", null, detected);
+        
+        runSchemaScript();
+        runSchemaScript();
+        
+        entityManager.clear();
+        List<NonBreakingChange> stored = repository.findAll().stream()
+                .sorted(Comparator.comparing(NonBreakingChange::getId)).toList();
+        assertThat(stored).extracting(NonBreakingChange::getId).containsExactly(oldest, withoutDescription);
+        assertThat(stored.get(0).getLastSeen()).isEqualTo(detected.plusDays(2));
+        assertThat(stored.get(1).getLastSeen()).isEqualTo(detected);
+        assertThat(stored).allSatisfy(change ->
+                assertThat(change.getFingerprint()).isEqualTo(change.computeFingerprint()));
+    }
+    
+    private void upsert(String newVersion, LocalDateTime now, String... paths) {
+        int count = paths.length;
+        String[] descriptions = new String[count];
+        String[] fingerprints = new String[count];
+        for (int i = 0; i < count; i++) {
+            NonBreakingChange change = new NonBreakingChange();
+            change.setServiceName("user-service");
+            change.setChangeType(NonBreakingChange.ChangeType.ENDPOINT_ADDED);
+            change.setPath(paths[i]);
+            change.setDescription("Endpoint '" + paths[i] + "' was added");
+            descriptions[i] = change.getDescription();
+            fingerprints[i] = change.computeFingerprint();
+        }
+        repository.upsertSeen(filled(count, "user-service"), filled(count, "ENDPOINT_ADDED"), paths, descriptions,
+                filled(count, "v1"), filled(count, newVersion), fingerprints, now);
+    }
+    
+    private static String[] filled(int count, String value) {
+        String[] values = new String[count];
+        Arrays.fill(values, value);
+        return values;
+    }
+    
+    private Long insertLegacy(String path, String description, LocalDateTime detectedAt) {
+        return ((Number) entityManager.getEntityManager().createNativeQuery(
+                        "INSERT INTO non_breaking_changes (id, service_name, change_type, path, description, "
+                                + "old_version, new_version, detected_at) VALUES (nextval('non_breaking_changes_seq'), "
+                                + "'user-service', 'ENDPOINT_ADDED', :path, :description, 'v1', 'v2', :detectedAt) RETURNING id")
+                .setParameter("path", path)
+                .setParameter("description", description)
+                .setParameter("detectedAt", detectedAt)
+                .getSingleResult()).longValue();
+    }
+    
+    // Runs on the test transaction's connection, so it sees the rows above and rolls back with them
+    private void runSchemaScript() {
+        ScriptUtils.executeSqlScript(DataSourceUtils.getConnection(dataSource), new ClassPathResource("schema.sql"));
+    }
+}
@@ -0,0 +1,113 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.stub.OpenAiStubServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.model.function.FunctionCallbackContext;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Manual load test of the AI call path against {@link OpenAiStubServer}: a real Spring AI
+ * ChatClient behind {@link AiCallScheduler}, with stub latency, 500s and 429s.
+ *
+ * Not a JUnit test; run the main method, optionally passing call count, client threads,
+ * requests per minute and then any stub option (see OpenAiStubServer.Config.fromArgs):
+ *   AiCallSchedulerLoadBenchmark 300 16 600 --latency=lognormal --latency-ms=300 --error-rate=0.02
+ */
+public class AiCallSchedulerLoadBenchmark {
+
+    private static final int ESTIMATED_TOKENS_PER_CALL = 900;
+
+    public static void main(String[] args) throws Exception {
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int clientThreads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int requestsPerMinute = args.length > 2 ? Integer.parseInt(args[2]) : 600;
+
+        OpenAiStubServer.Config config = OpenAiStubServer.Config.fromArgs(args);
+        if (args.length <= 3) {
+            config = config
+                    .withLatency(OpenAiStubServer.LatencyDistribution.LOG_NORMAL, 300)
+                    .withFailures(0.02, 0.05);
+        }
+        // Ephemeral port, and the stub enforces the same limit the scheduler is configured with
+        config = config.withPort(0).withRequestsPerMinute(requestsPerMinute);
+
+        try (OpenAiStubServer stub = new OpenAiStubServer(config).start()) {
+            // Client-side retries are off so every 500 and 429 reaches the scheduler
+            OpenAiChatModel chatModel = new OpenAiChatModel(new OpenAiApi(stub.baseUrl(), "stub"),
+                    OpenAiChatOptions.builder().withModel("stub-model").build(),
+                    (FunctionCallbackContext) null,
+                    RetryTemplate.builder().maxAttempts(1).build());
+            ChatClient chatClient = ChatClient.create(chatModel);
+
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            AiCallScheduler scheduler = new AiCallScheduler(requestsPerMinute, 10_000_000, 4, 6,
+                    Duration.ofMillis(200), meterRegistry);
+
+            System.out.printf("Stub: %s%n", config);
+            System.out.printf("Load: %d calls from %d client threads, scheduler limit %d requests/minute%n",
+                    calls, clientThreads, requestsPerMinute);
+
+            List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+            AtomicInteger failures = new AtomicInteger();
+            ExecutorService clients = Executors.newFixedThreadPool(clientThreads);
+            long started = System.nanoTime();
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < calls; i++) {
+                int number = i;
+                futures.add(clients.submit(() -> {
+                    long callStarted = System.nanoTime();
+                    try {
+                        scheduler.execute(ESTIMATED_TOKENS_PER_CALL, () -> chatClient.prompt()
+                                .user("Explain breaking change " + number + " in plain English")
+                                .call()
+                                .content());
+                        latencies.add(System.nanoTime() - callStarted);
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - started;
+            clients.shutdown();
+            clients.awaitTermination(10, TimeUnit.SECONDS);
+            scheduler.shutdown();
+
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            System.out.printf("Completed %d, failed %d in %.1f s (%.1f calls/s)%n",
+                    sorted.size(), failures.get(), elapsed / 1e9, sorted.size() / (elapsed / 1e9));
+            System.out.printf("Latency ms: p50 %.0f, p95 %.0f, p99 %.0f, max %.0f%n",
+                    percentile(sorted, 0.50), percentile(sorted, 0.95),
+                    percentile(sorted, 0.99), percentile(sorted, 1.0));
+            System.out.printf("Scheduler re-queued %.0f throttled calls%n",
+                    meterRegistry.counter("ai.scheduler.throttled").count());
+            System.out.println(stub.stats());
+        }
+    }
+
+    private static double percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1e6;
+    }
+}
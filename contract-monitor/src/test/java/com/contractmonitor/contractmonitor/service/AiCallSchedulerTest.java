@@ -0,0 +1,122 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.util.Deadline;
+import com.contractmonitor.contractmonitor.util.DeadlineExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AiCallSchedulerTest {
+    
+    private AiCallScheduler scheduler;
+    
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+    
+    @Test
+    void detectsThrottlingFromTheStatusNotFromTheText() {
+        assertThat(AiCallScheduler.isThrottled(new NonTransientAiException("429 - {\"error\": \"rate_limit_exceeded\"}")))
+                .isTrue();
+        assertThat(AiCallScheduler.isThrottled(new IllegalStateException("wrapped",
+                HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", null, null, null))))
+                .isTrue();
+        assertThat(AiCallScheduler.isThrottled(WebClientResponseException.create(429, "Too Many Requests",
+                null, null, null))).isTrue();
+        
+        // A 429 that is only part of the text is not a rate-limit response
+        assertThat(AiCallScheduler.isThrottled(new IllegalArgumentException("Order 429 not found"))).isFalse();
+        assertThat(AiCallScheduler.isThrottled(new NonTransientAiException("400 - max_tokens must be below 4290")))
+                .isFalse();
+    }
+    
+    @Test
+    void treatsServerErrorsAsTransientAndOtherClientErrorsAsFinal() {
+        assertThat(AiCallScheduler.isTransient(new TransientAiException("503 - overloaded"))).isTrue();
+        assertThat(AiCallScheduler.isTransient(WebClientResponseException.create(502, "Bad Gateway",
+                null, null, null))).isTrue();
+        assertThat(AiCallScheduler.isTransient(new NonTransientAiException("401 - invalid api key"))).isFalse();
+    }
+    
+    @Test
+    void retriesThrottledCallsWithBackoff() {
+        scheduler = new AiCallScheduler(10_000, 1_000_000, 2, 3, Duration.ofMillis(5), new SimpleMeterRegistry());
+        AtomicInteger attempts = new AtomicInteger();
+        
+        String result = scheduler.execute(10, () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new NonTransientAiException("429 - slow down");
+            }
+            return "done";
+        });
+        
+        assertThat(result).isEqualTo("done");
+        assertThat(attempts).hasValue(3);
+    }
+    
+    @Test
+    void doesNotRetryOtherClientErrors() {
+        scheduler = new AiCallScheduler(10_000, 1_000_000, 2, 3, Duration.ofMillis(5), new SimpleMeterRegistry());
+        AtomicInteger attempts = new AtomicInteger();
+        
+        assertThatThrownBy(() -> scheduler.execute(10, () -> {
+            attempts.incrementAndGet();
+            throw new NonTransientAiException("400 - bad request mentioning 429");
+        })).isInstanceOf(NonTransientAiException.class);
+        assertThat(attempts).hasValue(1);
+    }
+    
+    @Test
+    void doesNotRetryACallThatAlreadyHandedOnPartialOutput() {
+        scheduler = new AiCallScheduler(10_000, 1_000_000, 2, 3, Duration.ofMillis(5), new SimpleMeterRegistry());
+        AtomicInteger attempts = new AtomicInteger();
+        
+        assertThatThrownBy(() -> scheduler.execute(10, () -> {
+            attempts.incrementAndGet();
+            throw new PartialResponseException(new TransientAiException("503 - overloaded"));
+        })).isInstanceOf(PartialResponseException.class);
+        assertThat(attempts).hasValue(1);
+    }
+    
+    @Test
+    void interactiveCallOvertakesABackgroundCallWaitingForTokens() throws Exception {
+        // 1000 tokens per second
+        scheduler = new AiCallScheduler(10_000, 60_000, 2, 0, Duration.ofMillis(5), new SimpleMeterRegistry());
+        AiCallScheduler.runWithPriority(AiCallScheduler.Priority.BACKGROUND,
+                () -> scheduler.execute(60_000, () -> "drains the bucket"));
+        
+        // Needs a full minute of refill, so it sits at the head of the queue
+        CompletableFuture<Throwable> background = CompletableFuture.supplyAsync(() -> {
+            try {
+                AiCallScheduler.runWithPriority(AiCallScheduler.Priority.BACKGROUND,
+                        () -> Deadline.runWith(Deadline.after(Duration.ofSeconds(3)),
+                                () -> scheduler.execute(60_000, () -> "large background prompt")));
+                return null;
+            } catch (Throwable e) {
+                return e;
+            }
+        });
+        Thread.sleep(200);
+        
+        String interactive = Deadline.callWith(Deadline.after(Duration.ofSeconds(2)),
+                () -> scheduler.execute(100, () -> "user request"));
+        
+        assertThat(interactive).isEqualTo("user request");
+        assertThat(background.get()).isInstanceOf(DeadlineExceededException.class);
+    }
+}
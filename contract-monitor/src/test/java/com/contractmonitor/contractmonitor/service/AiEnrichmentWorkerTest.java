@@ -0,0 +1,87 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import com.contractmonitor.contractmonitor.repository.BreakingChangeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AiEnrichmentWorkerTest {
+    
+    private BreakingChangeRepository repository;
+    private BreakingChangeService breakingChangeService;
+    private InsightProvider insightProvider;
+    private AiEnrichmentWorker worker;
+    
+    @BeforeEach
+    void setUp() {
+        repository = mock(BreakingChangeRepository.class);
+        breakingChangeService = mock(BreakingChangeService.class);
+        insightProvider = mock(InsightProvider.class);
+        worker = new AiEnrichmentWorker(repository, breakingChangeService, insightProvider,
+                mock(ThreadPoolTaskExecutor.class));
+        ReflectionTestUtils.setField(worker, "maxAttempts", 3);
+        ReflectionTestUtils.setField(worker, "claimTimeout", Duration.ofMinutes(10));
+        
+        // Change 3 is already claimed by another worker
+        when(repository.claimForEnrichment(eq(1L), any(), any())).thenReturn(1);
+        when(repository.claimForEnrichment(eq(2L), any(), any())).thenReturn(1);
+        when(repository.claimForEnrichment(eq(3L), any(), any())).thenReturn(0);
+        when(repository.findAllById(List.of(1L, 2L))).thenReturn(List.of(change(1L), change(2L)));
+    }
+    
+    @Test
+    void storesInsightsForEveryClaimedChange() {
+        AiInsights insights = new AiInsights("s", "i", "e");
+        when(insightProvider.enrichAll(anyList())).thenReturn(List.of(insights, insights));
+        
+        worker.process(List.of(1L, 2L, 3L));
+        
+        verify(breakingChangeService).completeEnrichment(1L, insights, 3);
+        verify(breakingChangeService).completeEnrichment(2L, insights, 3);
+        verify(breakingChangeService, never()).completeEnrichment(eq(3L), any(), eq(3));
+    }
+    
+    @Test
+    void countsAFailedAttemptWhenEnrichmentThrows() {
+        when(insightProvider.enrichAll(anyList())).thenThrow(new IllegalStateException("provider down"));
+        
+        worker.process(List.of(1L, 2L, 3L));
+        
+        verify(breakingChangeService).completeEnrichment(eq(1L), argThat(AiInsights::failed), eq(3));
+        verify(breakingChangeService).completeEnrichment(eq(2L), argThat(AiInsights::failed), eq(3));
+        verify(breakingChangeService, never()).completeEnrichment(eq(3L), any(), eq(3));
+    }
+    
+    @Test
+    void failsOnlyTheChangesNotYetStored() {
+        AiInsights insights = new AiInsights("s", "i", "e");
+        when(insightProvider.enrichAll(anyList())).thenReturn(List.of(insights));
+        
+        // One result for two changes: the second lookup throws
+        worker.process(List.of(1L, 2L));
+        
+        verify(breakingChangeService).completeEnrichment(1L, insights, 3);
+        verify(breakingChangeService, never()).completeEnrichment(eq(1L), argThat(AiInsights::failed), eq(3));
+        verify(breakingChangeService).completeEnrichment(eq(2L), argThat(AiInsights::failed), eq(3));
+    }
+    
+    private static BreakingChange change(Long id) {
+        BreakingChange change = new BreakingChange();
+        change.setId(id);
+        return change;
+    }
+}
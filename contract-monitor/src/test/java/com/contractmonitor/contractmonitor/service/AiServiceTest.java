@@ -0,0 +1,207 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Splitting a batched response back onto the changes it was asked about
+ */
+class AiServiceTest {
+    
+    private final Deque<Object> responses = new ArrayDeque<>();
+    private final Deque<Flux<String>> streams = new ArrayDeque<>();
+    private AiInsightCache insightCache;
+    private ConsumerIndex consumerIndex;
+    private AiService aiService;
+    private int calls;
+    
+    @BeforeEach
+    void setUp() {
+        ChatClient.Builder builder = mock(ChatClient.Builder.class, Answers.RETURNS_DEEP_STUBS);
+        ChatClient.ChatClientRequestSpec request = mock(ChatClient.ChatClientRequestSpec.class, Answers.RETURNS_DEEP_STUBS);
+        when(builder.build().prompt(any(Prompt.class))).thenReturn(request);
+        when(request.call().content()).thenAnswer(invocation -> {
+            calls++;
+            Object response = responses.removeFirst();
+            if (response instanceof RuntimeException e) {
+                throw e;
+            }
+            return response;
+        });
+        when(request.stream().content()).thenAnswer(invocation -> {
+            calls++;
+            return streams.removeFirst();
+        });
+        
+        insightCache = mock(AiInsightCache.class);
+        when(insightCache.lookup(anyString(), anyString(), any())).thenReturn(Optional.empty());
+        
+        AiCallScheduler scheduler = mock(AiCallScheduler.class);
+        when(scheduler.execute(anyInt(), any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        
+        consumerIndex = mock(ConsumerIndex.class);
+        
+        aiService = new AiService(builder, insightCache, scheduler, consumerIndex);
+        ReflectionTestUtils.setField(aiService, "enrichmentMode", "combined");
+        ReflectionTestUtils.setField(aiService, "impactContextSize", 5);
+        ReflectionTestUtils.setField(aiService, "batchTokenBudget", 100_000);
+        ReflectionTestUtils.setField(aiService, "outputTokensPerChange", 700);
+    }
+    
+    @Test
+    void mapsEntriesBackByIndexWhateverTheirOrder() {
+        responses.add("""
+                ```json
+                [%s, %s, %s]
+                ```
+                """.formatted(entry(3, "c"), entry(1, "a"), entry(2, "b")));
+        
+        List<AiInsights> insights = aiService.enrichAll(List.of(change("/a"), change("/b"), change("/c")));
+        
+        assertThat(insights).extracting(AiInsights::suggestion).containsExactly("suggest a", "suggest b", "suggest c");
+        assertThat(calls).isEqualTo(1);
+        verify(insightCache, times(3)).store(eq("combined"), anyString(), any(), anyString(), anyInt());
+    }
+    
+    @Test
+    void enrichesMissingIncompleteAndMisnumberedEntriesIndividually() {
+        responses.add("[%s, %s, %s, %s]".formatted(
+                entry(1, "a"),
+                // Incomplete, out of range, and a second answer for change 1
+                "{\"index\": 2, \"suggestion\": \"suggest b\", \"impact\": \"\", \"explanation\": \"x\"}",
+                entry(9, "z"),
+                entry(1, "a again")));
+        responses.add(combined("b"));
+        responses.add(combined("c"));
+        
+        List<AiInsights> insights = aiService.enrichAll(List.of(change("/a"), change("/b"), change("/c")));
+        
+        assertThat(insights).extracting(AiInsights::suggestion).containsExactly("suggest a", "suggest b", "suggest c");
+        assertThat(insights).noneMatch(AiInsights::failed);
+        assertThat(calls).isEqualTo(3);
+    }
+    
+    @Test
+    void unparseableBatchFallsBackToOneCallPerChange() {
+        responses.add("Sorry, I can only answer one change at a time.");
+        responses.add(combined("a"));
+        responses.add(combined("b"));
+        
+        List<AiInsights> insights = aiService.enrichAll(List.of(change("/a"), change("/b")));
+        
+        assertThat(insights).extracting(AiInsights::suggestion).containsExactly("suggest a", "suggest b");
+        assertThat(calls).isEqualTo(3);
+    }
+    
+    @Test
+    void failedBatchCallMarksEveryChangeUnavailable() {
+        responses.add(new IllegalStateException("provider down"));
+        
+        List<AiInsights> insights = aiService.enrichAll(List.of(change("/a"), change("/b")));
+        
+        assertThat(insights).allMatch(AiInsights::failed);
+        assertThat(insights.get(0).suggestion()).contains("provider down");
+        assertThat(calls).isEqualTo(1);
+    }
+    
+    @Test
+    void changeOverTheBudgetIsSentOnItsOwn() {
+        ReflectionTestUtils.setField(aiService, "batchTokenBudget", 1);
+        responses.add(combined("a"));
+        responses.add(combined("b"));
+        
+        List<AiInsights> insights = aiService.enrichAll(List.of(change("/a"), change("/b")));
+        
+        assertThat(insights).extracting(AiInsights::suggestion).containsExactly("suggest a", "suggest b");
+        assertThat(calls).isEqualTo(2);
+    }
+    
+    @Test
+    void graphImpactReplacesTheModelsWhereConsumersAreKnown() {
+        when(consumerIndex.describeImpact(argThat(change -> change.getPath().equals("/b"))))
+                .thenReturn(Optional.of("order-service | 90% | calls /b"));
+        responses.add("[%s, %s]".formatted(entry(1, "a"), entry(2, "b")));
+        
+        List<AiInsights> insights = aiService.enrichAll(List.of(change("/a"), change("/b")));
+        
+        assertThat(insights).extracting(AiInsights::impact).containsExactly("impact a", "order-service | 90% | calls /b");
+        assertThat(insights.get(1).suggestion()).isEqualTo("suggest b");
+    }
+    
+    @Test
+    void graphImpactAlsoAppliesToCachedCombinedInsights() {
+        when(consumerIndex.describeImpact(any())).thenReturn(Optional.of("No declared consumer of user-service uses /a"));
+        when(insightCache.lookup(eq("combined"), anyString(), any())).thenReturn(Optional.of(combined("a")));
+        
+        AiInsights insights = aiService.enrich(change("/a"));
+        
+        assertThat(insights.impact()).isEqualTo("No declared consumer of user-service uses /a");
+        assertThat(calls).isZero();
+    }
+    
+    @Test
+    void streamedFieldThatBreaksOffIsNotReplayed() {
+        streams.add(Flux.just("1. Keep ", "the old path"));
+        streams.add(Flux.concat(Flux.just("Likely affected: "), Flux.error(new TransientAiException("503 - overloaded"))));
+        streams.add(Flux.just("The endpoint is gone"));
+        List<String> emitted = new ArrayList<>();
+        
+        AiInsights insights = aiService.streamInsights(change("/a"), (field, token) -> emitted.add(field + ":" + token));
+        
+        assertThat(insights.failed()).isTrue();
+        assertThat(insights.suggestion()).isEqualTo("1. Keep the old path");
+        assertThat(insights.impact()).startsWith("AI analysis unavailable");
+        assertThat(insights.explanation()).isEqualTo("The endpoint is gone");
+        assertThat(emitted).containsExactly("suggestion:1. Keep ", "suggestion:the old path",
+                "impact:Likely affected: ", "explanation:The endpoint is gone");
+        assertThat(calls).isEqualTo(3);
+        verify(insightCache, never()).store(eq("impact"), anyString(), any(), anyString(), anyInt());
+    }
+    
+    private static String entry(int index, String name) {
+        return "{\"index\": %d, \"suggestion\": \"suggest %s\", \"impact\": \"impact %s\", \"explanation\": \"explain %s\"}"
+                .formatted(index, name, name, name);
+    }
+    
+    private static String combined(String name) {
+        return "{\"suggestion\": \"suggest %s\", \"impact\": \"impact %s\", \"explanation\": \"explain %s\"}"
+                .formatted(name, name, name);
+    }
+    
+    private static BreakingChange change(String path) {
+        BreakingChange change = new BreakingChange();
+        change.setServiceName("user-service");
+        change.setChangeType(BreakingChange.ChangeType.ENDPOINT_REMOVED);
+        change.setPath(path);
+        change.setDescription("Endpoint " + path + " was removed");
+        change.setOldVersion("v1");
+        change.setNewVersion("v2");
+        return change;
+    }
+}
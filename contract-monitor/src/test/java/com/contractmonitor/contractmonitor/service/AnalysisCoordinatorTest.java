@@ -0,0 +1,114 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.AnalysisLease;
+import com.contractmonitor.contractmonitor.entity.AnalysisReport;
+import com.contractmonitor.contractmonitor.repository.AnalysisLeaseRepository;
+import com.contractmonitor.contractmonitor.repository.AnalysisReportRepository;
+import com.contractmonitor.contractmonitor.repository.BreakingChangeRepository;
+import com.contractmonitor.contractmonitor.util.Deadline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AnalysisCoordinatorTest {
+    
+    private AnalysisService analysisService;
+    private AnalysisLeaseRepository leaseRepository;
+    private AnalysisReportRepository reportRepository;
+    private AnalysisCoordinator coordinator;
+    
+    @BeforeEach
+    void setUp() {
+        analysisService = mock(AnalysisService.class);
+        leaseRepository = mock(AnalysisLeaseRepository.class);
+        reportRepository = mock(AnalysisReportRepository.class);
+        coordinator = new AnalysisCoordinator(analysisService, leaseRepository, reportRepository,
+                mock(BreakingChangeRepository.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(coordinator, "analysisTimeout", Duration.ofMinutes(2));
+        ReflectionTestUtils.setField(coordinator, "persistGrace", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(coordinator, "leaseGrace", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(coordinator, "pollInterval", Duration.ofMillis(20));
+        
+        when(reportRepository.findTopByServiceNameAndAnalyzedAtGreaterThanEqualOrderByAnalyzedAtDesc(anyString(), any()))
+                .thenReturn(Optional.empty());
+        when(analysisService.analyzeWithoutEnrichment("user-service"))
+                .thenReturn(new AnalysisOutcome(new AnalysisReport(), List.of(), List.of()));
+    }
+    
+    @Test
+    void leaseOutlastsTheRunsDeadline() {
+        assertThat(coordinator.leaseTtl()).isEqualTo(Duration.ofMinutes(2).plusSeconds(50));
+        
+        Duration withCallerDeadline = Deadline.callWith(Deadline.after(Duration.ofMinutes(10)), coordinator::leaseTtl);
+        assertThat(withCallerDeadline).isBetween(Duration.ofSeconds(645), Duration.ofSeconds(650));
+    }
+    
+    @Test
+    void acquiresTheLeaseForTheWholeRun() {
+        when(leaseRepository.tryAcquire(eq("user-service"), anyString(), any(), any())).thenReturn(1);
+        
+        LocalDateTime before = LocalDateTime.now();
+        coordinator.analyzeWithoutEnrichment("user-service");
+        
+        ArgumentCaptor<LocalDateTime> expiresAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(leaseRepository).tryAcquire(eq("user-service"), anyString(), any(), expiresAt.capture());
+        assertThat(expiresAt.getValue()).isCloseTo(before.plusMinutes(2).plusSeconds(50), within(5, ChronoUnit.SECONDS));
+        verify(leaseRepository).release(eq("user-service"), anyString());
+    }
+    
+    @Test
+    void waiterSharesTheReportOfTheHolder() {
+        LocalDateTime started = LocalDateTime.now().minusSeconds(5);
+        when(leaseRepository.tryAcquire(eq("user-service"), anyString(), any(), any())).thenReturn(0);
+        when(leaseRepository.findById("user-service"))
+                .thenReturn(Optional.of(lease(started, LocalDateTime.now().plusMinutes(3))))
+                .thenReturn(Optional.empty());
+        AnalysisReport report = new AnalysisReport();
+        when(reportRepository.findTopByServiceNameAndAnalyzedAtGreaterThanEqualOrderByAnalyzedAtDesc("user-service", started))
+                .thenReturn(Optional.of(report));
+        
+        AnalysisOutcome outcome = coordinator.analyzeWithoutEnrichment("user-service");
+        
+        assertThat(outcome.report()).isSameAs(report);
+        verify(analysisService, never()).analyzeWithoutEnrichment(anyString());
+    }
+    
+    @Test
+    void waiterTakesOverOnceAnAbandonedLeaseExpires() {
+        // The holder died: its lease is never released, only expires
+        LocalDateTime expiresAt = LocalDateTime.now().plus(Duration.ofMillis(300));
+        when(leaseRepository.tryAcquire(eq("user-service"), anyString(), any(), any())).thenReturn(0, 1);
+        when(leaseRepository.findById("user-service"))
+                .thenReturn(Optional.of(lease(LocalDateTime.now().minusMinutes(3), expiresAt)));
+        
+        coordinator.analyzeWithoutEnrichment("user-service");
+        
+        assertThat(LocalDateTime.now()).isAfterOrEqualTo(expiresAt);
+        verify(leaseRepository, times(2)).tryAcquire(eq("user-service"), anyString(), any(), any());
+        verify(analysisService).analyzeWithoutEnrichment("user-service");
+        verify(leaseRepository).release(eq("user-service"), anyString());
+    }
+    
+    private static AnalysisLease lease(LocalDateTime acquiredAt, LocalDateTime expiresAt) {
+        return new AnalysisLease("user-service", "other-replica/1", acquiredAt, expiresAt);
+    }
+}
@@ -0,0 +1,93 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.AnalysisJob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AnalysisJobEventsTest {
+    
+    private final CountDownLatch clientReads = new CountDownLatch(1);
+    private final AtomicInteger sent = new AtomicInteger();
+    private AnalysisJobService jobService;
+    private ThreadPoolTaskExecutor executor;
+    private AnalysisJobEvents events;
+    
+    @BeforeEach
+    void setUp() {
+        jobService = mock(AnalysisJobService.class);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.initialize();
+        events = new AnalysisJobEvents(jobService, mock(AnalysisService.class), executor);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        clientReads.countDown();
+        executor.shutdown();
+    }
+    
+    @Test
+    void slowClientDoesNotHoldUpThePoll() throws Exception {
+        events.subscribe(1L, new SlowEmitter());
+        when(jobService.getJobs(Set.of(1L))).thenReturn(List.of(job(AnalysisPhase.FETCH)));
+        
+        long started = System.nanoTime();
+        events.publish();
+        
+        // The phase moves on while the first send is still blocked: that subscriber is skipped
+        when(jobService.getJobs(Set.of(1L))).thenReturn(List.of(job(AnalysisPhase.DIFF)));
+        events.publish();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(1_000);
+        
+        clientReads.countDown();
+        waitUntilIdle();
+        events.publish();
+        waitUntilIdle();
+        assertThat(sent).hasValue(2);
+    }
+    
+    private void waitUntilIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((executor.getActiveCount() > 0 || executor.getQueueSize() > 0) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+    
+    private static AnalysisJob job(AnalysisPhase phase) {
+        AnalysisJob job = new AnalysisJob();
+        job.setId(1L);
+        job.setStatus(AnalysisJob.Status.RUNNING);
+        job.setPhase(phase);
+        job.setAttempts(1);
+        return job;
+    }
+    
+    private class SlowEmitter extends SseEmitter {
+        
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                clientReads.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sent.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.AnalysisJob;
+import com.contractmonitor.contractmonitor.repository.AnalysisJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AnalysisJobServiceTest {
+    
+    private AnalysisJobRepository repository;
+    private AnalysisJobService service;
+    
+    @BeforeEach
+    void setUp() {
+        repository = mock(AnalysisJobRepository.class);
+        service = new AnalysisJobService(repository);
+        ReflectionTestUtils.setField(service, "maxAttempts", 3);
+        ReflectionTestUtils.setField(service, "visibilityTimeout", Duration.ofMinutes(2));
+        ReflectionTestUtils.setField(service, "retryBackoff", Duration.ofSeconds(30));
+    }
+    
+    @Test
+    void enqueueReturnsTheJobTheUpsertTouched() {
+        AnalysisJob queued = job(7L, 0);
+        when(repository.enqueue(eq("user-service"), eq("INTERACTIVE"), any())).thenReturn(queuedJob(7L, false));
+        when(repository.findById(7L)).thenReturn(Optional.of(queued));
+        
+        assertThat(service.enqueue("user-service", AiCallScheduler.Priority.INTERACTIVE)).isSameAs(queued);
+    }
+    
+    @Test
+    void claimMarksTheLockedRowsForTheVisibilityTimeout() {
+        when(repository.lockClaimable(any(), eq(2))).thenReturn(List.of(1L, 2L));
+        when(repository.findAllById(List.of(1L, 2L))).thenReturn(List.of(job(1L, 1), job(2L, 1)));
+        
+        LocalDateTime before = LocalDateTime.now();
+        assertThat(service.claim("worker-1", 2)).hasSize(2);
+        
+        ArgumentCaptor<LocalDateTime> lockedUntil = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).markClaimed(eq(List.of(1L, 2L)), eq("worker-1"), any(), lockedUntil.capture());
+        assertThat(lockedUntil.getValue()).isCloseTo(before.plusMinutes(2), within(5, ChronoUnit.SECONDS));
+    }
+    
+    @Test
+    void claimWithNothingDueMarksNothing() {
+        when(repository.lockClaimable(any(), eq(4))).thenReturn(List.of());
+        
+        assertThat(service.claim("worker-1", 4)).isEmpty();
+        verify(repository, never()).markClaimed(any(), anyString(), any(), any());
+    }
+    
+    @Test
+    void failedAttemptIsRetriedWithExponentialBackoff() {
+        when(repository.markForRetry(eq(1L), eq("worker-1"), any(), anyString())).thenReturn(1);
+        
+        LocalDateTime before = LocalDateTime.now();
+        service.fail(job(1L, 2), "worker-1", new IllegalStateException("spec fetch failed"));
+        
+        // Second attempt: 30s doubled once
+        ArgumentCaptor<LocalDateTime> availableAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).markForRetry(eq(1L), eq("worker-1"), availableAt.capture(),
+                eq("IllegalStateException: spec fetch failed"));
+        assertThat(availableAt.getValue()).isCloseTo(before.plusSeconds(60), within(5, ChronoUnit.SECONDS));
+        verify(repository, never()).markDead(any(), anyString(), any(), anyString());
+    }
+    
+    @Test
+    void lastAttemptIsDeadLettered() {
+        service.fail(job(1L, 3), "worker-1", new IllegalStateException("spec fetch failed"));
+        
+        verify(repository).markDead(eq(1L), eq("worker-1"), any(), eq("IllegalStateException: spec fetch failed"));
+        verify(repository, never()).markForRetry(any(), anyString(), any(), anyString());
+    }
+    
+    @Test
+    void failedAttemptIsNotRetriedWhileANewerJobIsQueued() {
+        when(repository.markForRetry(eq(1L), eq("worker-1"), any(), anyString())).thenReturn(0);
+        when(repository.existsByServiceNameAndStatus("user-service", AnalysisJob.Status.QUEUED)).thenReturn(true);
+        
+        service.fail(job(1L, 1), "worker-1", new IllegalStateException("spec fetch failed"));
+        
+        verify(repository).markDead(eq(1L), eq("worker-1"), any(), contains("another job for the service is queued"));
+    }
+    
+    @Test
+    void failureAfterTheLockWasLostLeavesTheJobToItsNewOwner() {
+        when(repository.markForRetry(eq(1L), eq("worker-1"), any(), anyString())).thenReturn(0);
+        when(repository.existsByServiceNameAndStatus("user-service", AnalysisJob.Status.QUEUED)).thenReturn(false);
+        
+        service.fail(job(1L, 1), "worker-1", new IllegalStateException("spec fetch failed"));
+        
+        verify(repository, never()).markDead(any(), anyString(), any(), anyString());
+    }
+    
+    @Test
+    void jobWhoseWorkersAllDiedIsExhausted() {
+        assertThat(service.isExhausted(job(1L, 3))).isFalse();
+        assertThat(service.isExhausted(job(1L, 4))).isTrue();
+    }
+    
+    private static AnalysisJob job(Long id, int attempts) {
+        AnalysisJob job = new AnalysisJob();
+        job.setId(id);
+        job.setServiceName("user-service");
+        job.setStatus(attempts == 0 ? AnalysisJob.Status.QUEUED : AnalysisJob.Status.RUNNING);
+        job.setAttempts(attempts);
+        return job;
+    }
+    
+    private static AnalysisJobRepository.QueuedJob queuedJob(Long id, boolean inserted) {
+        return new AnalysisJobRepository.QueuedJob() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+            
+            @Override
+            public boolean isInserted() {
+                return inserted;
+            }
+        };
+    }
+}
@@ -0,0 +1,125 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.ApiSpec;
+import com.contractmonitor.contractmonitor.repository.ApiSpecRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BaselineCacheTest {
+    
+    private AnnotationConfigApplicationContext context;
+    private ApiSpecRepository repository;
+    private BaselineCache cache;
+    private TransactionTemplate transaction;
+    
+    @BeforeEach
+    void setUp() {
+        context = new AnnotationConfigApplicationContext(Config.class);
+        repository = context.getBean(ApiSpecRepository.class);
+        cache = context.getBean(BaselineCache.class);
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        
+        ApiSpec spec = new ApiSpec();
+        spec.setServiceName("user-service");
+        spec.setVersion("v1");
+        spec.setSpecContent("{\"paths\": {}}");
+        when(repository.findByServiceNameAndIsBaselineTrue("user-service")).thenReturn(Optional.of(spec));
+        cache.get("user-service");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+    
+    @Test
+    void evictsOnlyOnceTheChangingTransactionCommits() {
+        transaction.executeWithoutResult(status -> {
+            context.publishEvent(new ReferenceSpecChangedEvent("user-service"));
+            
+            // A check running before the commit must not reload and cache the old reference
+            cache.get("user-service");
+            verify(repository, times(1)).findByServiceNameAndIsBaselineTrue("user-service");
+        });
+        
+        cache.get("user-service");
+        verify(repository, times(2)).findByServiceNameAndIsBaselineTrue("user-service");
+    }
+    
+    @Test
+    void keepsTheEntryWhenTheTransactionRollsBack() {
+        transaction.executeWithoutResult(status -> {
+            context.publishEvent(new ReferenceSpecChangedEvent("user-service"));
+            status.setRollbackOnly();
+        });
+        
+        cache.get("user-service");
+        verify(repository, times(1)).findByServiceNameAndIsBaselineTrue("user-service");
+    }
+    
+    @Test
+    void evictsImmediatelyOutsideATransaction() {
+        context.publishEvent(new ReferenceSpecChangedEvent("user-service"));
+        
+        cache.get("user-service");
+        verify(repository, times(2)).findByServiceNameAndIsBaselineTrue("user-service");
+        assertThat(cache.get("user-service")).isPresent();
+    }
+    
+    @Configuration
+    @EnableTransactionManagement
+    static class Config {
+        
+        @Bean
+        ApiSpecRepository apiSpecRepository() {
+            return mock(ApiSpecRepository.class);
+        }
+        
+        @Bean
+        BaselineCache baselineCache(ApiSpecRepository apiSpecRepository) {
+            return new BaselineCache(apiSpecRepository, new SpecDiffEngine(), Duration.ofHours(1));
+        }
+        
+        // Only drives transaction synchronization; there is no resource behind it
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            return new AbstractPlatformTransactionManager() {
+                @Override
+                protected Object doGetTransaction() {
+                    return new Object();
+                }
+                
+                @Override
+                protected void doBegin(Object transaction, TransactionDefinition definition) {
+                }
+                
+                @Override
+                protected void doCommit(DefaultTransactionStatus status) {
+                }
+                
+                @Override
+                protected void doRollback(DefaultTransactionStatus status) {
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import com.contractmonitor.contractmonitor.repository.BreakingChangeCountRepository;
+import com.contractmonitor.contractmonitor.repository.BreakingChangeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BreakingChangeServiceTest {
+    
+    private BreakingChangeRepository repository;
+    private BreakingChangeCountRepository countRepository;
+    private BreakingChangeService service;
+    
+    // Fingerprints the fake upsert has already stored, with their ids
+    private final Map<String, Long> stored = new HashMap<>();
+    
+    @BeforeEach
+    void setUp() {
+        repository = mock(BreakingChangeRepository.class);
+        countRepository = mock(BreakingChangeCountRepository.class);
+        service = new BreakingChangeService(repository, countRepository);
+        
+        when(repository.upsertSeen(anyString(), anyString(), anyString(), anyString(), anyString(), anyString(),
+                anyString(), any())).thenAnswer(invocation -> {
+                    String fingerprint = invocation.getArgument(6);
+                    boolean inserted = !stored.containsKey(fingerprint);
+                    Long id = stored.computeIfAbsent(fingerprint, key -> stored.size() + 1L);
+                    return upserted(id, inserted);
+                });
+        when(repository.findAllById(any())).thenAnswer(invocation -> {
+            List<BreakingChange> found = new ArrayList<>();
+            for (Long id : invocation.<Iterable<Long>>getArgument(0)) {
+                BreakingChange change = new BreakingChange();
+                change.setId(id);
+                found.add(0, change); // Database order is not detection order
+            }
+            return found;
+        });
+    }
+    
+    @Test
+    void returnsOnlyNewChangesInDetectionOrder() {
+        service.recordDetected(List.of(change("/known")));
+        
+        List<BreakingChange> saved = service.recordDetected(List.of(change("/a"), change("/known"), change("/b")));
+        
+        assertThat(saved).extracting(BreakingChange::getId).containsExactly(2L, 3L);
+    }
+    
+    @Test
+    void upsertsEachFingerprintOncePerRun() {
+        List<BreakingChange> saved = service.recordDetected(List.of(change("/a"), change("/a"), change("/a")));
+        
+        assertThat(saved).hasSize(1);
+        verify(repository, times(1)).upsertSeen(anyString(), anyString(), eq("/a"), anyString(), anyString(),
+                anyString(), anyString(), any());
+    }
+    
+    @Test
+    void countsOnlyInsertedChanges() {
+        service.recordDetected(List.of(change("/known")));
+        verify(countRepository).increment("user-service", "ENDPOINT_REMOVED", 1L);
+        
+        service.recordDetected(List.of(change("/known"), change("/a"), change("/b")));
+        verify(countRepository).increment("user-service", "ENDPOINT_REMOVED", 2L);
+    }
+    
+    @Test
+    void loadsNothingWhenEveryChangeIsKnown() {
+        service.recordDetected(List.of(change("/known")));
+        
+        assertThat(service.recordDetected(List.of(change("/known")))).isEmpty();
+        verify(repository, times(1)).findAllById(any());
+        verify(countRepository, never()).increment(anyString(), anyString(), eq(0L));
+        verify(countRepository, times(1)).increment(anyString(), anyString(), anyLong());
+    }
+    
+    private static BreakingChange change(String path) {
+        BreakingChange change = new BreakingChange();
+        change.setServiceName("user-service");
+        change.setChangeType(BreakingChange.ChangeType.ENDPOINT_REMOVED);
+        change.setPath(path);
+        change.setDescription("Endpoint " + path + " was removed");
+        change.setOldVersion("v1");
+        change.setNewVersion("v2");
+        return change;
+    }
+    
+    private static BreakingChangeRepository.UpsertedChange upserted(Long id, boolean inserted) {
+        return new BreakingChangeRepository.UpsertedChange() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+            
+            @Override
+            public boolean isInserted() {
+                return inserted;
+            }
+        };
+    }
+}
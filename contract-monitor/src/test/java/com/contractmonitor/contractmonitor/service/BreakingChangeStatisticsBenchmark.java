@@ -0,0 +1,140 @@
+package com.contractmonitor.contractmonitor.service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Manual benchmark of the breaking change statistics queries on a large table: the old
+ * load-everything-and-group-in-Java approach, a GROUP BY on (service_name, change_type),
+ * and the maintained counters.
+ *
+ * Not a JUnit test. Needs a Postgres database; everything is created in a scratch schema that
+ * is dropped afterwards. Run the main method with a JDBC URL, user, password and row count:
+ *   BreakingChangeStatisticsBenchmark jdbc:postgresql://localhost:5436/contractmonitordb postgres postgres 1000000
+ */
+public class BreakingChangeStatisticsBenchmark {
+
+    private static final String SCHEMA = "statistics_benchmark";
+    private static final int ROUNDS = 5;
+    private static final int SERVICES = 20;
+    private static final String[] CHANGE_TYPES = {
+            "ENDPOINT_REMOVED", "METHOD_REMOVED", "FIELD_REMOVED", "TYPE_CHANGED", "SCHEMA_REMOVED"};
+    // Typical size of each AI text column
+    private static final int AI_TEXT_LENGTH = 2000;
+
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 3) {
+            System.err.println("Usage: BreakingChangeStatisticsBenchmark <jdbc-url> <user> <password> [rows]");
+            return;
+        }
+        int rows = args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000;
+        
+        try (Connection connection = DriverManager.getConnection(args[0], args[1], args[2])) {
+            try {
+                seed(connection, rows);
+                // The driver only honours the fetch size inside a transaction; otherwise it buffers every row
+                connection.setAutoCommit(false);
+                
+                // Old: every row, with its AI text, pulled into the JVM to be counted
+                report("findAll + group in Java", rows, measure(() -> {
+                    Map<String, Long> byType = new HashMap<>();
+                    try (Statement statement = connection.createStatement()) {
+                        statement.setFetchSize(1000);
+                        try (ResultSet rs = statement.executeQuery("SELECT * FROM " + SCHEMA + ".breaking_changes")) {
+                            while (rs.next()) {
+                                for (int column = 1; column <= rs.getMetaData().getColumnCount(); column++) {
+                                    rs.getObject(column);
+                                }
+                                byType.merge(rs.getString("change_type"), 1L, Long::sum);
+                            }
+                        }
+                    }
+                    return byType.size();
+                }));
+                
+                report("GROUP BY (index-only scan)", rows, measure(() -> countRows(connection,
+                        "SELECT change_type, COUNT(*) FROM " + SCHEMA + ".breaking_changes GROUP BY change_type")));
+                
+                report("maintained counters", rows, measure(() -> countRows(connection,
+                        "SELECT change_type, SUM(change_count) FROM " + SCHEMA + ".breaking_change_counts "
+                                + "GROUP BY change_type")));
+                
+                report("per service: counters", rows, measure(() -> countRows(connection,
+                        "SELECT change_type, change_count FROM " + SCHEMA + ".breaking_change_counts "
+                                + "WHERE service_name = 'service-7'")));
+            } finally {
+                connection.setAutoCommit(true);
+                execute(connection, "DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Query {
+        int run() throws SQLException;
+    }
+
+    private static void seed(Connection connection, int rows) throws SQLException {
+        System.out.printf("Seeding %,d breaking changes into %s...%n", rows, SCHEMA);
+        execute(connection, "DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        execute(connection, "CREATE SCHEMA " + SCHEMA);
+        execute(connection, "CREATE TABLE " + SCHEMA + ".breaking_changes ("
+                + "id BIGSERIAL PRIMARY KEY, service_name VARCHAR(255) NOT NULL, change_type VARCHAR(255) NOT NULL, "
+                + "path VARCHAR(500) NOT NULL, description TEXT, detected_at TIMESTAMP NOT NULL, "
+                + "ai_suggestion TEXT, predicted_impact TEXT, plain_english_explanation TEXT, resolution_notes TEXT)");
+        execute(connection, "INSERT INTO " + SCHEMA + ".breaking_changes (service_name, change_type, path, "
+                + "description, detected_at, ai_suggestion, predicted_impact, plain_english_explanation) "
+                + "SELECT 'service-' || (i % " + SERVICES + "), "
+                + "(ARRAY['" + String.join("','", CHANGE_TYPES) + "'])[1 + i % " + CHANGE_TYPES.length + "], "
+                + "'/api/resource/' || i, 'Endpoint removed', now() - (i || ' seconds')::interval, "
+                + "repeat('s', " + AI_TEXT_LENGTH + "), repeat('i', " + AI_TEXT_LENGTH + "), "
+                + "repeat('e', " + AI_TEXT_LENGTH + ") FROM generate_series(1, " + rows + ") AS i");
+        execute(connection, "CREATE INDEX ON " + SCHEMA + ".breaking_changes (service_name, change_type)");
+        execute(connection, "CREATE TABLE " + SCHEMA + ".breaking_change_counts ("
+                + "service_name VARCHAR(255) NOT NULL, change_type VARCHAR(255) NOT NULL, "
+                + "change_count BIGINT NOT NULL, PRIMARY KEY (service_name, change_type))");
+        execute(connection, "INSERT INTO " + SCHEMA + ".breaking_change_counts "
+                + "SELECT service_name, change_type, COUNT(*) FROM " + SCHEMA + ".breaking_changes "
+                + "GROUP BY service_name, change_type");
+        // Sets the visibility map so the GROUP BY can be answered from the index alone
+        execute(connection, "VACUUM ANALYZE " + SCHEMA + ".breaking_changes");
+    }
+
+    private static double[] measure(Query query) throws SQLException {
+        query.run(); // warm-up
+        double[] millis = new double[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            long started = System.nanoTime();
+            query.run();
+            millis[round] = (System.nanoTime() - started) / 1e6;
+        }
+        Arrays.sort(millis);
+        return millis;
+    }
+
+    private static void report(String name, int rows, double[] millis) {
+        System.out.printf("%-28s %,d rows: median %9.2f ms, min %9.2f ms%n", name, rows, millis[ROUNDS / 2], millis[0]);
+    }
+
+    private static int countRows(Connection connection, String sql) throws SQLException {
+        int count = 0;
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
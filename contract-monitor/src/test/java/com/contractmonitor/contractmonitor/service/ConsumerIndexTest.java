@@ -0,0 +1,138 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.ApiSpec;
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import com.contractmonitor.contractmonitor.entity.ServiceDependency;
+import com.contractmonitor.contractmonitor.repository.ApiSpecRepository;
+import com.contractmonitor.contractmonitor.repository.ServiceDependencyRepository;
+import com.contractmonitor.contractmonitor.util.HashUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConsumerIndexTest {
+    
+    private static final String PROVIDER = """
+            {"paths": {"/users/{id}": {"get": {"responses": {"200": {"content": {"application/json":
+              {"schema": {"$ref": "#/components/schemas/User"}}}}}}}},
+             "components": {"schemas": {"User": {"type": "object"}}}}
+            """;
+    
+    private ApiSpecRepository specRepository;
+    private ServiceDependencyRepository dependencyRepository;
+    private ConsumerIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        specRepository = mock(ApiSpecRepository.class);
+        dependencyRepository = mock(ServiceDependencyRepository.class);
+        index = new ConsumerIndex(specRepository, dependencyRepository, Duration.ofHours(1));
+    }
+    
+    @Test
+    void schemaReferencesCountOnlyWhenTheyPointAtTheProvider() {
+        when(specRepository.findLatestPerService()).thenReturn(List.of(
+                spec("user-service", PROVIDER),
+                spec("order-service", """
+                        {"components": {"schemas": {"Order": {"properties": {"buyer":
+                          {"$ref": "https://specs.internal/user-service.json#/components/schemas/User"}}}}}}
+                        """),
+                spec("billing-service", """
+                        {"components": {"schemas": {"Customer": {"x-consumes": {"service": "user-service", "schema": "User"}}}}}
+                        """),
+                // Same schema name, but its own or another provider's
+                spec("audit-service", """
+                        {"components": {"schemas": {"User": {"type": "object"},
+                          "Actor": {"$ref": "common.yaml#/components/schemas/User"}}}}
+                        """)));
+        
+        List<ImpactedService> related = index.referencingServices(change("/components/schemas/User"), 10);
+        
+        assertThat(related).extracting(ImpactedService::serviceName).containsExactly("billing-service", "order-service");
+        assertThat(related).allMatch(service -> service.confidence() == ConsumerIndex.SCHEMA_REFERENCE_CONFIDENCE);
+    }
+    
+    @Test
+    void pathMentionsCountOnlyInUrlFieldsOnTheProvidersHost() {
+        when(specRepository.findLatestPerService()).thenReturn(List.of(
+                spec("user-service", PROVIDER),
+                spec("order-service", """
+                        {"x-upstreams": [{"lookupUrl": "http://user-service:8080/users/{id}"}]}
+                        """),
+                spec("search-service", """
+                        {"info": {"description": "Mirrors /users/{id} from the user service"},
+                         "externalDocs": {"url": "https://docs.internal/users/{id}"}}
+                        """)));
+        
+        List<ImpactedService> related = index.referencingServices(change("/users/{id}"), 10);
+        
+        assertThat(related).extracting(ImpactedService::serviceName).containsExactly("order-service");
+        assertThat(related.get(0).confidence()).isEqualTo(ConsumerIndex.URL_MENTION_CONFIDENCE);
+    }
+    
+    @Test
+    void storedSpecReloadsOnlyItsOwnService() {
+        when(specRepository.findLatestPerService()).thenReturn(List.of(spec("user-service", PROVIDER)));
+        assertThat(index.hasConsumers("user-service")).isFalse();
+        
+        when(specRepository.findTopByServiceNameOrderByFetchedAtDescIdDesc("order-service")).thenReturn(Optional.of(
+                spec("order-service", """
+                        {"x-dependencies": [{"service": "user-service", "paths": ["/users/{id}"]}]}
+                        """)));
+        index.onReferenceSpecChanged(new ReferenceSpecChangedEvent("order-service"));
+        
+        assertThat(index.impactOf(change("/users/{id}"))).extracting(ImpactedService::serviceName)
+                .containsExactly("order-service");
+        verify(specRepository, times(1)).findLatestPerService();
+        verify(specRepository, times(1)).findTopByServiceNameOrderByFetchedAtDescIdDesc(anyString());
+        verify(dependencyRepository, times(1)).findAll();
+    }
+    
+    @Test
+    void dependencyChangeReloadsOnlyThatProvidersRows() {
+        when(specRepository.findLatestPerService()).thenReturn(List.of(spec("user-service", PROVIDER)));
+        assertThat(index.hasConsumers("user-service")).isFalse();
+        
+        ServiceDependency dependency = new ServiceDependency();
+        dependency.setConsumerService("order-service");
+        dependency.setProviderService("user-service");
+        dependency.setSchemaName("User");
+        when(dependencyRepository.findByProviderService("user-service")).thenReturn(List.of(dependency));
+        index.onDependencyChanged(new DependencyChangedEvent("user-service"));
+        
+        assertThat(index.impactOf(change("/components/schemas/User"))).singleElement()
+                .satisfies(impacted -> assertThat(impacted.confidence()).isEqualTo(ConsumerIndex.SCHEMA_CONFIDENCE));
+        verify(dependencyRepository, times(1)).findAll();
+        verify(specRepository, never()).findTopByServiceNameOrderByFetchedAtDescIdDesc(anyString());
+    }
+    
+    private static ApiSpec spec(String serviceName, String content) {
+        ApiSpec spec = new ApiSpec();
+        spec.setServiceName(serviceName);
+        spec.setVersion("v1");
+        spec.setSpecContent(content);
+        spec.setContentHash(HashUtils.sha256(content));
+        return spec;
+    }
+    
+    private static BreakingChange change(String path) {
+        BreakingChange change = new BreakingChange();
+        change.setServiceName("user-service");
+        change.setChangeType(path.startsWith("/components/schemas/")
+                ? BreakingChange.ChangeType.SCHEMA_REMOVED
+                : BreakingChange.ChangeType.ENDPOINT_REMOVED);
+        change.setPath(path);
+        return change;
+    }
+}
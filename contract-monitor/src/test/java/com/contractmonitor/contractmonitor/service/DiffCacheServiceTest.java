@@ -0,0 +1,98 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.ApiSpec;
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import com.contractmonitor.contractmonitor.entity.DiffCacheEntry;
+import com.contractmonitor.contractmonitor.repository.DiffCacheRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DiffCacheServiceTest {
+    
+    private static final String OLD_CONTENT = """
+            {"paths": {"/users": {"get": {}}, "/legacy": {"get": {}}}}
+            """;
+    private static final String NEW_CONTENT = """
+            {"paths": {"/users": {"get": {}}}}
+            """;
+    
+    private DiffCacheRepository repository;
+    private DiffCacheService service;
+    
+    @BeforeEach
+    void setUp() {
+        repository = mock(DiffCacheRepository.class);
+        service = new DiffCacheService(repository, new SpecDiffEngine(), Duration.ofDays(30));
+    }
+    
+    @Test
+    void looksUpAndStoresEntriesUnderTheCurrentEngineVersion() {
+        when(repository.findByOldHashAndNewHashAndEngineVersion(anyString(), anyString(), anyInt()))
+                .thenReturn(Optional.empty());
+        
+        SpecDiff diff = service.compare(spec("v1", OLD_CONTENT), spec("v2", NEW_CONTENT));
+        
+        assertThat(diff.getBreakingChanges()).extracting(BreakingChange::getPath).containsExactly("/legacy");
+        verify(repository).findByOldHashAndNewHashAndEngineVersion(
+                anyString(), anyString(), eq(SpecDiffEngine.VERSION));
+        verify(repository).insertIfAbsent(anyString(), anyString(), eq(SpecDiffEngine.VERSION), anyString());
+    }
+    
+    @Test
+    void rebuildsTheChangeSetFromACacheHit() {
+        DiffCacheEntry entry = new DiffCacheEntry();
+        entry.setEngineVersion(SpecDiffEngine.VERSION);
+        entry.setChangesJson("""
+                [{"breaking": true, "changeType": "ENDPOINT_REMOVED", "path": "/cached", "description": "gone"}]
+                """);
+        when(repository.findByOldHashAndNewHashAndEngineVersion(anyString(), anyString(), eq(SpecDiffEngine.VERSION)))
+                .thenReturn(Optional.of(entry));
+        
+        SpecDiff diff = service.compare(spec("v1", OLD_CONTENT), spec("v2", NEW_CONTENT));
+        
+        assertThat(diff.getBreakingChanges()).extracting(BreakingChange::getPath).containsExactly("/cached");
+        assertThat(diff.getBreakingChanges().get(0).getNewVersion()).isEqualTo("v2");
+        verify(repository, never()).insertIfAbsent(anyString(), anyString(), anyInt(), anyString());
+    }
+    
+    @Test
+    void pruneDropsOtherEngineVersionsAndEntriesPastTheRetention() {
+        LocalDateTime before = LocalDateTime.now().minusDays(30);
+        
+        service.prune();
+        
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).deleteStale(eq(SpecDiffEngine.VERSION), cutoff.capture());
+        assertThat(cutoff.getValue()).isBetween(before, LocalDateTime.now().minusDays(30));
+    }
+    
+    @Test
+    void pruneFailuresAreNotPropagated() {
+        when(repository.deleteStale(anyInt(), any())).thenThrow(new IllegalStateException("db down"));
+        
+        service.prune();
+    }
+    
+    private static ApiSpec spec(String version, String content) {
+        ApiSpec spec = new ApiSpec();
+        spec.setServiceName("user-service");
+        spec.setVersion(version);
+        spec.setSpecContent(content);
+        return spec;
+    }
+}
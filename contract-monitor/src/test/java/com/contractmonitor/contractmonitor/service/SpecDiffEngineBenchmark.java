@@ -0,0 +1,161 @@
+package com.contractmonitor.contractmonitor.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.contractmonitor.contractmonitor.entity.ApiSpec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Manual benchmark for serial vs fork/join spec diffing on a gateway-sized spec.
+ *
+ * Not a JUnit test; run the main method, optionally passing path and schema counts:
+ *   SpecDiffEngineBenchmark 12000 3000
+ */
+public class SpecDiffEngineBenchmark {
+    
+    private static final int GLOBAL_WARMUP_ROUNDS = 20;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 15;
+    
+    public static void main(String[] args) {
+        int pathCount = args.length > 0 ? Integer.parseInt(args[0]) : 12_000;
+        int schemaCount = args.length > 1 ? Integer.parseInt(args[1]) : 3_000;
+        
+        // Per-change warnings would dominate the timings
+        ((Logger) LoggerFactory.getLogger(SpecDiffEngine.class)).setLevel(Level.ERROR);
+        
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode oldJson = buildSpec(mapper, pathCount, schemaCount, false);
+        JsonNode newJson = buildSpec(mapper, pathCount, schemaCount, true);
+        ApiSpec oldSpec = spec("v1");
+        ApiSpec newSpec = spec("v2");
+        
+        System.out.printf("Spec: %d paths, %d schemas, %d cores available%n",
+                pathCount, schemaCount, Runtime.getRuntime().availableProcessors());
+        
+        SpecDiffEngine serial = new SpecDiffEngine();
+        
+        // JIT-compile both traversals before timing either; otherwise whichever runs first looks slower
+        ForkJoinPool warmupPool = new ForkJoinPool(2);
+        SpecDiffEngine warmupParallel = new SpecDiffEngine(0, warmupPool);
+        for (int i = 0; i < GLOBAL_WARMUP_ROUNDS; i++) {
+            serial.compare(oldJson, newJson, oldSpec, newSpec);
+            warmupParallel.compare(oldJson, newJson, oldSpec, newSpec);
+        }
+        warmupPool.shutdown();
+        
+        double serialMs = measure(serial, oldJson, newJson, oldSpec, newSpec);
+        SpecDiff reference = serial.compare(oldJson, newJson, oldSpec, newSpec);
+        System.out.printf("serial        %8.2f ms  (%d breaking, %d non-breaking)%n", serialMs,
+                reference.getBreakingChanges().size(), reference.getNonBreakingChanges().size());
+        
+        int maxCores = Runtime.getRuntime().availableProcessors();
+        for (int cores = 1; cores <= maxCores; cores *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(cores);
+            try {
+                SpecDiffEngine parallel = new SpecDiffEngine(0, pool);
+                double ms = measure(parallel, oldJson, newJson, oldSpec, newSpec);
+                SpecDiff result = parallel.compare(oldJson, newJson, oldSpec, newSpec);
+                boolean sameOrder = sameDescriptions(reference, result);
+                System.out.printf("fork/join x%-2d %8.2f ms  speedup %.2fx  stable order: %s%n",
+                        cores, ms, serialMs / ms, sameOrder);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+    
+    private static double measure(SpecDiffEngine engine, JsonNode oldJson, JsonNode newJson,
+                                  ApiSpec oldSpec, ApiSpec newSpec) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            engine.compare(oldJson, newJson, oldSpec, newSpec);
+        }
+        
+        long[] samples = new long[MEASURED_ROUNDS];
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            engine.compare(oldJson, newJson, oldSpec, newSpec);
+            samples[i] = System.nanoTime() - start;
+        }
+        
+        Arrays.sort(samples);
+        return samples[MEASURED_ROUNDS / 2] / 1_000_000.0;
+    }
+    
+    private static boolean sameDescriptions(SpecDiff expected, SpecDiff actual) {
+        if (expected.getBreakingChanges().size() != actual.getBreakingChanges().size()
+                || expected.getNonBreakingChanges().size() != actual.getNonBreakingChanges().size()) {
+            return false;
+        }
+        for (int i = 0; i < expected.getBreakingChanges().size(); i++) {
+            if (!expected.getBreakingChanges().get(i).getDescription()
+                    .equals(actual.getBreakingChanges().get(i).getDescription())) {
+                return false;
+            }
+        }
+        for (int i = 0; i < expected.getNonBreakingChanges().size(); i++) {
+            if (!expected.getNonBreakingChanges().get(i).getDescription()
+                    .equals(actual.getNonBreakingChanges().get(i).getDescription())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Build a synthetic spec; the "next" variant drops, adds and retypes roughly 1% of entries.
+     * Also the fixture of SpecDiffEngineTest's serial/parallel comparison.
+     */
+    static JsonNode buildSpec(ObjectMapper mapper, int pathCount, int schemaCount, boolean next) {
+        ObjectNode root = mapper.createObjectNode();
+        ObjectNode paths = root.putObject("paths");
+        for (int i = 0; i < pathCount; i++) {
+            if (next && i % 100 == 0) {
+                continue;
+            }
+            ObjectNode endpoint = paths.putObject("/api/resource" + i + "/{id}");
+            endpoint.putObject("get").put("operationId", "get" + i);
+            endpoint.putObject("put").put("operationId", "put" + i);
+            if (!(next && i % 100 == 1)) {
+                endpoint.putObject("delete").put("operationId", "delete" + i);
+            }
+        }
+        if (next) {
+            for (int i = 0; i < pathCount / 100; i++) {
+                paths.putObject("/api/added" + i).putObject("post").put("operationId", "add" + i);
+            }
+        }
+        
+        ObjectNode schemas = root.putObject("components").putObject("schemas");
+        for (int i = 0; i < schemaCount; i++) {
+            if (next && i % 100 == 0) {
+                continue;
+            }
+            ObjectNode properties = schemas.putObject("Model" + i).putObject("properties");
+            for (int f = 0; f < 20; f++) {
+                if (next && i % 100 == 1 && f == 0) {
+                    continue;
+                }
+                String type = next && i % 100 == 2 && f == 1 ? "integer" : "string";
+                properties.putObject("field" + f).put("type", type);
+            }
+            if (next && i % 100 == 3) {
+                properties.putObject("extra").put("type", "string");
+            }
+        }
+        return root;
+    }
+    
+    private static ApiSpec spec(String version) {
+        ApiSpec spec = new ApiSpec();
+        spec.setServiceName("gateway");
+        spec.setVersion(version);
+        return spec;
+    }
+}
@@ -0,0 +1,137 @@
+package com.contractmonitor.contractmonitor.service;
+
+import com.contractmonitor.contractmonitor.entity.ApiSpec;
+import com.contractmonitor.contractmonitor.entity.BreakingChange;
+import com.contractmonitor.contractmonitor.entity.NonBreakingChange;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SpecDiffEngineTest {
+    
+    private final SpecDiffEngine engine = new SpecDiffEngine();
+    
+    @Test
+    void classifiesAdditionsAsNonBreaking() {
+        SpecDiff diff = engine.compare(spec("v1", """
+                {"paths": {"/users": {"get": {}}},
+                 "components": {"schemas": {"User": {"properties": {"id": {"type": "integer"}}}}}}
+                """), spec("v2", """
+                {"paths": {"/users": {"get": {}, "post": {}}, "/orders": {"get": {}}},
+                 "components": {"schemas": {
+                     "User": {"properties": {"id": {"type": "integer"}, "nickname": {"type": "string"},
+                              "email": {"type": "string"}}, "required": ["email"]},
+                     "Order": {"properties": {}}}}}
+                """));
+        
+        assertThat(diff.getBreakingChanges()).isEmpty();
+        assertThat(diff.getNonBreakingChanges())
+                .extracting(NonBreakingChange::getChangeType, NonBreakingChange::getPath)
+                .containsExactly(
+                        tuple(NonBreakingChange.ChangeType.METHOD_ADDED, "/users"),
+                        tuple(NonBreakingChange.ChangeType.ENDPOINT_ADDED, "/orders"),
+                        // The new required field 'email' is not an additive change
+                        tuple(NonBreakingChange.ChangeType.FIELD_ADDED, "/components/schemas/User"),
+                        tuple(NonBreakingChange.ChangeType.SCHEMA_ADDED, "/components/schemas/Order"));
+        assertThat(diff.getNonBreakingChanges().get(2).getDescription()).contains("'nickname'");
+    }
+    
+    @Test
+    void reportsRemovalsAndTypeChangesAsBreaking() {
+        SpecDiff diff = engine.compare(spec("v1", """
+                {"paths": {"/users": {"get": {}, "delete": {}}, "/legacy": {"get": {}}},
+                 "components": {"schemas": {
+                     "User": {"properties": {"id": {"type": "integer"}, "name": {"type": "string"}}},
+                     "Old": {"properties": {}}}}}
+                """), spec("v2", """
+                {"paths": {"/users": {"get": {}}},
+                 "components": {"schemas": {"User": {"properties": {"id": {"type": "string"}}}}}}
+                """));
+        
+        assertThat(diff.getBreakingChanges())
+                .extracting(BreakingChange::getChangeType)
+                .containsExactly(
+                        BreakingChange.ChangeType.METHOD_REMOVED,
+                        BreakingChange.ChangeType.ENDPOINT_REMOVED,
+                        BreakingChange.ChangeType.TYPE_CHANGED,
+                        BreakingChange.ChangeType.FIELD_REMOVED,
+                        BreakingChange.ChangeType.SCHEMA_REMOVED);
+        assertThat(diff.getNonBreakingChanges()).isEmpty();
+    }
+    
+    @Test
+    void treatsSectionsMissingFromTheOldSpecAsEmpty() {
+        SpecDiff diff = engine.compare(spec("v1", """
+                {"openapi": "3.0.1", "info": {"title": "user-service"}}
+                """), spec("v2", """
+                {"paths": {"/users": {"get": {}}},
+                 "components": {"schemas": {"User": {"properties": {"id": {"type": "integer"}}}}}}
+                """));
+        
+        assertThat(diff.getBreakingChanges()).isEmpty();
+        assertThat(diff.getNonBreakingChanges())
+                .extracting(NonBreakingChange::getChangeType, NonBreakingChange::getPath)
+                .containsExactly(
+                        tuple(NonBreakingChange.ChangeType.ENDPOINT_ADDED, "/users"),
+                        tuple(NonBreakingChange.ChangeType.SCHEMA_ADDED, "/components/schemas/User"));
+    }
+    
+    @Test
+    void doesNotReportEverythingRemovedWhenTheNewSpecHasNoPaths() {
+        SpecDiff diff = engine.compare(spec("v1", """
+                {"paths": {"/users": {"get": {}}}}
+                """), spec("v2", """
+                {"openapi": "3.0.1"}
+                """));
+        
+        assertThat(diff.isEmpty()).isTrue();
+    }
+    
+    @Test
+    void parallelDiffMatchesSerialDiffInOrder() {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode oldJson = SpecDiffEngineBenchmark.buildSpec(mapper, 6_000, 1_500, false);
+        JsonNode newJson = SpecDiffEngineBenchmark.buildSpec(mapper, 6_000, 1_500, true);
+        ApiSpec oldSpec = spec("v1", null);
+        ApiSpec newSpec = spec("v2", null);
+        
+        SpecDiff serial = engine.compare(oldJson, newJson, oldSpec, newSpec);
+        assertThat(serial.getBreakingChanges()).hasSizeGreaterThan(100);
+        assertThat(serial.getNonBreakingChanges()).hasSizeGreaterThan(50);
+        
+        for (int threads : new int[]{2, 4, 7}) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                SpecDiff parallel = new SpecDiffEngine(0, pool).compare(oldJson, newJson, oldSpec, newSpec);
+                
+                assertThat(parallel.getBreakingChanges())
+                        .extracting(BreakingChange::getChangeType, BreakingChange::getPath, BreakingChange::getDescription)
+                        .containsExactlyElementsOf(serial.getBreakingChanges().stream()
+                                .map(change -> tuple(change.getChangeType(), change.getPath(), change.getDescription()))
+                                .toList());
+                assertThat(parallel.getNonBreakingChanges())
+                        .extracting(NonBreakingChange::getChangeType, NonBreakingChange::getPath,
+                                NonBreakingChange::getDescription)
+                        .containsExactlyElementsOf(serial.getNonBreakingChanges().stream()
+                                .map(change -> tuple(change.getChangeType(), change.getPath(), change.getDescription()))
+                                .toList());
+                assertThat(parallel.isTruncated()).isFalse();
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+    
+    static ApiSpec spec(String version, String content) {
+        ApiSpec spec = new ApiSpec();
+        spec.setServiceName("user-service");
+        spec.setVersion(version);
+        spec.setSpecContent(content);
+        return spec;
+    }
+}
@@ -0,0 +1,405 @@
+package com.contractmonitor.contractmonitor.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the OpenAI chat-completions API, for load-testing the AI path offline.
+ *
+ * Serves POST /v1/chat/completions, plain and streamed (stream=true, as SSE chunks), with
+ * answers shaped like the prompts ask for: a JSON object for combined prompts, a JSON array
+ * with one entry per "Change N:" for batched prompts, plain text otherwise. Latency, injected
+ * 500 errors, random 429s and a hard requests-per-minute limit are configurable, and all
+ * randomness comes from a seed, so runs are reproducible.
+ *
+ * Point the app at it with
+ *   spring.ai.openai.base-url=http://localhost:8089 and OPENAI_API_KEY=stub
+ * or run it standalone:
+ *   OpenAiStubServer --port=8089 --latency=lognormal --latency-ms=800 --error-rate=0.02 --throttle-rate=0.05
+ */
+public class OpenAiStubServer implements AutoCloseable {
+
+    public enum LatencyDistribution {
+        FIXED,          // Always latencyMs
+        UNIFORM,        // Between minLatencyMs and maxLatencyMs
+        NORMAL,         // Mean latencyMs, standard deviation latencyStdDevMs
+        LOG_NORMAL      // Median latencyMs with a long right tail; latencyStdDevMs is the spread
+    }
+
+    /**
+     * Stub behaviour. Rates are probabilities per request (0..1); requestsPerMinute 0 means unlimited.
+     */
+    public record Config(int port,
+                         LatencyDistribution latency,
+                         long latencyMs,
+                         long minLatencyMs,
+                         long maxLatencyMs,
+                         long latencyStdDevMs,
+                         long tokenDelayMs,
+                         double errorRate,
+                         double throttleRate,
+                         int requestsPerMinute,
+                         int retryAfterSeconds,
+                         int completionWords,
+                         long seed) {
+
+        public static Config defaults() {
+            return new Config(0, LatencyDistribution.LOG_NORMAL, 800, 200, 2000, 400, 10,
+                    0.0, 0.0, 0, 1, 60, 42L);
+        }
+
+        /**
+         * Defaults overridden by --name=value arguments (names as in the record, kebab-case)
+         */
+        public static Config fromArgs(String[] args) {
+            Config defaults = defaults();
+            Map<String, String> options = new HashMap<>();
+            for (String arg : args) {
+                if (arg.startsWith("--") && arg.contains("=")) {
+                    options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+                }
+            }
+            return new Config(
+                    Integer.parseInt(options.getOrDefault("port", "8089")),
+                    LatencyDistribution.valueOf(options.getOrDefault("latency", defaults.latency().name())
+                            .toUpperCase().replace('-', '_')),
+                    Long.parseLong(options.getOrDefault("latency-ms", String.valueOf(defaults.latencyMs()))),
+                    Long.parseLong(options.getOrDefault("min-latency-ms", String.valueOf(defaults.minLatencyMs()))),
+                    Long.parseLong(options.getOrDefault("max-latency-ms", String.valueOf(defaults.maxLatencyMs()))),
+                    Long.parseLong(options.getOrDefault("latency-std-dev-ms", String.valueOf(defaults.latencyStdDevMs()))),
+                    Long.parseLong(options.getOrDefault("token-delay-ms", String.valueOf(defaults.tokenDelayMs()))),
+                    Double.parseDouble(options.getOrDefault("error-rate", String.valueOf(defaults.errorRate()))),
+                    Double.parseDouble(options.getOrDefault("throttle-rate", String.valueOf(defaults.throttleRate()))),
+                    Integer.parseInt(options.getOrDefault("requests-per-minute", String.valueOf(defaults.requestsPerMinute()))),
+                    Integer.parseInt(options.getOrDefault("retry-after-seconds", String.valueOf(defaults.retryAfterSeconds()))),
+                    Integer.parseInt(options.getOrDefault("completion-words", String.valueOf(defaults.completionWords()))),
+                    Long.parseLong(options.getOrDefault("seed", String.valueOf(defaults.seed())))
+            );
+        }
+
+        public Config withPort(int port) {
+            return new Config(port, latency, latencyMs, minLatencyMs, maxLatencyMs, latencyStdDevMs, tokenDelayMs,
+                    errorRate, throttleRate, requestsPerMinute, retryAfterSeconds, completionWords, seed);
+        }
+
+        public Config withLatency(LatencyDistribution latency, long latencyMs) {
+            return new Config(port, latency, latencyMs, minLatencyMs, maxLatencyMs, latencyStdDevMs, tokenDelayMs,
+                    errorRate, throttleRate, requestsPerMinute, retryAfterSeconds, completionWords, seed);
+        }
+
+        public Config withFailures(double errorRate, double throttleRate) {
+            return new Config(port, latency, latencyMs, minLatencyMs, maxLatencyMs, latencyStdDevMs, tokenDelayMs,
+                    errorRate, throttleRate, requestsPerMinute, retryAfterSeconds, completionWords, seed);
+        }
+
+        public Config withRequestsPerMinute(int requestsPerMinute) {
+            return new Config(port, latency, latencyMs, minLatencyMs, maxLatencyMs, latencyStdDevMs, tokenDelayMs,
+                    errorRate, throttleRate, requestsPerMinute, retryAfterSeconds, completionWords, seed);
+        }
+    }
+
+    private static final Pattern CHANGE_NUMBER = Pattern.compile("(?m)^Change (\\d+):");
+
+    private final Config config;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Random random;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+
+    // Fixed one-minute windows for the hard rate limit
+    private long windowStart;
+    private int windowCount;
+
+    public OpenAiStubServer(Config config) throws IOException {
+        this.config = config;
+        this.random = new Random(config.seed());
+        this.server = HttpServer.create(new InetSocketAddress("localhost", config.port()), 0);
+        this.server.createContext("/v1/chat/completions", this::handle);
+        this.server.setExecutor(executor);
+    }
+
+    public static void main(String[] args) throws IOException {
+        OpenAiStubServer stub = new OpenAiStubServer(Config.fromArgs(args)).start();
+        System.out.printf("OpenAI stub listening on %s with %s%n", stub.baseUrl(), stub.config);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println(stub.stats());
+            stub.close();
+        }));
+    }
+
+    public OpenAiStubServer start() {
+        server.start();
+        return this;
+    }
+
+    /**
+     * Base URL for spring.ai.openai.base-url (the client appends /v1/chat/completions)
+     */
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public String stats() {
+        return String.format("Stub requests: %d, succeeded: %d, errors (500): %d, throttled (429): %d",
+                requests.get(), succeeded.get(), errors.get(), throttled.get());
+    }
+
+    public long throttledCount() {
+        return throttled.get();
+    }
+
+    public long errorCount() {
+        return errors.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, error("method_not_allowed", "Only POST is supported"));
+                return;
+            }
+            requests.incrementAndGet();
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+
+            // Decide the outcome up front so a seed gives the same sequence of results
+            Outcome outcome = nextOutcome();
+            if (outcome.throttle()) {
+                throttled.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", String.valueOf(config.retryAfterSeconds()));
+                exchange.getResponseHeaders().add("x-ratelimit-remaining-requests", "0");
+                send(exchange, 429, error("rate_limit_exceeded",
+                        "Rate limit reached for requests. Please try again in " + config.retryAfterSeconds() + "s."));
+                return;
+            }
+
+            sleep(outcome.latencyMs());
+            if (outcome.error()) {
+                errors.incrementAndGet();
+                send(exchange, 500, error("server_error", "The server had an error while processing your request."));
+                return;
+            }
+
+            String content = completion(lastUserMessage(request));
+            String model = request.path("model").asText("stub-model");
+            if (request.path("stream").asBoolean(false)) {
+                stream(exchange, model, content);
+            } else {
+                send(exchange, 200, objectMapper.writeValueAsString(response(model, request, content)));
+            }
+            succeeded.incrementAndGet();
+        } catch (Exception e) {
+            // Client went away mid-response; nothing left to report to it
+        }
+    }
+
+    private record Outcome(boolean throttle, boolean error, long latencyMs) {
+    }
+
+    private synchronized Outcome nextOutcome() {
+        boolean overLimit = false;
+        if (config.requestsPerMinute() > 0) {
+            long now = System.currentTimeMillis();
+            if (now - windowStart >= 60_000) {
+                windowStart = now;
+                windowCount = 0;
+            }
+            overLimit = ++windowCount > config.requestsPerMinute();
+        }
+        boolean throttle = overLimit || random.nextDouble() < config.throttleRate();
+        boolean error = random.nextDouble() < config.errorRate();
+        return new Outcome(throttle, error, sampleLatency());
+    }
+
+    private long sampleLatency() {
+        double millis = switch (config.latency()) {
+            case FIXED -> config.latencyMs();
+            case UNIFORM -> config.minLatencyMs()
+                    + random.nextDouble() * (config.maxLatencyMs() - config.minLatencyMs());
+            case NORMAL -> config.latencyMs() + random.nextGaussian() * config.latencyStdDevMs();
+            case LOG_NORMAL -> {
+                double sigma = Math.log1p((double) config.latencyStdDevMs() / Math.max(1, config.latencyMs()));
+                yield config.latencyMs() * Math.exp(sigma * random.nextGaussian());
+            }
+        };
+        return Math.max(0, Math.round(millis));
+    }
+
+    private String lastUserMessage(JsonNode request) {
+        String content = "";
+        for (JsonNode message : request.path("messages")) {
+            if ("user".equals(message.path("role").asText())) {
+                content = message.path("content").asText("");
+            }
+        }
+        return content;
+    }
+
+    /**
+     * An answer in the shape the prompt asks for
+     */
+    private String completion(String prompt) throws IOException {
+        if (prompt.contains("single JSON array")) {
+            ArrayNode array = objectMapper.createArrayNode();
+            Matcher matcher = CHANGE_NUMBER.matcher(prompt);
+            while (matcher.find()) {
+                ObjectNode entry = insights(Integer.parseInt(matcher.group(1)));
+                array.add(entry);
+            }
+            return objectMapper.writeValueAsString(array);
+        }
+        if (prompt.contains("single JSON object")) {
+            return objectMapper.writeValueAsString(insights(0));
+        }
+        return words("Stub answer.");
+    }
+
+    private ObjectNode insights(int index) {
+        ObjectNode entry = objectMapper.createObjectNode();
+        if (index > 0) {
+            entry.put("index", index);
+        }
+        entry.put("suggestion", "1. " + words("Keep the old contract."));
+        entry.put("impact", "stub-service | 50% | " + words("Stub impact."));
+        entry.put("explanation", words("Stub explanation."));
+        return entry;
+    }
+
+    private String words(String prefix) {
+        StringBuilder text = new StringBuilder(prefix);
+        for (int i = 0; i < config.completionWords(); i++) {
+            text.append(" lorem");
+        }
+        return text.toString();
+    }
+
+    private ObjectNode response(String model, JsonNode request, String content) {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("id", "chatcmpl-stub-" + requests.get());
+        response.put("object", "chat.completion");
+        response.put("created", System.currentTimeMillis() / 1000);
+        response.put("model", model);
+
+        ObjectNode choice = response.putArray("choices").addObject();
+        choice.put("index", 0);
+        ObjectNode message = choice.putObject("message");
+        message.put("role", "assistant");
+        message.put("content", content);
+        choice.put("finish_reason", "stop");
+
+        int promptTokens = request.path("messages").toString().length() / 4;
+        int completionTokens = content.length() / 4;
+        ObjectNode usage = response.putObject("usage");
+        usage.put("prompt_tokens", promptTokens);
+        usage.put("completion_tokens", completionTokens);
+        usage.put("total_tokens", promptTokens + completionTokens);
+        return response;
+    }
+
+    /**
+     * Send the content as chat.completion.chunk events, one word per chunk
+     */
+    private void stream(HttpExchange exchange, String model, String content) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream body = exchange.getResponseBody();
+
+        String id = "chatcmpl-stub-" + requests.get();
+        List<String> tokens = new ArrayList<>();
+        Matcher matcher = Pattern.compile("\\S+\\s*|\\s+").matcher(content);
+        while (matcher.find()) {
+            tokens.add(matcher.group());
+        }
+
+        for (int i = 0; i < tokens.size(); i++) {
+            ObjectNode chunk = chunk(id, model);
+            ObjectNode choice = (ObjectNode) chunk.path("choices").get(0);
+            ObjectNode delta = choice.putObject("delta");
+            if (i == 0) {
+                delta.put("role", "assistant");
+            }
+            delta.put("content", tokens.get(i));
+            choice.putNull("finish_reason");
+            writeEvent(body, objectMapper.writeValueAsString(chunk));
+            sleep(config.tokenDelayMs());
+        }
+
+        ObjectNode last = chunk(id, model);
+        ObjectNode choice = (ObjectNode) last.path("choices").get(0);
+        choice.putObject("delta");
+        choice.put("finish_reason", "stop");
+        writeEvent(body, objectMapper.writeValueAsString(last));
+        writeEvent(body, "[DONE]");
+    }
+
+    private ObjectNode chunk(String id, String model) {
+        ObjectNode chunk = objectMapper.createObjectNode();
+        chunk.put("id", id);
+        chunk.put("object", "chat.completion.chunk");
+        chunk.put("created", System.currentTimeMillis() / 1000);
+        chunk.put("model", model);
+        chunk.putArray("choices").addObject().put("index", 0);
+        return chunk;
+    }
+
+    private void writeEvent(OutputStream body, String data) throws IOException {
+        body.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        body.flush();
+    }
+
+    private String error(String code, String message) {
+        ObjectNode root = objectMapper.createObjectNode();
+        ObjectNode error = root.putObject("error");
+        error.put("message", message);
+        error.put("type", code.equals("rate_limit_exceeded") ? "requests" : code);
+        error.put("code", code);
+        return root.toString();
+    }
+
+    private void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
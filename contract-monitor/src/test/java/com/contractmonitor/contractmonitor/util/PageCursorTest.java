@@ -0,0 +1,76 @@
+package com.contractmonitor.contractmonitor.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest {
+    
+    @Test
+    void tokenRoundTrips() {
+        PageCursor cursor = new PageCursor(LocalDateTime.of(2026, 10, 18, 10, 0, 0, 123_000_000), 42L);
+        
+        String token = cursor.toString();
+        
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+        assertThat(PageCursor.valueOf(token)).isEqualTo(cursor);
+    }
+    
+    @Test
+    void rejectsMalformedTokens() {
+        assertThatThrownBy(() -> PageCursor.valueOf("not a cursor"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PageCursor.valueOf(encode("2026-10-18T10:00")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PageCursor.valueOf(encode("yesterday|42")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    @Test
+    void startSortsBeforeEveryRow() {
+        PageCursor start = PageCursor.orStart(null);
+        PageCursor given = new PageCursor(LocalDateTime.now(), 1L);
+        
+        assertThat(start.at()).isAfter(LocalDateTime.now().plusYears(100));
+        assertThat(start.id()).isEqualTo(Long.MAX_VALUE);
+        assertThat(PageCursor.orStart(given)).isSameAs(given);
+    }
+    
+    @Test
+    void nextCursorPointsAtTheLastItemReturned() {
+        List<Long> fetched = List.of(5L, 4L, 3L, 2L);
+        
+        KeysetPage<Long> page = KeysetPage.of(fetched, 3, id -> new PageCursor(LocalDateTime.MIN, id));
+        
+        assertThat(page.items()).containsExactly(5L, 4L, 3L);
+        assertThat(page.nextCursor().id()).isEqualTo(3L);
+    }
+    
+    @Test
+    void lastPageHasNoCursor() {
+        KeysetPage<Long> full = KeysetPage.of(List.of(2L, 1L), 2, id -> new PageCursor(LocalDateTime.MIN, id));
+        KeysetPage<Long> empty = KeysetPage.of(List.of(), 2, id -> new PageCursor(LocalDateTime.MIN, id));
+        
+        assertThat(full.items()).containsExactly(2L, 1L);
+        assertThat(full.nextCursor()).isNull();
+        assertThat(empty.nextCursor()).isNull();
+    }
+    
+    @Test
+    void clampsTheRequestedLimit() {
+        assertThat(KeysetPage.clampLimit(0)).isEqualTo(1);
+        assertThat(KeysetPage.clampLimit(-5)).isEqualTo(1);
+        assertThat(KeysetPage.clampLimit(50)).isEqualTo(50);
+        assertThat(KeysetPage.clampLimit(10_000)).isEqualTo(KeysetPage.MAX_LIMIT);
+    }
+    
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
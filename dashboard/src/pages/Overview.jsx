@@ -16,6 +16,8 @@ const Overview = () => {
     const [error, setError] = useState(null);
     const [statusFilter, setStatusFilter] = useState('ALL');
     const [expandedInsights, setExpandedInsights] = useState({});
+    const [details, setDetails] = useState({});
+    const [detailErrors, setDetailErrors] = useState({});
 
     const services = ['user-service', 'order-service', 'product-service', 'notification-service'];
 
@@ -39,6 +41,7 @@ const Overview = () => {
                 .sort((a, b) => new Date(b.detectedAt) - new Date(a.detectedAt))
                 .slice(0, 10);
 
+            setDetails({});
             setStats({
                 totalBreakingChanges: statsResponse.data.totalBreakingChanges || 0,
                 servicesOnline: statusResponse.data.onlineCount || 0,
@@ -98,7 +101,23 @@ const Overview = () => {
         }
     };
 
+    // List rows leave out AI text and resolution notes; fetch them the first time they are shown
+    const loadDetails = async (changeId) => {
+        if (details[changeId]) return;
+        setDetailErrors(prev => ({ ...prev, [changeId]: null }));
+        try {
+            const response = await breakingChangesApi.getDetails(changeId);
+            setDetails(prev => ({ ...prev, [changeId]: response.data }));
+        } catch (err) {
+            console.error('Error loading change details:', err);
+            setDetailErrors(prev => ({ ...prev, [changeId]: 'Could not load details' }));
+        }
+    };
+
     const toggleInsights = (changeId) => {
+        if (!expandedInsights[changeId]) {
+            loadDetails(changeId);
+        }
         setExpandedInsights(prev => ({
             ...prev,
             [changeId]: !prev[changeId]
@@ -233,7 +252,7 @@ const Overview = () => {
                                     <p className="change-description">{change.description}</p>
                                     <p className="change-path">Path: {change.path}</p>
                                 </div>
-                                {change.aiSuggestion && (
+                                {change.hasInsights && (
                                     <div className="ai-insights-section">
                                         <button
                                             className="ai-insights-toggle"
@@ -247,14 +266,26 @@ const Overview = () => {
                                             </span>
                                         </button>
 
-                                        {expandedInsights[change.id] && (
+                                        {expandedInsights[change.id] && !details[change.id] && !detailErrors[change.id] && (
+                                            <div className="ai-insights-content">Loading insights...</div>
+                                        )}
+
+                                        {expandedInsights[change.id] && detailErrors[change.id] && (
+                                            <div className="ai-insights-content details-error">
+                                                <AlertTriangle size={16} />
+                                                <span>{detailErrors[change.id]}</span>
+                                                <button onClick={() => loadDetails(change.id)}>Retry</button>
+                                            </div>
+                                        )}
+
+                                        {expandedInsights[change.id] && details[change.id] && (
                                             <div className="ai-insights-content">
                                                 {/* Migration Suggestion */}
-                                                {change.aiSuggestion && (
+                                                {details[change.id].aiSuggestion && (
                                                     <div className="insight-block">
                                                         <h4>🔧 Migration Strategy</h4>
                                                         <div className="insight-text">
-                                                            {change.aiSuggestion.split('\n').map((line, i) => {
+                                                            {details[change.id].aiSuggestion.split('\n').map((line, i) => {
                                                                 const trimmed = line.trim();
                                                                 if (!trimmed) return null;
 
@@ -292,11 +323,11 @@ const Overview = () => {
                                                 )}
 
                                                 {/* Impact Prediction */}
-                                                {change.predictedImpact && (
+                                                {details[change.id].predictedImpact && (
                                                     <div className="insight-block">
                                                         <h4>⚠️ Cross-Service Impact</h4>
                                                         <div className="insight-text">
-                                                            {change.predictedImpact.split('\n').map((line, i) => {
+                                                            {details[change.id].predictedImpact.split('\n').map((line, i) => {
                                                                 const trimmed = line.trim();
                                                                 if (!trimmed) return null;
 
@@ -326,11 +357,11 @@ const Overview = () => {
                                                 )}
 
                                                 {/* Plain English Explanation */}
-                                                {change.plainEnglishExplanation && (
+                                                {details[change.id].plainEnglishExplanation && (
                                                     <div className="insight-block">
                                                         <h4>💡 Business Impact</h4>
                                                         <div className="insight-text">
-                                                            {change.plainEnglishExplanation.split('\n').map((line, i) => {
+                                                            {details[change.id].plainEnglishExplanation.split('\n').map((line, i) => {
                                                                 const trimmed = line.trim();
                                                                 if (!trimmed) return null;
 
@@ -382,7 +413,13 @@ const Overview = () => {
                                 {change.status === 'RESOLVED' && change.resolvedAt && (
                                     <div className="resolution-info">
                                         <p>✅ Resolved by {change.resolvedBy} on {new Date(change.resolvedAt).toLocaleDateString()}</p>
-                                        {change.resolutionNotes && <p className="notes">{change.resolutionNotes}</p>}
+                                        {details[change.id]?.resolutionNotes ? (
+                                            <p className="notes">{details[change.id].resolutionNotes}</p>
+                                        ) : change.hasResolutionNotes && (
+                                            <button className="ai-insights-toggle" onClick={() => loadDetails(change.id)}>
+                                                {detailErrors[change.id] ? 'Could not load notes, retry' : 'Show notes'}
+                                            </button>
+                                        )}
                                     </div>
                                 )}
                             </div>
@@ -14,15 +14,19 @@ export const analysisApi = {
     analyzeService: (serviceName) => api.post(`/analysis/${serviceName}`),
     analyzeAll: () => api.post('/analysis/all'),
     getLatestReport: (serviceName) => api.get(`/analysis/${serviceName}/latest`),
-    getHistory: (serviceName) => api.get(`/analysis/${serviceName}/history`),
+    getHistory: (serviceName, params) => api.get(`/analysis/${serviceName}/history`, { params }),
     getStatus: (serviceName) => api.get(`/analysis/status/${serviceName}`),
     getAllStatus: () => api.get('/analysis/status'),
 };
 
 // Breaking Changes APIs
 export const breakingChangesApi = {
-    getAll: (serviceName) => api.get(`/breaking-changes/${serviceName}`),
-    getByType: (serviceName, type) => api.get(`/breaking-changes/${serviceName}/type/${type}`),
+    // List endpoints are paginated: pass { limit, cursor }, where cursor is the
+    // x-next-cursor header of the previous page (absent on the last page)
+    getAll: (serviceName, params) => api.get(`/breaking-changes/${serviceName}`, { params }),
+    getByType: (serviceName, type, params) => api.get(`/breaking-changes/${serviceName}/type/${type}`, { params }),
+    // Full change with AI text and resolution notes, which list responses leave out
+    getDetails: (changeId) => api.get(`/breaking-changes/${changeId}/details`),
     getCount: (serviceName) => api.get(`/breaking-changes/${serviceName}/count`),
     getSummary: (serviceName) => api.get(`/breaking-changes/${serviceName}/summary`),
     getRecent: (serviceName, limit = 10) => api.get(`/breaking-changes/${serviceName}/recent?limit=${limit}`),
@@ -32,7 +36,7 @@ export const breakingChangesApi = {
 // API Specs APIs
 export const specsApi = {
     getLatest: (serviceName) => api.get(`/specs/${serviceName}/latest`),
-    getHistory: (serviceName) => api.get(`/specs/${serviceName}/history`),
+    getHistory: (serviceName, params) => api.get(`/specs/${serviceName}/history`, { params }),
     getByVersion: (serviceName, version) => api.get(`/specs/${serviceName}/version/${version}`),
 };
 
@@ -54,10 +58,10 @@ export const statusApi = {
         api.post(`/breaking-changes/${changeId}/resolve`, { resolvedBy, notes }),
     ignore: (changeId, ignoredBy, reason) =>
         api.post(`/breaking-changes/${changeId}/ignore`, { ignoredBy, reason }),
-    getByStatus: (serviceName, status) =>
-        api.get(`/breaking-changes/${serviceName}/status/${status}`),
-    getActive: (serviceName) =>
-        api.get(`/breaking-changes/${serviceName}/active`),
+    getByStatus: (serviceName, status, params) =>
+        api.get(`/breaking-changes/${serviceName}/status/${status}`, { params }),
+    getActive: (serviceName, params) =>
+        api.get(`/breaking-changes/${serviceName}/active`, { params }),
 };
 
 export default api;
\ No newline at end of file